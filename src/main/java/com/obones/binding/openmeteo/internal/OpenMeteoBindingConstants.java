@@ -98,10 +98,20 @@ public class OpenMeteoBindingConstants {
 
     /** Channel/Property identifier describing the current Bridge State. */
     public static final String PROPERTY_BRIDGE_API_VERSION = "apiVersion";
+    public static final String PROPERTY_BRIDGE_REFRESH_TRIGGERS = "refreshTriggers";
+    public static final String PROPERTY_BRIDGE_MERGED_REFRESH_TRIGGERS = "mergedRefreshTriggers";
+    // appended to the name of each refresh stage: fetch, decode and publish
+    public static final String PROPERTY_BRIDGE_STAGE_QUEUE_DEPTH_SUFFIX = "QueueDepth";
+    public static final String PROPERTY_BRIDGE_STAGE_LATENCY_SUFFIX = "Latency";
 
     // Thing properties
     public static final String PROPERTY_THING_LOCATION = "location";
     public static final String PROPERTY_THING_LAST_UPDATED = "last-updated";
+    public static final String PROPERTY_THING_PRUNED_VARIABLES = "pruned-variables";
+    public static final String PROPERTY_THING_UNCHANGED_RESPONSES = "unchanged-responses";
+
+    // Thing configuration
+    public static final String CONFIG_THING_REFRESH_INTERVAL = "refreshInterval";
 
     // List of all bridge channel/ids
     public static final String CHANNEL_BRIDGE_LAST_UPDATED = "last-updated";
@@ -20,4 +20,5 @@ public class OpenMeteoBaseThingConfiguration {
      * Default values - should not be modified
      */
     public String location = "";
+    public int refreshInterval = 0;
 }
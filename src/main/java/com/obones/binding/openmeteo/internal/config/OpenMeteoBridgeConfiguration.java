@@ -23,9 +23,31 @@ public class OpenMeteoBridgeConfiguration {
     public String baseURI = "https://api.open-meteo.com/v1/";
     public String APIKey = "";
     public int refreshInterval;
+    public int refreshJitter = 0;
+    public String modelRunSchedule = "";
 
     public String proxyHost = "";
     public Integer proxyPort = 8080;
     public String proxyUser = "";
     public String proxyPassword = "";
+
+    public boolean batchRequests = false;
+    public boolean directBuffers = false;
+    public int responseCacheTTL = 60;
+    public boolean fastStartup = true;
+    public int storedResponseMaxAge = 0;
+    public boolean linkedChannelsOnly = false;
+    public int emptyVariablePruneThreshold = 0;
+    public boolean timeSeriesDiff = false;
+    public int maxChannelUpdatesPerSecond = 0;
+    public int fetchParallelism = 4;
+    public int fetchQueueSize = 100;
+    public int decodeParallelism = 4;
+    public int decodeQueueSize = 100;
+    public int publishParallelism = 4;
+    public int publishQueueSize = 100;
+    public boolean virtualThreads = false;
+    public int maxRetries = 2;
+    public int circuitBreakerThreshold = 5;
+    public int circuitBreakerOpenTime = 300;
 }
@@ -42,6 +42,12 @@ public class OpenMeteoForecastThingConfiguration extends OpenMeteoBaseThingConfi
 
     public @Nullable String models = null;
 
+    public boolean blockCadence = false;
+
+    public boolean adaptiveRefresh = false;
+    public int minRefreshInterval = 5;
+    public int maxRefreshInterval = 60;
+
     public boolean includeTimeStamp = true;
     public boolean includeTemperature = true;
     public boolean includeHumidity = true;
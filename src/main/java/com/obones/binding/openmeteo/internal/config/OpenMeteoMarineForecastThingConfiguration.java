@@ -18,6 +18,8 @@ public class OpenMeteoMarineForecastThingConfiguration extends OpenMeteoBaseThin
 
     public @Nullable String models = null;
 
+    public boolean blockCadence = false;
+
     public boolean includeWaveHeight = true;
     public boolean includeWindWaveHeight = true;
     public boolean includeSwellWaveHeight = true;
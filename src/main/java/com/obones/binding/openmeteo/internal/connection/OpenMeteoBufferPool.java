@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link OpenMeteoBufferPool} keeps the buffers used to receive the API responses so that they can be reused
+ * from one refresh to the next.
+ * <P>
+ * Buffers are grouped in size classes, each class holding buffers twice as large as the previous one, so that a
+ * response always finds a buffer large enough without wasting more than half of it.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoBufferPool {
+    private static final int MIN_BUFFER_SIZE = 64 * 1024;
+    private static final int SIZE_CLASS_COUNT = 11; // up to 64 MiB
+    private static final int MAX_BUFFERS_PER_SIZE_CLASS = 4;
+
+    private final boolean direct;
+    private final List<Deque<ByteBuffer>> freeBuffers = new ArrayList<>(SIZE_CLASS_COUNT);
+
+    /**
+     * @param direct true to allocate direct buffers, false to allocate heap buffers
+     */
+    public OpenMeteoBufferPool(boolean direct) {
+        this.direct = direct;
+        for (int sizeClass = 0; sizeClass < SIZE_CLASS_COUNT; sizeClass++) {
+            freeBuffers.add(new ArrayDeque<>(MAX_BUFFERS_PER_SIZE_CLASS));
+        }
+    }
+
+    /**
+     * @return the capacity of the largest buffer this pool can provide
+     */
+    public int getMaxBufferSize() {
+        return getBufferSize(SIZE_CLASS_COUNT - 1);
+    }
+
+    /**
+     * Returns a cleared buffer of at least the given capacity, reusing a released one if available
+     *
+     * @param minCapacity the minimum capacity, at most {@link #getMaxBufferSize()}
+     */
+    public ByteBuffer acquire(int minCapacity) {
+        int sizeClass = getSizeClass(minCapacity);
+        if (sizeClass >= SIZE_CLASS_COUNT) {
+            throw new IllegalArgumentException("Buffer capacity " + minCapacity + " exceeds the maximum of "
+                    + getMaxBufferSize() + " bytes");
+        }
+
+        Deque<ByteBuffer> buffers = freeBuffers.get(sizeClass);
+        @Nullable
+        ByteBuffer buffer;
+        synchronized (buffers) {
+            buffer = buffers.pollFirst();
+        }
+
+        if (buffer == null) {
+            int size = getBufferSize(sizeClass);
+            buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        }
+
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Gives the buffer back to the pool, it must not be used by the caller afterwards
+     */
+    public void release(ByteBuffer buffer) {
+        int sizeClass = getSizeClass(buffer.capacity());
+        if (buffer.isDirect() != direct || sizeClass >= SIZE_CLASS_COUNT
+                || buffer.capacity() != getBufferSize(sizeClass)) {
+            return; // not one of ours, let the garbage collector take care of it
+        }
+
+        Deque<ByteBuffer> buffers = freeBuffers.get(sizeClass);
+        synchronized (buffers) {
+            if (buffers.size() < MAX_BUFFERS_PER_SIZE_CLASS) {
+                buffers.offerFirst(buffer);
+            }
+        }
+    }
+
+    private static int getBufferSize(int sizeClass) {
+        return MIN_BUFFER_SIZE << sizeClass;
+    }
+
+    private static int getSizeClass(int capacity) {
+        int sizeClass = 0;
+        while (sizeClass < SIZE_CLASS_COUNT && getBufferSize(sizeClass) < capacity) {
+            sizeClass++;
+        }
+        return sizeClass;
+    }
+}
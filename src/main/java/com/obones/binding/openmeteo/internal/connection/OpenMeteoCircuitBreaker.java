@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import java.time.Duration;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link OpenMeteoCircuitBreaker} stops the requests to a host that keeps failing.
+ * <P>
+ * Once the given number of downloads failed in a row, or when the host asks for a delay with a Retry-After
+ * header, the breaker opens: no request is sent until the open time has elapsed. A single request is then let
+ * through, its success closing the breaker and its failure opening it again.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoCircuitBreaker {
+    private @NonNullByDefault({}) static final Logger logger = LoggerFactory.getLogger(OpenMeteoCircuitBreaker.class);
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String host;
+    private final int threshold;
+    private final long openTimeNanos;
+
+    private State state = State.CLOSED;
+    private int failureCount;
+    private long openUntil;
+
+    /**
+     * @param host the host the requests are sent to
+     * @param threshold the number of consecutive failures opening the breaker, 0 to only open it when the host
+     *            asks for a delay
+     * @param openTime the time during which no request is sent once the breaker is open
+     */
+    public OpenMeteoCircuitBreaker(String host, int threshold, Duration openTime) {
+        this.host = host;
+        this.threshold = Math.max(threshold, 0);
+        this.openTimeNanos = openTime.toNanos();
+    }
+
+    /**
+     * Tells whether a request may be sent now. When it returns true, the outcome of the request must be given to
+     * {@link #succeeded()}, {@link #failed(Duration)} or {@link #abandoned()}.
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openUntil < 0) {
+                    return false;
+                }
+                logger.debug("Trying {} again after its circuit breaker opened.", host);
+                state = State.HALF_OPEN;
+                return true;
+            case HALF_OPEN:
+            default:
+                // waiting for the outcome of the trial request
+                return false;
+        }
+    }
+
+    /**
+     * Tells that the host answered a request, even if the API rejected it
+     */
+    public synchronized void succeeded() {
+        if (state != State.CLOSED) {
+            logger.info("Requests to {} are sent again.", host);
+        }
+        state = State.CLOSED;
+        failureCount = 0;
+    }
+
+    /**
+     * Tells that a request was cancelled before its outcome was known, another one is let through instead when
+     * it was the trial request
+     */
+    public synchronized void abandoned() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    /**
+     * Tells that a request failed because of the host or the network
+     *
+     * @param retryAfter the delay the host asked for, null if it did not
+     */
+    public synchronized void failed(@Nullable Duration retryAfter) {
+        failureCount++;
+        long openTime;
+        if (retryAfter != null) {
+            openTime = retryAfter.toNanos();
+        } else if (state == State.HALF_OPEN || (threshold > 0 && failureCount >= threshold)) {
+            openTime = openTimeNanos;
+        } else {
+            return;
+        }
+
+        long until = System.nanoTime() + openTime;
+        if (state != State.OPEN || until - openUntil > 0) {
+            openUntil = until;
+        }
+        if (state != State.OPEN) {
+            logger.warn("Suspending requests to {} for {} s after {} failures in a row.", host,
+                    Duration.ofNanos(openTime).toSeconds(), failureCount);
+        }
+        state = State.OPEN;
+    }
+}
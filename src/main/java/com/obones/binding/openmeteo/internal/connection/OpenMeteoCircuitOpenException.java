@@ -0,0 +1,31 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import java.io.IOException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link OpenMeteoCircuitOpenException} reports a request that was not sent because the circuit breaker of
+ * its host is open. The data retrieved before is still the most recent one available.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoCircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public OpenMeteoCircuitOpenException(String host) {
+        super("Requests to " + host + " are suspended after repeated failures");
+    }
+}
@@ -12,6 +12,8 @@
 package com.obones.binding.openmeteo.internal.connection;
 
 import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -79,6 +81,42 @@ public interface OpenMeteoConnection {
             @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable Integer pastMinutely15Steps,
             @Nullable String models);
 
+    /**
+     * Retrieves the same forecast for several locations with a single request
+     *
+     * @return one response per location, in the order of the given locations, null for a location missing from
+     *         the body
+     */
+    List<@Nullable WeatherApiResponse> getForecast(List<PointType> locations,
+            EnumSet<ForecastValue> forecastValues,
+            @Nullable Integer hourlyHours, @Nullable Integer dailyDays, boolean current,
+            @Nullable Integer minutely15Steps, @Nullable Double panelTilt, @Nullable Double panelAzimuth,
+            @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable Integer pastMinutely15Steps,
+            @Nullable String models);
+
+    /**
+     * Retrieves the forecast without blocking the calling thread
+     *
+     * @return a future completed with the response, cancelling it aborts the request
+     */
+    CompletableFuture<WeatherApiResponse> getForecastAsync(PointType location, EnumSet<ForecastValue> forecastValues,
+            @Nullable Integer hourlyHours, @Nullable Integer dailyDays, boolean current,
+            @Nullable Integer minutely15Steps, @Nullable Double panelTilt, @Nullable Double panelAzimuth,
+            @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable Integer pastMinutely15Steps,
+            @Nullable String models);
+
+    /**
+     * Retrieves the same forecast for several locations with a single request, without blocking the calling thread
+     *
+     * @return a future completed with one response per location, null for a location missing from the body,
+     *         cancelling it aborts the request
+     */
+    CompletableFuture<List<@Nullable WeatherApiResponse>> getForecastAsync(List<PointType> locations,
+            EnumSet<ForecastValue> forecastValues, @Nullable Integer hourlyHours, @Nullable Integer dailyDays,
+            boolean current, @Nullable Integer minutely15Steps, @Nullable Double panelTilt,
+            @Nullable Double panelAzimuth, @Nullable Integer pastHours, @Nullable Integer pastDays,
+            @Nullable Integer pastMinutely15Steps, @Nullable String models);
+
     enum AirQualityValue {
         UV_INDEX,
         UV_INDEX_CLEAR_SKY,
@@ -115,6 +153,36 @@ public interface OpenMeteoConnection {
     WeatherApiResponse getAirQuality(PointType location, EnumSet<AirQualityValue> airQualityValues,
             @Nullable Integer hourlyHours, boolean current, @Nullable Integer pastHours);
 
+    /**
+     * Retrieves the same air quality report for several locations with a single request
+     *
+     * @return one response per location, in the order of the given locations, null for a location missing from
+     *         the body
+     */
+    List<@Nullable WeatherApiResponse> getAirQuality(List<PointType> locations,
+            EnumSet<AirQualityValue> airQualityValues,
+            @Nullable Integer hourlyHours, boolean current, @Nullable Integer pastHours);
+
+    /**
+     * Retrieves the air quality report without blocking the calling thread
+     *
+     * @return a future completed with the response, cancelling it aborts the request
+     */
+    CompletableFuture<WeatherApiResponse> getAirQualityAsync(PointType location,
+            EnumSet<AirQualityValue> airQualityValues, @Nullable Integer hourlyHours, boolean current,
+            @Nullable Integer pastHours);
+
+    /**
+     * Retrieves the same air quality report for several locations with a single request, without blocking the
+     * calling thread
+     *
+     * @return a future completed with one response per location, null for a location missing from the body,
+     *         cancelling it aborts the request
+     */
+    CompletableFuture<List<@Nullable WeatherApiResponse>> getAirQualityAsync(List<PointType> locations,
+            EnumSet<AirQualityValue> airQualityValues, @Nullable Integer hourlyHours, boolean current,
+            @Nullable Integer pastHours);
+
     enum MarineForecastValue {
         WAVE_HEIGHT,
         WIND_WAVE_HEIGHT,
@@ -143,4 +211,76 @@ public interface OpenMeteoConnection {
     WeatherApiResponse getMarineForecast(PointType location, EnumSet<MarineForecastValue> marineForecastValues,
             @Nullable Integer hourlyHours, @Nullable Integer dailyDays, boolean current, //
             @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable String models);
+
+    /**
+     * Retrieves the same marine forecast for several locations with a single request
+     *
+     * @return one response per location, in the order of the given locations, null for a location missing from
+     *         the body
+     */
+    List<@Nullable WeatherApiResponse> getMarineForecast(List<PointType> locations,
+            EnumSet<MarineForecastValue> marineForecastValues, @Nullable Integer hourlyHours,
+            @Nullable Integer dailyDays, boolean current, //
+            @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable String models);
+
+    /**
+     * Retrieves the marine forecast without blocking the calling thread
+     *
+     * @return a future completed with the response, cancelling it aborts the request
+     */
+    CompletableFuture<WeatherApiResponse> getMarineForecastAsync(PointType location,
+            EnumSet<MarineForecastValue> marineForecastValues, @Nullable Integer hourlyHours,
+            @Nullable Integer dailyDays, boolean current, //
+            @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable String models);
+
+    /**
+     * Retrieves the same marine forecast for several locations with a single request, without blocking the calling
+     * thread
+     *
+     * @return a future completed with one response per location, null for a location missing from the body,
+     *         cancelling it aborts the request
+     */
+    CompletableFuture<List<@Nullable WeatherApiResponse>> getMarineForecastAsync(List<PointType> locations,
+            EnumSet<MarineForecastValue> marineForecastValues, @Nullable Integer hourlyHours,
+            @Nullable Integer dailyDays, boolean current, //
+            @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable String models);
+
+    /**
+     * Prepares the request for a forecast so that it can be sent repeatedly with
+     * {@link #requestAsync(OpenMeteoRequestPlan, List)}
+     */
+    OpenMeteoRequestPlan getForecastPlan(EnumSet<ForecastValue> forecastValues, @Nullable Integer hourlyHours,
+            @Nullable Integer dailyDays, boolean current, @Nullable Integer minutely15Steps,
+            @Nullable Double panelTilt, @Nullable Double panelAzimuth, @Nullable Integer pastHours,
+            @Nullable Integer pastDays, @Nullable Integer pastMinutely15Steps, @Nullable String models);
+
+    /**
+     * Prepares the request for an air quality report so that it can be sent repeatedly with
+     * {@link #requestAsync(OpenMeteoRequestPlan, List)}
+     */
+    OpenMeteoRequestPlan getAirQualityPlan(EnumSet<AirQualityValue> airQualityValues, @Nullable Integer hourlyHours,
+            boolean current, @Nullable Integer pastHours);
+
+    /**
+     * Prepares the request for a marine forecast so that it can be sent repeatedly with
+     * {@link #requestAsync(OpenMeteoRequestPlan, List)}
+     */
+    OpenMeteoRequestPlan getMarineForecastPlan(EnumSet<MarineForecastValue> marineForecastValues,
+            @Nullable Integer hourlyHours, @Nullable Integer dailyDays, boolean current, //
+            @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable String models);
+
+    /**
+     * Sends a request prepared by this connection for the given locations, without blocking the calling thread
+     *
+     * @return a future completed with one response per location, null for a location missing from the body,
+     *         cancelling it aborts the request
+     */
+    CompletableFuture<List<@Nullable WeatherApiResponse>> requestAsync(OpenMeteoRequestPlan plan,
+            List<PointType> locations);
+
+    /**
+     * Gives back the memory used by a response once it is no longer needed. The response must not be used afterwards.
+     * Releasing a response is optional, those that are never released are simply garbage collected.
+     */
+    void release(WeatherApiResponse response);
 }
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link OpenMeteoDownloadException} reports a download that failed because of the host or the network, as
+ * opposed to a request that could not be built or a body that could not be read.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoDownloadException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The status of a download that failed before any response was received
+     */
+    public static final int NO_STATUS = 0;
+
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+    private static final int STATUS_SERVER_ERROR = 500;
+
+    private final int status;
+    private final @Nullable Duration retryAfter;
+
+    /**
+     * @param message the reason of the failure
+     * @param status the HTTP status of the response, {@link #NO_STATUS} if none was received
+     * @param retryAfter the delay given by the Retry-After header of the response, null if there was none
+     * @param cause the failure of the request, null if a response was received
+     */
+    public OpenMeteoDownloadException(String message, int status, @Nullable Duration retryAfter,
+            @Nullable Throwable cause) {
+        super(message, cause);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return the HTTP status of the response, {@link #NO_STATUS} if none was received
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the delay after which the host accepts requests again, null if it did not tell
+     */
+    public @Nullable Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Tells whether the same request may succeed later on: the network failed, the host is overloaded or had an
+     * internal error. A request rejected by the API fails the same way each time.
+     */
+    public boolean isRetryable() {
+        return status == NO_STATUS || status == STATUS_TOO_MANY_REQUESTS || status >= STATUS_SERVER_ERROR;
+    }
+}
@@ -13,17 +13,34 @@ package com.obones.binding.openmeteo.internal.connection;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.ws.rs.core.UriBuilder;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.HttpClient;
+import org.openhab.core.i18n.CommunicationException;
+import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.PointType;
-import org.openhab.core.library.types.RawType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,21 +55,93 @@ import com.openmeteo.sdk.WeatherApiResponse;
 public class OpenMeteoHttpConnection implements OpenMeteoConnection {
     private @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(OpenMeteoHttpConnection.class);
 
+    private static final String AIR_QUALITY_HOST_PREFIX = "air-quality-";
+    private static final String MARINE_HOST_PREFIX = "marine-";
+
+    private static final Duration INITIAL_RETRY_DELAY = Duration.ofSeconds(2);
+
+    /*
+     * A host asking for a longer delay is not retried, its circuit breaker stays open meanwhile
+     */
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(1);
+
+    private HttpClient httpClient;
+    private OpenMeteoBufferPool bufferPool;
+    private OpenMeteoResponseCache responseCache;
     private String baseURI;
     private String APIKey;
-    private @Nullable String proxyHost;
-    private @Nullable Integer proxyPort;
-    private @Nullable String proxyUser;
-    private @Nullable String proxyPassword;
-
-    public OpenMeteoHttpConnection(String baseURI, String APIKey, @Nullable String proxyHost,
-            @Nullable Integer proxyPort, @Nullable String proxyUser, @Nullable String proxyPassword) {
+    private ScheduledExecutorService scheduler;
+    private int maxRetries;
+    private int circuitBreakerThreshold;
+    private Duration circuitBreakerOpenTime;
+
+    /*
+     * One for each host, the forecast, air quality and marine APIs failing independently
+     */
+    private final Map<String, OpenMeteoCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /*
+     * The downloads in progress or waiting for a retry, including those the cache no longer holds
+     */
+    private final Set<CompletableFuture<@Nullable OpenMeteoResponseBuffer>> downloads = ConcurrentHashMap
+            .newKeySet();
+
+    /*
+     * The buffer holding each response that was not released yet. Keys are weak so that a response that
+     * is dropped without being released does not stay here forever, its buffer is then garbage collected
+     * instead of going back to the pool.
+     */
+    private final Map<WeatherApiResponse, OpenMeteoResponseBuffer> responseBuffers = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * @param httpClient the client sending the requests
+     * @param baseURI the URI of the forecast API, the other APIs being on hosts with the same name and a prefix
+     * @param APIKey the key given with each request, blank for none
+     * @param directBuffers true to receive the responses in direct buffers
+     * @param responseCacheTTL the number of seconds during which a received body is reused
+     * @param scheduler the executor running the retries
+     * @param maxRetries the number of times a failed download is tried again
+     * @param circuitBreakerThreshold the number of consecutive failures stopping the requests to a host, 0 to only
+     *            stop them when the host asks for a delay
+     * @param circuitBreakerOpenTime the time during which no request is sent to a host once stopped
+     */
+    public OpenMeteoHttpConnection(HttpClient httpClient, String baseURI, String APIKey, boolean directBuffers,
+            int responseCacheTTL, ScheduledExecutorService scheduler, int maxRetries, int circuitBreakerThreshold,
+            Duration circuitBreakerOpenTime) {
+        this.httpClient = httpClient;
+        this.bufferPool = new OpenMeteoBufferPool(directBuffers);
+        this.responseCache = new OpenMeteoResponseCache(responseCacheTTL);
         this.baseURI = baseURI;
         this.APIKey = APIKey;
-        this.proxyHost = proxyHost;
-        this.proxyPort = proxyPort;
-        this.proxyUser = proxyUser;
-        this.proxyPassword = proxyPassword;
+        this.scheduler = scheduler;
+        this.maxRetries = Math.max(maxRetries, 0);
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+        this.circuitBreakerOpenTime = circuitBreakerOpenTime;
+    }
+
+    /**
+     * Opens the connections to the forecast, air quality and marine hosts ahead of the first requests
+     */
+    public void preconnect() {
+        URI uri = getUri();
+        if (uri == null) {
+            return;
+        }
+
+        for (String prefix : List.of("", AIR_QUALITY_HOST_PREFIX, MARINE_HOST_PREFIX)) {
+            OpenMeteoHttpUtil.preconnect(httpClient, UriBuilder.fromUri(uri).host(prefix + uri.getHost()).build());
+        }
+    }
+
+    /**
+     * Aborts the requests in progress, with their retries, and forgets the cached responses
+     */
+    public void dispose() {
+        for (CompletableFuture<@Nullable OpenMeteoResponseBuffer> download : downloads) {
+            download.cancel(true);
+        }
+        responseCache.clear();
     }
 
     private String getForecastValueFieldName(ForecastValue forecastValue) {
@@ -246,24 +335,26 @@ public class OpenMeteoHttpConnection implements OpenMeteoConnection {
         }
     }
 
-    private UriBuilder prepareUriBuilder(URI baseURI, String path, PointType location, //
+    private String joinCoordinates(List<PointType> locations, Function<PointType, DecimalType> coordinate) {
+        return locations.stream().map(location -> coordinate.apply(location).toString())
+                .collect(Collectors.joining(","));
+    }
+
+    private String joinEncodedCoordinates(List<PointType> locations, Function<PointType, DecimalType> coordinate) {
+        return URLEncoder.encode(joinCoordinates(locations, coordinate), StandardCharsets.UTF_8);
+    }
+
+    private UriBuilder prepareUriBuilder(URI baseURI, String path, //
             @Nullable Integer hourlyHours, ArrayList<String> requiredHourlyFields, @Nullable Integer pastHours,
             boolean current, ArrayList<String> requiredCurrentFields) {
+        // the locations are not part of the plan, they are appended to the URL for each request
         UriBuilder builder = UriBuilder.fromUri(baseURI).path(path) //
                 .queryParam("format", "flatbuffers") //
-                .queryParam("latitude", location.getLatitude()) //
-                .queryParam("longitude", location.getLongitude()) //
                 .queryParam("temperature_unit", "celsius") //
                 .queryParam("wind_speed_unit", "ms") //
                 .queryParam("precipitation_unit", "mm") //
                 .queryParam("timezone", "UTC");
 
-        if (location.getAltitude().longValue() != 0)
-            builder.queryParam("elevation", location.getAltitude());
-
-        if (!APIKey.isBlank())
-            builder.queryParam("apikey", APIKey);
-
         if (hourlyHours != null) {
             builder.queryParam("forecast_hours", hourlyHours);
             builder.queryParam("hourly", String.join(",", requiredHourlyFields));
@@ -279,23 +370,199 @@ public class OpenMeteoHttpConnection implements OpenMeteoConnection {
         return builder;
     }
 
-    private WeatherApiResponse getResponse(UriBuilder builder) {
-        String url = builder.build().toString();
+    private List<@Nullable WeatherApiResponse> getEmptyResponses(int locationCount) {
+        return Collections.nCopies(locationCount, new WeatherApiResponse());
+    }
 
-        // We should really be using HttpUtil.downloadData here, but it does not allow for passing
-        // custom proxy parameters, so we had to "copy over" the code that we needed from HttpUtil
-        // into our own specialized class.
-        logger.debug("Calling OpenMeteo on {}", url);
-        RawType data = OpenMeteoHttpUtil.downloadData(url, proxyHost, proxyPort, proxyUser, proxyPassword);
+    private List<@Nullable WeatherApiResponse> parseResponses(@Nullable OpenMeteoResponseBuffer data,
+            int locationCount) {
         if (data == null) {
             logger.warn("Data was null");
-            return new WeatherApiResponse();
+            return Collections.nCopies(locationCount, null);
+        }
+
+        // The body is made of one size prefixed message per location (and per model), they are read in place
+        // and each of them keeps the buffer out of the pool until it is released
+        List<@Nullable WeatherApiResponse> responses = OpenMeteoResponseParser.parse(data.getBuffer(),
+                locationCount);
+        for (WeatherApiResponse response : responses) {
+            if (response != null) {
+                data.retain();
+                responseBuffers.put(response, data);
+            }
+        }
+        data.release();
+
+        return responses;
+    }
+
+    private List<@Nullable WeatherApiResponse> getResponses(OpenMeteoRequestPlan plan, List<PointType> locations) {
+        return requestAsync(plan, locations).join();
+    }
+
+    public CompletableFuture<List<@Nullable WeatherApiResponse>> requestAsync(OpenMeteoRequestPlan plan,
+            List<PointType> locations) {
+        String planUrl = plan.getUrl();
+        int locationCount = locations.size();
+        if (planUrl == null) {
+            return CompletableFuture.completedFuture(getEmptyResponses(locationCount));
+        }
+
+        StringBuilder urlBuilder = new StringBuilder(planUrl) //
+                .append("&latitude=").append(joinEncodedCoordinates(locations, PointType::getLatitude)) //
+                .append("&longitude=").append(joinEncodedCoordinates(locations, PointType::getLongitude));
+
+        // The API expects either no elevation at all or one elevation per location, callers batching locations
+        // together must make sure they all have an altitude or none of them has one.
+        if (locations.stream().allMatch(location -> location.getAltitude().longValue() != 0))
+            urlBuilder.append("&elevation=").append(joinEncodedCoordinates(locations, PointType::getAltitude));
+
+        // The API key is left out of the cache key, it does not change the content of the response
+        String key = urlBuilder.toString();
+        if (!APIKey.isBlank())
+            urlBuilder.append("&apikey=").append(URLEncoder.encode(APIKey, StandardCharsets.UTF_8));
+        String url = urlBuilder.toString();
+
+        // We should really be using HttpUtil.downloadData here, but it does not allow for passing
+        // our own client, so we had to "copy over" the code that we needed from HttpUtil
+        // into our own specialized class.
+        logger.debug("Calling OpenMeteo on {}", key);
+        return thenApplyCancellable(responseCache.get(key, () -> downloadWithRetries(url)),
+                data -> parseResponses(data, locationCount));
+    }
+
+    /**
+     * Downloads the given URL, trying again after a growing delay when the network or the host failed. No request
+     * is sent while the circuit breaker of the host is open, the future then completes exceptionally with an
+     * {@link OpenMeteoCircuitOpenException}.
+     *
+     * @return a future completed with the downloaded data, cancelling it aborts the download and its retries
+     */
+    private CompletableFuture<@Nullable OpenMeteoResponseBuffer> downloadWithRetries(String url) {
+        String host = getHost(url);
+        OpenMeteoCircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(host,
+                key -> new OpenMeteoCircuitBreaker(key, circuitBreakerThreshold, circuitBreakerOpenTime));
+
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> result = new CompletableFuture<>();
+        downloads.add(result);
+        result.whenComplete((data, error) -> downloads.remove(result));
+        download(url, host, circuitBreaker, 0, result);
+        return result;
+    }
+
+    private void download(String url, String host, OpenMeteoCircuitBreaker circuitBreaker, int attempt,
+            CompletableFuture<@Nullable OpenMeteoResponseBuffer> result) {
+        if (result.isDone()) {
+            // cancelled while waiting for the retry
+            return;
+        }
+        if (!circuitBreaker.allowRequest()) {
+            result.completeExceptionally(new OpenMeteoCircuitOpenException(host));
+            return;
+        }
+
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> download = OpenMeteoHttpUtil
+                .downloadDataAsync(httpClient, bufferPool, url);
+        result.whenComplete((data, error) -> {
+            if (error instanceof CancellationException) {
+                download.cancel(true);
+            }
+        });
+        download.whenComplete((data, error) -> {
+            if (error == null) {
+                circuitBreaker.succeeded();
+                if (!result.complete(data) && data != null) {
+                    // cancelled in the meantime
+                    data.release();
+                }
+                return;
+            }
+
+            if (!(error instanceof OpenMeteoDownloadException)
+                    || !((OpenMeteoDownloadException) error).isRetryable()) {
+                // the host answered, the request itself is at fault and fails the same way each time
+                if (error instanceof CancellationException) {
+                    circuitBreaker.abandoned();
+                } else {
+                    circuitBreaker.succeeded();
+                }
+                result.completeExceptionally(error);
+                return;
+            }
+
+            Duration retryAfter = ((OpenMeteoDownloadException) error).getRetryAfter();
+            circuitBreaker.failed(retryAfter);
+            Duration delay = getRetryDelay(attempt, retryAfter);
+            if (attempt >= maxRetries || delay.compareTo(MAX_RETRY_DELAY) > 0) {
+                result.completeExceptionally(error);
+                return;
+            }
+
+            logger.debug("Download from {} failed ({}), trying again in {} ms.", host, error.getMessage(),
+                    delay.toMillis());
+            ScheduledFuture<?> retry = scheduler.schedule(
+                    () -> download(url, host, circuitBreaker, attempt + 1, result), delay.toMillis(),
+                    TimeUnit.MILLISECONDS);
+            result.whenComplete((retryData, retryError) -> {
+                if (retryError instanceof CancellationException) {
+                    retry.cancel(false);
+                }
+            });
+        });
+    }
+
+    /**
+     * @return the delay before the given retry, doubling with each attempt and randomly shortened by up to half so
+     *         that things failing together do not retry together, but never shorter than what the host asked for
+     */
+    private static Duration getRetryDelay(int attempt, @Nullable Duration retryAfter) {
+        long backoff = INITIAL_RETRY_DELAY.toMillis() << Math.min(attempt, 16);
+        long delay = backoff / 2 + (long) (backoff / 2 * ThreadLocalRandom.current().nextDouble());
+        Duration result = Duration.ofMillis(delay);
+        return (retryAfter != null && retryAfter.compareTo(result) > 0) ? retryAfter : result;
+    }
+
+    private static String getHost(String url) {
+        try {
+            String host = new URI(url).getHost();
+            return (host != null) ? host : url;
+        } catch (URISyntaxException e) {
+            return url;
         }
+    }
 
-        ByteBuffer buffer = ByteBuffer.wrap(data.getBytes()).order(ByteOrder.LITTLE_ENDIAN);
+    public void release(WeatherApiResponse response) {
+        OpenMeteoResponseBuffer data = responseBuffers.remove(response);
+        if (data != null) {
+            data.release();
+        }
+    }
+
+    /**
+     * @return the response for the only location of a request
+     * @throws CommunicationException if the location is missing from the response
+     */
+    private static WeatherApiResponse getFirstResponse(List<@Nullable WeatherApiResponse> responses) {
+        WeatherApiResponse response = responses.get(0);
+        if (response == null) {
+            throw new CommunicationException("@text/offline.comm-error-missing-response");
+        }
+        return response;
+    }
 
-        // first 4 bytes are the buffer length and must be ignored
-        return WeatherApiResponse.getRootAsWeatherApiResponse(buffer.position(4));
+    /**
+     * Same as {@link CompletableFuture#thenApply} except that cancelling the returned future also cancels the given
+     * one, so that the request is aborted when nobody is waiting for its result anymore.
+     */
+    private static <T, U> CompletableFuture<U> thenApplyCancellable(CompletableFuture<T> future,
+            Function<? super T, ? extends U> function) {
+        CompletableFuture<U> result = future.thenApply(function);
+        result.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                future.cancel(true);
+            }
+        });
+        return result;
     }
 
     private @Nullable URI getUri() {
@@ -312,10 +579,29 @@ public class OpenMeteoHttpConnection implements OpenMeteoConnection {
             @Nullable Integer minutely15Steps, @Nullable Double panelTilt, @Nullable Double panelAzimuth,
             @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable Integer pastMinutely15Steps,
             @Nullable String models) {
+        return getFirstResponse(getForecast(List.of(location), forecastValues, hourlyHours, dailyDays, current,
+                minutely15Steps, panelTilt, panelAzimuth, pastHours, pastDays, pastMinutely15Steps, models));
+    }
+
+    public CompletableFuture<WeatherApiResponse> getForecastAsync(PointType location,
+            EnumSet<ForecastValue> forecastValues, @Nullable Integer hourlyHours, @Nullable Integer dailyDays,
+            boolean current, @Nullable Integer minutely15Steps, @Nullable Double panelTilt,
+            @Nullable Double panelAzimuth, @Nullable Integer pastHours, @Nullable Integer pastDays,
+            @Nullable Integer pastMinutely15Steps, @Nullable String models) {
+        return thenApplyCancellable(getForecastAsync(List.of(location), forecastValues, hourlyHours, dailyDays,
+                current, minutely15Steps, panelTilt, panelAzimuth, pastHours, pastDays, pastMinutely15Steps, models),
+                OpenMeteoHttpConnection::getFirstResponse);
+    }
+
+    public OpenMeteoRequestPlan getForecastPlan(EnumSet<ForecastValue> forecastValues,
+            @Nullable Integer hourlyHours, @Nullable Integer dailyDays, boolean current,
+            @Nullable Integer minutely15Steps, @Nullable Double panelTilt, @Nullable Double panelAzimuth,
+            @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable Integer pastMinutely15Steps,
+            @Nullable String models) {
 
         if (hourlyHours == null && dailyDays == null && !current && minutely15Steps == null) {
             logger.warn("No point in getting a forecast if no elements are required");
-            return new WeatherApiResponse();
+            return new OpenMeteoRequestPlan(null);
         }
 
         ArrayList<String> requiredHourlyFields = new ArrayList<>();
@@ -332,9 +618,9 @@ public class OpenMeteoHttpConnection implements OpenMeteoConnection {
         @Nullable
         URI uri = getUri();
         if (uri == null)
-            return new WeatherApiResponse();
+            return new OpenMeteoRequestPlan(null);
 
-        UriBuilder builder = prepareUriBuilder(uri, "forecast", location, hourlyHours, requiredHourlyFields, pastHours,
+        UriBuilder builder = prepareUriBuilder(uri, "forecast", hourlyHours, requiredHourlyFields, pastHours,
                 current, requiredCurrentFields);
 
         if (dailyDays != null) {
@@ -365,7 +651,26 @@ public class OpenMeteoHttpConnection implements OpenMeteoConnection {
             builder.queryParam("models", models);
         }
 
-        return getResponse(builder);
+        return new OpenMeteoRequestPlan(builder.build().toString());
+    }
+
+    public List<@Nullable WeatherApiResponse> getForecast(List<PointType> locations,
+            EnumSet<ForecastValue> forecastValues,
+            @Nullable Integer hourlyHours, @Nullable Integer dailyDays, boolean current,
+            @Nullable Integer minutely15Steps, @Nullable Double panelTilt, @Nullable Double panelAzimuth,
+            @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable Integer pastMinutely15Steps,
+            @Nullable String models) {
+        return getResponses(getForecastPlan(forecastValues, hourlyHours, dailyDays, current, minutely15Steps,
+                panelTilt, panelAzimuth, pastHours, pastDays, pastMinutely15Steps, models), locations);
+    }
+
+    public CompletableFuture<List<@Nullable WeatherApiResponse>> getForecastAsync(List<PointType> locations,
+            EnumSet<ForecastValue> forecastValues, @Nullable Integer hourlyHours, @Nullable Integer dailyDays,
+            boolean current, @Nullable Integer minutely15Steps, @Nullable Double panelTilt,
+            @Nullable Double panelAzimuth, @Nullable Integer pastHours, @Nullable Integer pastDays,
+            @Nullable Integer pastMinutely15Steps, @Nullable String models) {
+        return requestAsync(getForecastPlan(forecastValues, hourlyHours, dailyDays, current, minutely15Steps,
+                panelTilt, panelAzimuth, pastHours, pastDays, pastMinutely15Steps, models), locations);
     }
 
     private String getAirQualityValueFieldName(AirQualityValue airQualityValue) {
@@ -444,9 +749,23 @@ public class OpenMeteoHttpConnection implements OpenMeteoConnection {
 
     public WeatherApiResponse getAirQuality(PointType location, EnumSet<AirQualityValue> airQualityValues,
             @Nullable Integer hourlyHours, boolean current, @Nullable Integer pastHours) {
+        return getFirstResponse(
+                getAirQuality(List.of(location), airQualityValues, hourlyHours, current, pastHours));
+    }
+
+    public CompletableFuture<WeatherApiResponse> getAirQualityAsync(PointType location,
+            EnumSet<AirQualityValue> airQualityValues, @Nullable Integer hourlyHours, boolean current,
+            @Nullable Integer pastHours) {
+        return thenApplyCancellable(
+                getAirQualityAsync(List.of(location), airQualityValues, hourlyHours, current, pastHours),
+                OpenMeteoHttpConnection::getFirstResponse);
+    }
+
+    public OpenMeteoRequestPlan getAirQualityPlan(EnumSet<AirQualityValue> airQualityValues,
+            @Nullable Integer hourlyHours, boolean current, @Nullable Integer pastHours) {
         if (hourlyHours == null && !current) {
             logger.warn("No point in getting an air quality report if no elements are required");
-            return new WeatherApiResponse();
+            return new OpenMeteoRequestPlan(null);
         }
 
         ArrayList<String> requiredHourlyFields = new ArrayList<>();
@@ -459,14 +778,26 @@ public class OpenMeteoHttpConnection implements OpenMeteoConnection {
         @Nullable
         URI uri = getUri();
         if (uri == null)
-            return new WeatherApiResponse();
+            return new OpenMeteoRequestPlan(null);
+
+        UriBuilder builder = prepareUriBuilder(uri, "air-quality", hourlyHours, requiredHourlyFields, pastHours,
+                current, requiredCurrentFields);
 
-        UriBuilder builder = prepareUriBuilder(uri, "air-quality", location, hourlyHours, requiredHourlyFields,
-                pastHours, current, requiredCurrentFields);
+        builder.host(AIR_QUALITY_HOST_PREFIX + uri.getHost());
 
-        builder.host("air-quality-" + uri.getHost());
+        return new OpenMeteoRequestPlan(builder.build().toString());
+    }
 
-        return getResponse(builder);
+    public List<@Nullable WeatherApiResponse> getAirQuality(List<PointType> locations,
+            EnumSet<AirQualityValue> airQualityValues, @Nullable Integer hourlyHours, boolean current,
+            @Nullable Integer pastHours) {
+        return getResponses(getAirQualityPlan(airQualityValues, hourlyHours, current, pastHours), locations);
+    }
+
+    public CompletableFuture<List<@Nullable WeatherApiResponse>> getAirQualityAsync(List<PointType> locations,
+            EnumSet<AirQualityValue> airQualityValues, @Nullable Integer hourlyHours, boolean current,
+            @Nullable Integer pastHours) {
+        return requestAsync(getAirQualityPlan(airQualityValues, hourlyHours, current, pastHours), locations);
     }
 
     private String getMarineForecastValueFieldName(MarineForecastValue marineForecastValue) {
@@ -554,9 +885,24 @@ public class OpenMeteoHttpConnection implements OpenMeteoConnection {
     public WeatherApiResponse getMarineForecast(PointType location, EnumSet<MarineForecastValue> marineForecastValues,
             @Nullable Integer hourlyHours, @Nullable Integer dailyDays, boolean current, //
             @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable String models) {
+        return getFirstResponse(getMarineForecast(List.of(location), marineForecastValues, hourlyHours, dailyDays,
+                current, pastHours, pastDays, models));
+    }
+
+    public CompletableFuture<WeatherApiResponse> getMarineForecastAsync(PointType location,
+            EnumSet<MarineForecastValue> marineForecastValues, @Nullable Integer hourlyHours,
+            @Nullable Integer dailyDays, boolean current, //
+            @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable String models) {
+        return thenApplyCancellable(getMarineForecastAsync(List.of(location), marineForecastValues, hourlyHours,
+                dailyDays, current, pastHours, pastDays, models), OpenMeteoHttpConnection::getFirstResponse);
+    }
+
+    public OpenMeteoRequestPlan getMarineForecastPlan(EnumSet<MarineForecastValue> marineForecastValues,
+            @Nullable Integer hourlyHours, @Nullable Integer dailyDays, boolean current, //
+            @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable String models) {
         if (hourlyHours == null && dailyDays == null && !current) {
             logger.warn("No point in getting a forecast if no elements are required");
-            return new WeatherApiResponse();
+            return new OpenMeteoRequestPlan(null);
         }
 
         ArrayList<String> requiredHourlyFields = new ArrayList<>();
@@ -571,12 +917,12 @@ public class OpenMeteoHttpConnection implements OpenMeteoConnection {
         @Nullable
         URI uri = getUri();
         if (uri == null)
-            return new WeatherApiResponse();
+            return new OpenMeteoRequestPlan(null);
 
-        UriBuilder builder = prepareUriBuilder(uri, "marine", location, hourlyHours, requiredHourlyFields, pastHours,
-                current, requiredCurrentFields);
+        UriBuilder builder = prepareUriBuilder(uri, "marine", hourlyHours, requiredHourlyFields, pastHours, current,
+                requiredCurrentFields);
 
-        builder.host("marine-" + uri.getHost());
+        builder.host(MARINE_HOST_PREFIX + uri.getHost());
 
         if (dailyDays != null) {
             builder.queryParam("forecast_days", dailyDays);
@@ -590,6 +936,22 @@ public class OpenMeteoHttpConnection implements OpenMeteoConnection {
             builder.queryParam("models", models);
         }
 
-        return getResponse(builder);
+        return new OpenMeteoRequestPlan(builder.build().toString());
+    }
+
+    public List<@Nullable WeatherApiResponse> getMarineForecast(List<PointType> locations,
+            EnumSet<MarineForecastValue> marineForecastValues, @Nullable Integer hourlyHours,
+            @Nullable Integer dailyDays, boolean current, //
+            @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable String models) {
+        return getResponses(getMarineForecastPlan(marineForecastValues, hourlyHours, dailyDays, current, pastHours,
+                pastDays, models), locations);
+    }
+
+    public CompletableFuture<List<@Nullable WeatherApiResponse>> getMarineForecastAsync(List<PointType> locations,
+            EnumSet<MarineForecastValue> marineForecastValues, @Nullable Integer hourlyHours,
+            @Nullable Integer dailyDays, boolean current, //
+            @Nullable Integer pastHours, @Nullable Integer pastDays, @Nullable String models) {
+        return requestAsync(getMarineForecastPlan(marineForecastValues, hourlyHours, dailyDays, current, pastHours,
+                pastDays, models), locations);
     }
 }
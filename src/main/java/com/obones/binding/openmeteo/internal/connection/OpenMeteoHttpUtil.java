@@ -4,74 +4,120 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Base64;
-import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.AbstractConnectionPool;
+import org.eclipse.jetty.client.ConnectionPool;
 import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpDestination;
 import org.eclipse.jetty.client.HttpProxy;
-import org.eclipse.jetty.client.ProxyConfiguration;
 import org.eclipse.jetty.client.api.AuthenticationStore;
-import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Destination;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.util.BasicAuthentication;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.openhab.core.io.net.http.HttpClientFactory;
-import org.openhab.core.library.types.RawType;
-import org.osgi.service.component.annotations.Component;
-import org.osgi.service.component.annotations.Reference;
+import org.openhab.core.thing.ThingUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@Component(immediate = true)
 public class OpenMeteoHttpUtil {
     private @NonNullByDefault({}) static final Logger logger = LoggerFactory.getLogger(OpenMeteoHttpConnection.class);
 
-    @Nullable
-    private static HttpClientFactory httpClientFactory;
+    private static final int TIMEOUT_IN_MILLISECONDS = 5000;
 
-    public OpenMeteoHttpUtil() {
+    /*
+     * Connection settings of the clients created for the bridges.
+     * Batched and concurrent refreshes share a few persistent connections per host instead of opening one each time,
+     * idle connections are kept alive for a minute so that the requests of a refresh cycle can reuse them.
+     */
+    private static final int MAX_CONNECTIONS_PER_DESTINATION = 4;
+    private static final int MAX_REQUESTS_QUEUED_PER_DESTINATION = 256;
+    private static final long CONNECT_TIMEOUT_IN_MILLISECONDS = 5000;
+    private static final long IDLE_TIMEOUT_IN_MILLISECONDS = 60000;
+    private static final String CONSUMER_NAME_PREFIX = "openmeteo-";
+
+    private OpenMeteoHttpUtil() {
     }
 
-    @Reference
-    protected void setHttpClientFactory(HttpClientFactory httpClientFactory) {
-        OpenMeteoHttpUtil.httpClientFactory = httpClientFactory;
+    /**
+     * Returns the consumer name of the client of the given bridge. The name must be at most 20 characters long and
+     * made of letters, digits, dashes and underscores, which the bridge id may not be, so a hash of its UID is used.
+     */
+    public static String getConsumerName(ThingUID bridgeUID) {
+        return CONSUMER_NAME_PREFIX + Integer.toHexString(bridgeUID.getAsString().hashCode());
     }
 
-    protected void unsetHttpClientFactory(HttpClientFactory httpClientFactory) {
-        OpenMeteoHttpUtil.httpClientFactory = null;
+    /**
+     * Creates a client dedicated to a bridge, configured with the given proxy. The client is not started.
+     * <P>
+     * The proxy is part of the client configuration, it is never modified afterwards so that concurrent requests
+     * do not interfere with each other. Gzip compression is negotiated by Jetty by default.
+     */
+    public static HttpClient createHttpClient(HttpClientFactory httpClientFactory, String consumerName,
+            @Nullable String proxyHost, @Nullable Integer proxyPort, @Nullable String proxyUser,
+            @Nullable String proxyPassword) {
+        HttpClient httpClient = httpClientFactory.createHttpClient(consumerName);
+
+        httpClient.setMaxConnectionsPerDestination(MAX_CONNECTIONS_PER_DESTINATION);
+        httpClient.setMaxRequestsQueuedPerDestination(MAX_REQUESTS_QUEUED_PER_DESTINATION);
+        httpClient.setConnectTimeout(CONNECT_TIMEOUT_IN_MILLISECONDS);
+        httpClient.setIdleTimeout(IDLE_TIMEOUT_IN_MILLISECONDS);
+        httpClient.setTCPNoDelay(true);
+
+        if (proxyHost != null && !proxyHost.isBlank() && proxyPort != null) {
+            HttpProxy proxy = new HttpProxy(proxyHost, proxyPort);
+            httpClient.getProxyConfiguration().getProxies().add(proxy);
+            if (proxyUser != null && !proxyUser.isBlank()) {
+                AuthenticationStore authStore = httpClient.getAuthenticationStore();
+                authStore.addAuthentication(
+                        new BasicAuthentication(proxy.getURI(), "<<ANY_REALM>>", proxyUser, proxyPassword));
+            }
+        }
+
+        return httpClient;
     }
 
-    private static ContentResponse executeUrlAndGetResponse(String url, int timeout, @Nullable String proxyHost,
-            @Nullable Integer proxyPort, @Nullable String proxyUser, @Nullable String proxyPassword)
-            throws IOException {
-        var localHttpClientFactory = httpClientFactory;
-        if (localHttpClientFactory == null)
-            throw new IllegalStateException("Http client factory not available");
+    /**
+     * Opens a connection to the host of the given URI ahead of time so that the first request does not have to
+     * wait for the TCP and TLS handshakes.
+     */
+    public static void preconnect(HttpClient httpClient, URI uri) {
+        String scheme = uri.getScheme();
+        String host = uri.getHost();
+        if (scheme == null || host == null) {
+            return;
+        }
 
-        HttpClient httpClient = localHttpClientFactory.getCommonHttpClient();
-        URI uri = null;
+        Destination destination = httpClient.getDestination(scheme, host, uri.getPort());
+        if (destination instanceof HttpDestination) {
+            ConnectionPool connectionPool = ((HttpDestination) destination).getConnectionPool();
+            if (connectionPool instanceof AbstractConnectionPool) {
+                logger.debug("Opening a connection to {}://{}", scheme, host);
+                ((AbstractConnectionPool) connectionPool).preCreateConnections(1).whenComplete((result, error) -> {
+                    if (error != null) {
+                        logger.debug("Could not open a connection to {}://{} : {}", scheme, host, error.getMessage());
+                    }
+                });
+            }
+        }
+    }
 
+    private static URI getUri(String url) throws IOException {
         try {
-            uri = new URI(url);
+            return new URI(url);
         } catch (URISyntaxException | NullPointerException e) {
             logger.debug("String {} can not be parsed as URI reference", url);
             throw new IOException(e);
         }
+    }
 
-        HttpProxy proxy = null;
-        if (proxyHost != null && !proxyHost.isBlank() && proxyPort != null) {
-            AuthenticationStore authStore = httpClient.getAuthenticationStore();
-            ProxyConfiguration proxyConfig = httpClient.getProxyConfiguration();
-            List<ProxyConfiguration.Proxy> proxies = proxyConfig.getProxies();
-            proxy = new HttpProxy(proxyHost, proxyPort);
-            proxies.add(proxy);
-            authStore.addAuthentication(
-                    new BasicAuthentication(proxy.getURI(), "<<ANY_REALM>>", proxyUser, proxyPassword));
-        }
-
+    private static Request newRequest(HttpClient httpClient, URI uri, int timeout) {
         HttpMethod method = HttpMethod.GET;
         Request request = httpClient.newRequest(uri).method(method).timeout(timeout, TimeUnit.MILLISECONDS);
 
@@ -89,57 +135,42 @@ public class OpenMeteoHttpUtil {
             logger.debug("About to execute {}", request.getURI());
         }
 
-        ContentResponse result;
-        try {
-            ContentResponse response = request.send();
-            int statusCode = response.getStatus();
-            if (logger.isDebugEnabled() && statusCode >= 400) {
-                String statusLine = statusCode + " " + response.getReason();
-                logger.debug("Method failed: {}", statusLine);
-            }
-
-            result = response;
-        } catch (Exception e) {
-            throw new IOException(e);
-        } finally {
-            if (proxy != null) {
-                httpClient.getProxyConfiguration().getProxies().remove(proxy);
-            }
-
-        }
-
-        return result;
+        return request;
     }
 
-    public static @Nullable RawType downloadData(String url, @Nullable String proxyHost, @Nullable Integer proxyPort,
-            @Nullable String proxyUser, @Nullable String proxyPassword) {
-        RawType rawData = null;
+    /**
+     * Downloads the given URL without blocking the calling thread.
+     * <P>
+     * The body is streamed into a buffer taken from the given pool. The returned future completes exceptionally
+     * if the download failed, with an {@link OpenMeteoDownloadException} when the network or the host is at fault.
+     * Cancelling it aborts the underlying request.
+     *
+     * @return a future completed with the downloaded data once the response has been fully received, the caller
+     *         must release it once done with it
+     */
+    public static CompletableFuture<@Nullable OpenMeteoResponseBuffer> downloadDataAsync(HttpClient httpClient,
+            OpenMeteoBufferPool bufferPool, String url) {
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> result = new CompletableFuture<>();
+
+        URI uri;
         try {
-            ContentResponse response = OpenMeteoHttpUtil.executeUrlAndGetResponse(url, 5000, proxyHost, proxyPort,
-                    proxyUser, proxyPassword);
-            byte[] data = response.getContent();
-            if (data == null) {
-                data = new byte[0];
-            }
-
-            long length = (long) data.length;
-            String mediaType = response.getMediaType();
-            logger.debug("Media download response: status {} content length {} media type {} (URL {})",
-                    new Object[] { response.getStatus(), length, mediaType, url });
-            if (response.getStatus() != 200 || length == 0L) {
-                logger.debug("Media download failed: unexpected return code {} (URL {})", response.getStatus(), url);
-                return null;
-            }
-
-            String contentType = "application/octet-stream";
-
-            rawData = new RawType(data, contentType);
-            logger.debug("Media downloaded: size {} type {} (URL {})",
-                    new Object[] { rawData.getBytes().length, rawData.getMimeType(), url });
+            uri = getUri(url);
         } catch (IOException e) {
             logger.debug("Media download failed (URL {}) : {}", url, e.getMessage());
+            result.completeExceptionally(e);
+            return result;
         }
 
-        return rawData;
+        Request request = newRequest(httpClient, uri, TIMEOUT_IN_MILLISECONDS);
+        request.send(new OpenMeteoResponseReader(bufferPool, url, result));
+
+        // when the caller is no longer interested in the data, there is no point in finishing the download
+        result.whenComplete((data, error) -> {
+            if (error instanceof CancellationException) {
+                request.abort(error);
+            }
+        });
+
+        return result;
     }
 }
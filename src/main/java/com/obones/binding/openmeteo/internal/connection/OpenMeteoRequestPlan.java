@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link OpenMeteoRequestPlan} holds everything a request needs apart from its locations, so that a thing
+ * configuration is turned into a request only once instead of on every refresh.
+ * <P>
+ * Plans are immutable and only valid for the {@link OpenMeteoConnection} that created them.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoRequestPlan {
+    private final @Nullable String url;
+
+    /**
+     * @param url the encoded URL, including its query string, to which the locations are appended, or null if there
+     *            is nothing to request
+     */
+    public OpenMeteoRequestPlan(@Nullable String url) {
+        this.url = url;
+    }
+
+    public @Nullable String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return true if the configuration does not require anything from the API
+     */
+    public boolean isEmpty() {
+        return url == null;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(url);
+    }
+}
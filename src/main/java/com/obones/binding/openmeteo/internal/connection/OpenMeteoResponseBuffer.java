@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link OpenMeteoResponseBuffer} holds the body of a response in a buffer taken from an
+ * {@link OpenMeteoBufferPool}.
+ * <P>
+ * The buffer is shared by all the responses read from it and goes back to the pool once each of them has been
+ * released. It starts with a single reference owned by its creator.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoResponseBuffer {
+    private final OpenMeteoBufferPool pool;
+    private final ByteBuffer buffer;
+    private final AtomicInteger referenceCount = new AtomicInteger(1);
+
+    public OpenMeteoResponseBuffer(OpenMeteoBufferPool pool, ByteBuffer buffer) {
+        this.pool = pool;
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return the body, between the position and the limit of the buffer
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public void retain() {
+        referenceCount.incrementAndGet();
+    }
+
+    public void release() {
+        if (referenceCount.decrementAndGet() == 0) {
+            pool.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link OpenMeteoResponseCache} keeps the bodies recently received from the API so that identical requests
+ * made within its time to live are answered without contacting the server again.
+ * <P>
+ * Callers asking for a body that is still being downloaded wait for that download instead of starting their own.
+ * The download is aborted only once all of its callers have cancelled their request.
+ * <P>
+ * Every body returned holds a reference for its caller, which must release it once done with it. The cache holds
+ * its own reference until the entry expires or gets evicted, the least recently used entry being evicted first
+ * when the cache is full.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoResponseCache {
+    private @NonNullByDefault({}) static final Logger logger = LoggerFactory.getLogger(OpenMeteoResponseCache.class);
+
+    private static final int MAX_ENTRIES = 32;
+
+    private final long timeToLiveNanos;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, Entry> eldest) {
+            if (eldest != null && size() > MAX_ENTRIES) {
+                eldest.getValue().evict();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static class Entry {
+        private final String key;
+        private @Nullable CompletableFuture<@Nullable OpenMeteoResponseBuffer> download;
+        private final List<CompletableFuture<@Nullable OpenMeteoResponseBuffer>> waiters = new ArrayList<>();
+        private @Nullable OpenMeteoResponseBuffer data;
+        private boolean completed;
+        private long expiresAt;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        private boolean isExpired(long now) {
+            return completed && now - expiresAt >= 0;
+        }
+
+        /*
+         * Gives back the reference held by the cache, an entry still downloading will not be kept once completed
+         */
+        private void evict() {
+            OpenMeteoResponseBuffer localData = data;
+            data = null;
+            if (localData != null) {
+                localData.release();
+            }
+        }
+    }
+
+    /**
+     * @param timeToLive the number of seconds during which a received body is reused, 0 to only share the
+     *            downloads that are in progress
+     */
+    public OpenMeteoResponseCache(int timeToLive) {
+        this.timeToLiveNanos = TimeUnit.SECONDS.toNanos(Math.max(timeToLive, 0));
+    }
+
+    /**
+     * Returns the body for the given key, calling the given download function only if there is neither a valid
+     * entry nor a download in progress for that key.
+     *
+     * @param key the request, without any credentials
+     * @param download starts the download of the body, completed exceptionally if the download failed
+     * @return a future completed with the body or with the failure of the download, cancelling it gives up waiting
+     *         for the download
+     */
+    public CompletableFuture<@Nullable OpenMeteoResponseBuffer> get(String key,
+            Supplier<CompletableFuture<@Nullable OpenMeteoResponseBuffer>> download) {
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> result = new CompletableFuture<>();
+        Entry entry;
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> localDownload = null;
+
+        synchronized (entries) {
+            removeExpired(System.nanoTime());
+
+            entry = entries.get(key);
+            if (entry != null && entry.completed) {
+                OpenMeteoResponseBuffer data = entry.data;
+                if (data != null) {
+                    logger.trace("Reusing the cached response for {}", key);
+                    data.retain();
+                    result.complete(data);
+                    return result;
+                }
+            }
+
+            if (entry == null || entry.completed) {
+                entry = new Entry(key);
+                entries.put(key, entry);
+                localDownload = download.get();
+                entry.download = localDownload;
+            } else {
+                logger.trace("Waiting for the download in progress for {}", key);
+            }
+            entry.waiters.add(result);
+        }
+
+        Entry localEntry = entry;
+        if (localDownload != null) {
+            localDownload.whenComplete((data, error) -> downloaded(localEntry, data, error));
+        }
+        result.whenComplete((data, error) -> {
+            if (error instanceof CancellationException) {
+                cancelled(localEntry, result);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Aborts the downloads in progress and gives back the references held by the cache
+     */
+    public void clear() {
+        List<CompletableFuture<@Nullable OpenMeteoResponseBuffer>> downloads = new ArrayList<>();
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                entry.evict();
+                CompletableFuture<@Nullable OpenMeteoResponseBuffer> download = entry.download;
+                if (!entry.completed && download != null) {
+                    downloads.add(download);
+                }
+            }
+            entries.clear();
+        }
+
+        downloads.forEach(download -> download.cancel(true));
+    }
+
+    private void removeExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.isExpired(now)) {
+                entry.evict();
+                iterator.remove();
+            }
+        }
+    }
+
+    private void downloaded(Entry entry, @Nullable OpenMeteoResponseBuffer data, @Nullable Throwable error) {
+        List<CompletableFuture<@Nullable OpenMeteoResponseBuffer>> waiters;
+        synchronized (entries) {
+            entry.completed = true;
+            waiters = new ArrayList<>(entry.waiters);
+            entry.waiters.clear();
+
+            if (data != null) {
+                // one reference for each waiter, the one we got from the download stays with the cache
+                for (int waiterIndex = 0; waiterIndex < waiters.size(); waiterIndex++) {
+                    data.retain();
+                }
+            }
+
+            if (data != null && timeToLiveNanos > 0 && entries.get(entry.key) == entry) {
+                entry.data = data;
+                entry.expiresAt = System.nanoTime() + timeToLiveNanos;
+            } else {
+                if (entries.get(entry.key) == entry) {
+                    entries.remove(entry.key);
+                }
+                if (data != null) {
+                    data.release();
+                }
+            }
+        }
+
+        for (CompletableFuture<@Nullable OpenMeteoResponseBuffer> waiter : waiters) {
+            if (error != null) {
+                // failures are not cached, the next caller downloads again
+                waiter.completeExceptionally(error);
+            } else if (!waiter.complete(data) && data != null) {
+                // that waiter was cancelled in the meantime
+                data.release();
+            }
+        }
+    }
+
+    private void cancelled(Entry entry, CompletableFuture<@Nullable OpenMeteoResponseBuffer> waiter) {
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> download = null;
+        synchronized (entries) {
+            if (entry.waiters.remove(waiter) && entry.waiters.isEmpty() && !entry.completed) {
+                // nobody is interested in that download anymore
+                if (entries.get(entry.key) == entry) {
+                    entries.remove(entry.key);
+                }
+                download = entry.download;
+            }
+        }
+
+        if (download != null) {
+            download.cancel(true);
+        }
+    }
+}
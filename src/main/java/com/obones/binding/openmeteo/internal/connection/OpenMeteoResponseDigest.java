@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.openmeteo.sdk.VariableWithValues;
+import com.openmeteo.sdk.VariablesWithTime;
+import com.openmeteo.sdk.WeatherApiResponse;
+
+/**
+ * The {@link OpenMeteoResponseDigest} computes a checksum of the content of a response, to tell whether it holds
+ * the same forecast as a previous one.
+ * <P>
+ * The time the server took to generate the response changes with every request, it is left out. The values
+ * vectors are read straight from the FlatBuffers message, without being decoded.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoResponseDigest {
+    /**
+     * The digest of a response without content
+     */
+    public static final long NONE = 0;
+
+    private final CRC32 checksum = new CRC32();
+    private final ByteBuffer scratch = ByteBuffer.allocate(64);
+    private final VariableWithValues values = new VariableWithValues();
+    private long valueCount;
+
+    private OpenMeteoResponseDigest() {
+    }
+
+    /**
+     * @param response the response to compute the digest of, it is only read
+     * @return the digest, {@link #NONE} for an empty response
+     */
+    public static long compute(WeatherApiResponse response) {
+        if (response.getByteBuffer() == null) {
+            return NONE;
+        }
+
+        OpenMeteoResponseDigest digest = new OpenMeteoResponseDigest();
+        digest.scratch.putFloat(response.latitude()).putFloat(response.longitude()).putFloat(response.elevation())
+                .putInt(response.model()).putInt(response.utcOffsetSeconds());
+        digest.flush();
+
+        digest.update(response.current());
+        digest.update(response.minutely15());
+        digest.update(response.hourly());
+        digest.update(response.daily());
+
+        long result = (digest.valueCount << 32) | digest.checksum.getValue();
+        return result == NONE ? 1 : result;
+    }
+
+    private void update(@Nullable VariablesWithTime block) {
+        if (block == null) {
+            scratch.put((byte) 0);
+            flush();
+            return;
+        }
+
+        int count = block.variablesLength();
+        scratch.put((byte) 1).putLong(block.time()).putLong(block.timeEnd()).putInt(block.interval()).putInt(count);
+        flush();
+        for (int position = 0; position < count; position++) {
+            block.variables(values, position);
+            int length = values.valuesLength();
+            int lengthInt64 = values.valuesInt64Length();
+            scratch.putInt(values.variable()).putInt(values.unit()).putInt(values.aggregation())
+                    .putShort(values.altitude()).putShort(values.pressureLevel()).putShort(values.depth())
+                    .putShort(values.depthTo()).putShort(values.ensembleMember()).putShort(values.previousDay())
+                    .putFloat(values.value()).putInt(length).putInt(lengthInt64);
+            flush();
+
+            ByteBuffer vector = values.valuesAsByteBuffer();
+            if (vector != null) {
+                checksum.update(vector);
+            }
+            for (int valueIndex = 0; valueIndex < lengthInt64; valueIndex++) {
+                scratch.putLong(values.valuesInt64(valueIndex));
+                if (scratch.remaining() < Long.BYTES) {
+                    flush();
+                }
+            }
+            flush();
+            valueCount += length + lengthInt64;
+        }
+    }
+
+    private void flush() {
+        scratch.flip();
+        checksum.update(scratch);
+        scratch.clear();
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openmeteo.sdk.WeatherApiResponse;
+
+/**
+ * The {@link OpenMeteoResponseParser} splits the body returned by the OpenMeteo API into its individual
+ * {@link WeatherApiResponse} messages.
+ * <P>
+ * The body is a sequence of FlatBuffers messages, each prefixed by its length as a little endian 32 bits integer.
+ * There is one message per requested location and model. The messages are read in place, every returned response
+ * shares the content of the given buffer so that nothing gets copied.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoResponseParser {
+    private @NonNullByDefault({}) static final Logger logger = LoggerFactory.getLogger(OpenMeteoResponseParser.class);
+
+    private static final int SIZE_PREFIX_LENGTH = 4;
+
+    private OpenMeteoResponseParser() {
+    }
+
+    /**
+     * Parses all the messages contained between the position and the limit of the given buffer
+     *
+     * @param buffer the buffer holding the size prefixed messages, its position and limit are not modified
+     * @return the messages, in the order in which they appear in the buffer
+     */
+    public static List<WeatherApiResponse> parse(ByteBuffer buffer) {
+        List<WeatherApiResponse> result = new ArrayList<>();
+
+        ByteBuffer data = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int position = data.position();
+        int limit = data.limit();
+        while (position + SIZE_PREFIX_LENGTH <= limit) {
+            int length = data.getInt(position);
+            int start = position + SIZE_PREFIX_LENGTH;
+            if (length <= 0 || length > limit - start) {
+                logger.warn("Truncated or invalid message of length {} at offset {}, ignoring the rest of the data",
+                        length, position);
+                break;
+            }
+
+            // a duplicate shares the content of the original buffer, only its position and limit differ
+            ByteBuffer message = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            message.limit(start + length).position(start);
+            result.add(WeatherApiResponse.getRootAsWeatherApiResponse(message));
+
+            position = start + length;
+        }
+
+        return result;
+    }
+
+    /**
+     * Parses the given buffer and assigns the messages to the locations that were requested.
+     * When several models are requested, only the first message of each location is kept.
+     *
+     * @param buffer the buffer holding the size prefixed messages
+     * @param locationCount the number of locations that were requested
+     * @return a list of exactly locationCount responses, null for any location missing from the buffer
+     */
+    public static List<@Nullable WeatherApiResponse> parse(ByteBuffer buffer, int locationCount) {
+        List<WeatherApiResponse> messages = parse(buffer);
+        List<@Nullable WeatherApiResponse> result = new ArrayList<>(locationCount);
+        for (int locationIndex = 0; locationIndex < locationCount; locationIndex++) {
+            result.add(null);
+        }
+
+        for (WeatherApiResponse message : messages) {
+            int locationIndex = (int) message.locationId();
+            if (locationIndex >= 0 && locationIndex < locationCount && result.get(locationIndex) == null) {
+                result.set(locationIndex, message);
+            }
+        }
+
+        return result;
+    }
+}
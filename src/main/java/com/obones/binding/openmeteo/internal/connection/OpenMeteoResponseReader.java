@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link OpenMeteoResponseReader} copies the body of a response, as it arrives, into a buffer taken from an
+ * {@link OpenMeteoBufferPool}.
+ * <P>
+ * The future given to the constructor is completed with the received body. It is completed exceptionally with an
+ * {@link OpenMeteoDownloadException} when the network or the host failed, with an {@link IOException} when the body
+ * could not be read.
+ * Unlike Jetty's buffering listeners, a body larger than what the pool can hold is reported as an error instead of
+ * being silently dropped.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoResponseReader extends Response.Listener.Adapter {
+    private @NonNullByDefault({}) static final Logger logger = LoggerFactory.getLogger(OpenMeteoResponseReader.class);
+
+    private final OpenMeteoBufferPool pool;
+    private final String url;
+    private final CompletableFuture<@Nullable OpenMeteoResponseBuffer> result;
+    private @Nullable ByteBuffer buffer;
+
+    public OpenMeteoResponseReader(OpenMeteoBufferPool pool, String url,
+            CompletableFuture<@Nullable OpenMeteoResponseBuffer> result) {
+        this.pool = pool;
+        this.url = url;
+        this.result = result;
+    }
+
+    @Override
+    public void onHeaders(@Nullable Response response) {
+        if (response == null) {
+            return;
+        }
+
+        // the length is only a hint as the content may be compressed, but it usually saves a few reallocations
+        long length = response.getHeaders().getLongField(HttpHeader.CONTENT_LENGTH.asString());
+        if (length > pool.getMaxBufferSize()) {
+            response.abort(new IllegalStateException("Response of " + length + " bytes is too large"));
+        } else if (length > 0) {
+            ensureCapacity((int) length);
+        }
+    }
+
+    @Override
+    public void onContent(@Nullable Response response, @Nullable ByteBuffer content) {
+        if (response == null || content == null) {
+            return;
+        }
+
+        ByteBuffer localBuffer = buffer;
+        long length = (localBuffer == null ? 0 : localBuffer.position()) + (long) content.remaining();
+        if (length > pool.getMaxBufferSize()) {
+            response.abort(new IllegalStateException("Response exceeds " + pool.getMaxBufferSize() + " bytes"));
+            return;
+        }
+
+        ensureCapacity((int) length).put(content);
+    }
+
+    @Override
+    public void onComplete(@Nullable Result requestResult) {
+        ByteBuffer localBuffer = buffer;
+        buffer = null;
+
+        if (requestResult == null || requestResult.isFailed()) {
+            Throwable failure = requestResult == null ? null : requestResult.getFailure();
+            String message = failure == null ? "Request failed" : String.valueOf(failure.getMessage());
+            if (failure instanceof IllegalStateException) {
+                logger.warn("Media download failed (URL {}) : {}", url, message);
+                complete(localBuffer, new IOException(message, failure));
+            } else {
+                logger.debug("Media download failed (URL {}) : {}", url, message);
+                complete(localBuffer, new OpenMeteoDownloadException(message, OpenMeteoDownloadException.NO_STATUS,
+                        null, failure));
+            }
+            return;
+        }
+
+        Response response = requestResult.getResponse();
+        int status = response.getStatus();
+        int length = localBuffer == null ? 0 : localBuffer.position();
+        logger.debug("Media download response: status {} content length {} (URL {})", status, length, url);
+        if (status != HttpStatus.OK_200 || length == 0) {
+            logger.debug("Media download failed: unexpected return code {} (URL {})", status, url);
+            complete(localBuffer, new OpenMeteoDownloadException("Unexpected return code " + status, status,
+                    getRetryAfter(response), null));
+            return;
+        }
+
+        complete(localBuffer, null);
+    }
+
+    /**
+     * @return the delay given by the Retry-After header, either as a number of seconds or as a date, null if there
+     *         is none or it cannot be parsed
+     */
+    private static @Nullable Duration getRetryAfter(Response response) {
+        String retryAfter = response.getHeaders().get(HttpHeader.RETRY_AFTER);
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return null;
+        }
+
+        try {
+            return Duration.ofSeconds(Math.max(Long.parseLong(retryAfter.trim()), 0));
+        } catch (NumberFormatException e) {
+            try {
+                Duration delay = Duration.between(Instant.now(),
+                        ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException e2) {
+                return null;
+            }
+        }
+    }
+
+    private ByteBuffer ensureCapacity(int capacity) {
+        ByteBuffer localBuffer = buffer;
+        if (localBuffer == null) {
+            localBuffer = pool.acquire(capacity);
+        } else if (localBuffer.capacity() < capacity) {
+            // grow by at least a factor two to keep the number of copies low
+            long grownCapacity = Math.max((long) capacity, 2L * localBuffer.capacity());
+            ByteBuffer grownBuffer = pool.acquire((int) Math.min(grownCapacity, pool.getMaxBufferSize()));
+            localBuffer.flip();
+            grownBuffer.put(localBuffer);
+            pool.release(localBuffer);
+            localBuffer = grownBuffer;
+        }
+        buffer = localBuffer;
+        return localBuffer;
+    }
+
+    private void complete(@Nullable ByteBuffer localBuffer, @Nullable IOException failure) {
+        if (failure != null) {
+            if (localBuffer != null) {
+                pool.release(localBuffer);
+            }
+            result.completeExceptionally(failure);
+        } else if (localBuffer == null) {
+            result.completeExceptionally(new IOException("Empty response"));
+        } else {
+            localBuffer.flip();
+            OpenMeteoResponseBuffer responseBuffer = new OpenMeteoResponseBuffer(pool, localBuffer);
+            if (!result.complete(responseBuffer)) {
+                // nobody is waiting for the data anymore
+                responseBuffer.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.zip.CRC32;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openmeteo.sdk.WeatherApiResponse;
+
+/**
+ * The {@link OpenMeteoResponseStore} keeps the last response of each thing on disk so that it can be published
+ * again after a restart, before the first refresh completes.
+ * <P>
+ * Each response is stored in its own file, as the raw FlatBuffers message preceded by a header holding the time
+ * at which it was received and a checksum of the message. Files are replaced atomically and read back through a
+ * memory mapping, a file that is damaged or older than the maximum age is ignored.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoResponseStore {
+    private @NonNullByDefault({}) static final Logger logger = LoggerFactory.getLogger(OpenMeteoResponseStore.class);
+
+    private static final int MAGIC = 0x4F4D5231; // "OMR1"
+    private static final int HEADER_LENGTH = 4 + 8 + 8 + 4; // magic, fetch time, checksum, length
+    private static final int FETCH_TIME_OFFSET = 4;
+    private static final String FILE_EXTENSION = ".bin";
+
+    private final Path folder;
+    private final Duration maxAge;
+
+    /**
+     * A response read back from the disk
+     */
+    public static class StoredResponse {
+        private final WeatherApiResponse response;
+        private final Instant fetchTime;
+
+        private StoredResponse(WeatherApiResponse response, Instant fetchTime) {
+            this.response = response;
+            this.fetchTime = fetchTime;
+        }
+
+        public WeatherApiResponse getResponse() {
+            return response;
+        }
+
+        public Instant getFetchTime() {
+            return fetchTime;
+        }
+    }
+
+    /**
+     * @param folder the folder holding the files, created when the first response is saved
+     * @param maxAge the age above which a stored response is not used anymore
+     */
+    public OpenMeteoResponseStore(Path folder, Duration maxAge) {
+        this.folder = folder;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Saves the given response, replacing the one previously saved under the same name
+     *
+     * @param name the name of the file, usually derived from the thing UID
+     * @param response the response to save, it is only read
+     * @param fetchTime the time at which the response was received
+     */
+    public void save(String name, WeatherApiResponse response, Instant fetchTime) {
+        ByteBuffer message = response.getByteBuffer();
+        if (message == null) {
+            return;
+        }
+        message = message.duplicate();
+
+        CRC32 checksum = new CRC32();
+        checksum.update(message.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC).putLong(fetchTime.toEpochMilli()).putLong(checksum.getValue())
+                .putInt(message.remaining()).flip();
+
+        Path file = getFile(name);
+        Path temporaryFile = folder.resolve(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(folder);
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                while (message.hasRemaining()) {
+                    channel.write(message);
+                }
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.trace("Saved response to {}", file);
+        } catch (IOException e) {
+            logger.debug("Could not save response to {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Changes the time at which the response saved under the given name was received, when the same response was
+     * received again. Only the header of the file is written.
+     *
+     * @param name the name given when saving the response
+     * @param fetchTime the time at which the response was received again
+     */
+    public void setFetchTime(String name, Instant fetchTime) {
+        Path file = getFile(name);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            if (channel.read(magic, 0) != magic.capacity() || magic.getInt(0) != MAGIC) {
+                logger.debug("Not updating invalid response file {}", file);
+                return;
+            }
+
+            ByteBuffer time = ByteBuffer.allocate(8).putLong(fetchTime.toEpochMilli()).flip();
+            while (time.hasRemaining()) {
+                channel.write(time, FETCH_TIME_OFFSET + time.position());
+            }
+            logger.trace("Updated fetch time of {}", file);
+        } catch (NoSuchFileException e) {
+            // nothing saved yet, or it could not be
+        } catch (IOException e) {
+            logger.debug("Could not update response file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads back the response saved under the given name
+     *
+     * @param name the name given when saving the response
+     * @return the response, or null if there is none, it is damaged or it is too old
+     */
+    public @Nullable StoredResponse load(String name) {
+        Path file = getFile(name);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_LENGTH) {
+                logger.debug("Ignoring truncated response file {}", file);
+                return null;
+            }
+
+            // the mapping stays valid once the channel is closed, until the buffer gets garbage collected
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int magic = data.getInt();
+            Instant fetchTime = Instant.ofEpochMilli(data.getLong());
+            long expectedChecksum = data.getLong();
+            int length = data.getInt();
+            if (magic != MAGIC || length <= 0 || length != size - HEADER_LENGTH) {
+                logger.debug("Ignoring invalid response file {}", file);
+                return null;
+            }
+
+            if (fetchTime.plus(maxAge).isBefore(Instant.now())) {
+                logger.debug("Ignoring response file {} received at {}, it is too old", file, fetchTime);
+                return null;
+            }
+
+            ByteBuffer message = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+            CRC32 checksum = new CRC32();
+            checksum.update(message.duplicate());
+            if (checksum.getValue() != expectedChecksum) {
+                logger.debug("Ignoring damaged response file {}", file);
+                return null;
+            }
+
+            return new StoredResponse(WeatherApiResponse.getRootAsWeatherApiResponse(message), fetchTime);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.debug("Could not read response file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Removes the response saved under the given name, if any
+     *
+     * @param name the name given when saving the response
+     */
+    public void delete(String name) {
+        Path file = getFile(name);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("Could not delete response file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path getFile(String name) {
+        return folder.resolve(name.replaceAll("[^A-Za-z0-9_-]", "_") + FILE_EXTENSION);
+    }
+}
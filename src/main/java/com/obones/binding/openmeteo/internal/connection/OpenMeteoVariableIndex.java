@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.openmeteo.sdk.VariableWithValues;
+import com.openmeteo.sdk.VariablesWithTime;
+
+/**
+ * The {@link OpenMeteoVariableIndex} finds the variables of a block of a response (hourly, daily, current...)
+ * without scanning all of them.
+ * <P>
+ * The positions of the variables are stored in an open addressing table keyed by their variable, aggregation and
+ * altitude, packed in a long. Each variable is also stored under a key that ignores its altitude, which gives the
+ * same result as a {@link com.openmeteo.sdk.VariablesSearch} that does not filter on the altitude. When several
+ * variables share a key, the first one in the response wins, as with {@link com.openmeteo.sdk.VariablesSearch}.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoVariableIndex {
+    private static final long ANY_ALTITUDE = 1L << 32;
+
+    private final @Nullable VariablesWithTime variables;
+    private final long[] keys;
+    private final int[] positions; // position in the response plus one, zero for an empty slot
+    private final int mask;
+
+    /**
+     * @param variables the block to index, null for a block missing from the response
+     */
+    public OpenMeteoVariableIndex(@Nullable VariablesWithTime variables) {
+        this.variables = variables;
+
+        int count = variables == null ? 0 : variables.variablesLength();
+
+        // two keys per variable, at most half of the slots are used
+        int capacity = Integer.highestOneBit(Math.max(4 * count, 4) * 2 - 1);
+        keys = new long[capacity];
+        positions = new int[capacity];
+        mask = capacity - 1;
+
+        if (variables != null) {
+            VariableWithValues values = new VariableWithValues();
+            for (int position = 0; position < count; position++) {
+                variables.variables(values, position);
+                long key = getKey(values.variable(), values.aggregation());
+                put(key | (values.altitude() & 0xFFFF), position);
+                put(key | ANY_ALTITUDE, position);
+            }
+        }
+    }
+
+    /**
+     * @return the indexed block, null if it was missing from the response
+     */
+    public @Nullable VariablesWithTime getVariables() {
+        return variables;
+    }
+
+    /**
+     * Returns the first variable with the given characteristics, whatever its altitude
+     *
+     * @param variable one of the {@link com.openmeteo.sdk.Variable} constants
+     * @param aggregation one of the {@link com.openmeteo.sdk.Aggregation} constants
+     */
+    public @Nullable VariableWithValues find(int variable, int aggregation) {
+        return get(getKey(variable, aggregation) | ANY_ALTITUDE);
+    }
+
+    /**
+     * Returns the first variable with the given characteristics
+     *
+     * @param variable one of the {@link com.openmeteo.sdk.Variable} constants
+     * @param aggregation one of the {@link com.openmeteo.sdk.Aggregation} constants
+     * @param altitude the altitude of the variable, in meters
+     */
+    public @Nullable VariableWithValues find(int variable, int aggregation, int altitude) {
+        return get(getKey(variable, aggregation) | (altitude & 0xFFFF));
+    }
+
+    private static long getKey(int variable, int aggregation) {
+        return ((long) (variable & 0xFF) << 24) | ((long) (aggregation & 0xFF) << 16);
+    }
+
+    private int getSlot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void put(long key, int position) {
+        int slot = getSlot(key);
+        while (positions[slot] != 0) {
+            if (keys[slot] == key) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        positions[slot] = position + 1;
+    }
+
+    private @Nullable VariableWithValues get(long key) {
+        VariablesWithTime localVariables = variables;
+        if (localVariables == null) {
+            return null;
+        }
+
+        int slot = getSlot(key);
+        while (positions[slot] != 0) {
+            if (keys[slot] == key) {
+                return localVariables.variables(new VariableWithValues(), positions[slot] - 1);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+}
@@ -23,6 +23,7 @@ import org.openhab.core.i18n.LocaleProvider;
 import org.openhab.core.i18n.LocationProvider;
 import org.openhab.core.i18n.TimeZoneProvider;
 import org.openhab.core.i18n.TranslationProvider;
+import org.openhab.core.io.net.http.HttpClientFactory;
 import org.openhab.core.thing.Bridge;
 import org.openhab.core.thing.Thing;
 import org.openhab.core.thing.ThingTypeUID;
@@ -62,6 +63,7 @@ public class OpenMeteoHandlerFactory extends BaseThingHandlerFactory {
     private ChannelTypeRegistry channelTypeRegistry;
     private TimeZoneProvider timeZoneProvider;
     private final LocationProvider locationProvider;
+    private final HttpClientFactory httpClientFactory;
     private Localization localization = Localization.UNKNOWN;
 
     // Private
@@ -96,7 +98,8 @@ public class OpenMeteoHandlerFactory extends BaseThingHandlerFactory {
 
     private @Nullable ThingHandler createBridgeHandler(Thing thing) {
         logger.trace("createBridgeHandler({}) called for thing named '{}'.", thing.getUID(), thing.getLabel());
-        OpenMeteoBridgeHandler openMeteoBridgeHandler = new OpenMeteoBridgeHandler((Bridge) thing, localization);
+        OpenMeteoBridgeHandler openMeteoBridgeHandler = new OpenMeteoBridgeHandler((Bridge) thing, localization,
+                httpClientFactory);
         registerDeviceDiscoveryService(openMeteoBridgeHandler);
         return openMeteoBridgeHandler;
     }
@@ -124,7 +127,8 @@ public class OpenMeteoHandlerFactory extends BaseThingHandlerFactory {
             final @Reference TranslationProvider givenI18nProvider,
             final @Reference TimeZoneProvider givenTimeZoneProvider,
             final @Reference ChannelTypeRegistry givenChannelTypeRegistry,
-            final @Reference LocationProvider givenLocationProvider) {
+            final @Reference LocationProvider givenLocationProvider,
+            final @Reference HttpClientFactory givenHttpClientFactory) {
         logger.trace("OpenMeteoHandlerFactory(locale={},translation={}) called.", givenLocaleProvider,
                 givenI18nProvider);
         localeProvider = givenLocaleProvider;
@@ -132,6 +136,7 @@ public class OpenMeteoHandlerFactory extends BaseThingHandlerFactory {
         timeZoneProvider = givenTimeZoneProvider;
         channelTypeRegistry = givenChannelTypeRegistry;
         locationProvider = givenLocationProvider;
+        httpClientFactory = givenHttpClientFactory;
     }
 
     @Reference
@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.handler;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.Block;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoForecastSnapshot.BlockData;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoForecastSnapshot.Column;
+import com.openmeteo.sdk.Aggregation;
+import com.openmeteo.sdk.Variable;
+
+/**
+ * The {@link OpenMeteoAdaptiveRefreshPolicy} chooses the delay until the next refresh of a forecast from how
+ * volatile the weather is in its near horizon.
+ * <P>
+ * The precipitation probability, CAPE, gusts and weather code found in the current, 15 minutely and hourly blocks
+ * of a snapshot are each turned into a volatility between 0, nothing happening, and 1, rain or storm expected.
+ * The highest of them places the delay between the maximum and the minimum interval. The handler asks for these
+ * values with {@link #addSnapshotColumns(OpenMeteoForecastSnapshot.Builder)}, whatever its linked channels.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoAdaptiveRefreshPolicy {
+    /*
+     * The values at which the volatility starts to rise and the ones at which it is the highest, in the units of
+     * the requests
+     */
+    private static final float PRECIPITATION_PROBABILITY_LOW = 20; // %
+    private static final float PRECIPITATION_PROBABILITY_HIGH = 80;
+    private static final float CAPE_LOW = 300; // J/kg
+    private static final float CAPE_HIGH = 2000;
+    private static final float GUST_SPEED_LOW = 10; // m/s
+    private static final float GUST_SPEED_HIGH = 20;
+
+    /*
+     * WMO weather codes, from drizzle upwards there is precipitation, from 95 upwards a thunderstorm
+     */
+    private static final int WEATHER_CODE_PRECIPITATION = 51;
+    private static final int WEATHER_CODE_THUNDERSTORM = 95;
+
+    private static final Block[] BLOCKS = { Block.CURRENT, Block.MINUTELY_15, Block.HOURLY };
+    private static final int[] VARIABLES = { Variable.precipitation_probability, Variable.cape, Variable.wind_gusts,
+            Variable.weather_code };
+
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final Duration horizon;
+
+    /**
+     * @param minInterval the delay when the weather is the most volatile
+     * @param maxInterval the delay when nothing is happening, raised to the minimum if below it
+     * @param horizon how far ahead of the current time the values are looked at
+     */
+    public OpenMeteoAdaptiveRefreshPolicy(Duration minInterval, Duration maxInterval, Duration horizon) {
+        this.minInterval = minInterval;
+        this.maxInterval = (maxInterval.compareTo(minInterval) < 0) ? minInterval : maxInterval;
+        this.horizon = horizon;
+    }
+
+    /**
+     * Asks for the values looked at to be kept in the snapshots, in each block that is retrieved
+     *
+     * @param builder the builder of the snapshot
+     */
+    public static void addSnapshotColumns(OpenMeteoForecastSnapshot.Builder builder) {
+        for (Block block : BLOCKS) {
+            for (int variable : VARIABLES) {
+                builder.add(block, variable, Aggregation.none);
+            }
+        }
+    }
+
+    /**
+     * @param snapshot the snapshot just received
+     * @param now the current time
+     * @return the delay until the next refresh, null if the snapshot holds none of the values looked at
+     */
+    public @Nullable Duration getRefreshInterval(OpenMeteoForecastSnapshot snapshot, Instant now) {
+        float volatility = Float.NaN;
+        for (Block block : BLOCKS) {
+            BlockData blockData = snapshot.getBlock(block);
+            if (blockData != null) {
+                volatility = max(volatility, getVolatility(block, blockData, now.getEpochSecond()));
+            }
+        }
+        if (Float.isNaN(volatility)) {
+            return null;
+        }
+
+        long range = maxInterval.getSeconds() - minInterval.getSeconds();
+        return maxInterval.minusSeconds(Math.round(range * volatility));
+    }
+
+    private float getVolatility(Block block, BlockData blockData, long now) {
+        float volatility = Float.NaN;
+
+        Column values = blockData.find(Variable.precipitation_probability, Aggregation.none);
+        if (values != null) {
+            volatility = max(volatility, scale(getMaxValue(block, blockData, values, now),
+                    PRECIPITATION_PROBABILITY_LOW, PRECIPITATION_PROBABILITY_HIGH));
+        }
+        values = blockData.find(Variable.cape, Aggregation.none);
+        if (values != null) {
+            volatility = max(volatility, scale(getMaxValue(block, blockData, values, now), CAPE_LOW, CAPE_HIGH));
+        }
+        values = blockData.find(Variable.wind_gusts, Aggregation.none);
+        if (values != null) {
+            volatility = max(volatility,
+                    scale(getMaxValue(block, blockData, values, now), GUST_SPEED_LOW, GUST_SPEED_HIGH));
+        }
+        values = blockData.find(Variable.weather_code, Aggregation.none);
+        if (values != null) {
+            float weatherCode = getMaxValue(block, blockData, values, now);
+            if (weatherCode >= WEATHER_CODE_THUNDERSTORM) {
+                volatility = 1;
+            } else if (weatherCode >= WEATHER_CODE_PRECIPITATION) {
+                volatility = max(volatility, 0.5f);
+            } else if (!Float.isNaN(weatherCode)) {
+                volatility = max(volatility, 0);
+            }
+        }
+        return volatility;
+    }
+
+    /**
+     * @return the highest value of the given column between the current time and the horizon, NaN if there is none
+     */
+    private float getMaxValue(Block block, BlockData blockData, Column values, long now) {
+        if (block == Block.CURRENT) {
+            Float value = values.getFloatValue(null);
+            return (value != null) ? value : Float.NaN;
+        }
+
+        long interval = blockData.getInterval();
+        if (interval <= 0) {
+            return Float.NaN;
+        }
+        // the value of the period that has started is included
+        long first = Math.max(Math.floorDiv(now - blockData.getTime(), interval), 0);
+        long last = Math.floorDiv(now + horizon.getSeconds() - blockData.getTime(), interval);
+        float result = Float.NaN;
+        for (long valueIndex = first; valueIndex <= last && valueIndex < values.getLength(); valueIndex++) {
+            Float value = values.getFloatValue((int) valueIndex);
+            if (value != null) {
+                result = max(result, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the position of the value between the low and high bounds, from 0 to 1, NaN if the value is NaN
+     */
+    private static float scale(float value, float low, float high) {
+        if (Float.isNaN(value)) {
+            return Float.NaN;
+        }
+        return Math.min(Math.max((value - low) / (high - low), 0), 1);
+    }
+
+    /**
+     * @return the highest of both values, ignoring NaN unless both are
+     */
+    private static float max(float a, float b) {
+        if (Float.isNaN(a)) {
+            return b;
+        }
+        return Float.isNaN(b) ? a : Math.max(a, b);
+    }
+}
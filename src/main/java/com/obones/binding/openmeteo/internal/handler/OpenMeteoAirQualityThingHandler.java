@@ -19,10 +19,7 @@ import java.util.Objects;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
-import org.openhab.core.i18n.CommunicationException;
-import org.openhab.core.i18n.ConfigurationException;
 import org.openhab.core.i18n.TimeZoneProvider;
-import org.openhab.core.library.types.PointType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.library.unit.Units;
 import org.openhab.core.thing.ChannelUID;
@@ -38,11 +35,13 @@ import org.openhab.core.types.UnDefType;
 import com.obones.binding.openmeteo.internal.config.OpenMeteoAirQualityThingConfiguration;
 import com.obones.binding.openmeteo.internal.connection.OpenMeteoConnection;
 import com.obones.binding.openmeteo.internal.connection.OpenMeteoConnection.AirQualityValue;
+import com.obones.binding.openmeteo.internal.connection.OpenMeteoRequestPlan;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.Block;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.StateConverter;
 import com.obones.binding.openmeteo.internal.transformation.OpenMeteoEuropeanAirQualityIndicatorTransformationService;
 import com.obones.binding.openmeteo.internal.transformation.OpenMeteoUSAirQualityIndicatorTransformationService;
 import com.obones.binding.openmeteo.internal.utils.Localization;
 import com.openmeteo.sdk.Variable;
-import com.openmeteo.sdk.WeatherApiResponse;
 
 /***
  * The{@link OpenMeteoAirQualityThingHandler} is responsible for updating air quality related channels, which are
@@ -314,33 +313,75 @@ public class OpenMeteoAirQualityThingHandler extends OpenMeteoBaseThingHandler {
         return initializeHourlyGroupOptionalChannels(callback, builder, thingUID, config, channelGroupId, labelSuffix);
     }
 
-    protected void updateChannel(ChannelUID channelUID) {
+    protected @Nullable OpenMeteoChannelDecoder createChannelDecoder(ChannelUID channelUID) {
         String channelGroupId = Objects.requireNonNullElse(channelUID.getGroupId(), "");
-        logger.debug("OpenMeteoForecastThingHandler: updateChannel {}, groupID {}", channelUID, channelGroupId);
+        logger.debug("OpenMeteoAirQualityThingHandler: createChannelDecoder {}, groupID {}", channelUID,
+                channelGroupId);
 
         switch (channelGroupId) {
             case CHANNEL_GROUP_HOURLY_TIME_SERIES:
-                updateHourlyTimeSeries(channelUID);
-                break;
+                return createChannelDecoder(channelUID, Block.HOURLY, true, null);
             case CHANNEL_GROUP_CURRENT:
-                updateCurrentChannel(channelUID);
-                break;
+                return createChannelDecoder(channelUID, Block.CURRENT, false, null);
         }
+        return null;
     }
 
-    protected WeatherApiResponse requestData(OpenMeteoConnection connection, PointType location)
-            throws CommunicationException, ConfigurationException {
+    protected OpenMeteoRequestPlan createRequestPlan(OpenMeteoConnection connection) {
         OpenMeteoAirQualityThingConfiguration config = getConfigAs(OpenMeteoAirQualityThingConfiguration.class);
 
-        return connection.getAirQuality(location, getAirQualityValues(),
+        EnumSet<AirQualityValue> configuredAirQualityValues = getAirQualityValues(config);
+        EnumSet<AirQualityValue> airQualityValues = retainRequestedValues(configuredAirQualityValues,
+                OpenMeteoAirQualityThingHandler::getAirQualityValue);
+        if (airQualityValues.isEmpty() && (isLinkedChannelsOnly() || !configuredAirQualityValues.isEmpty())) {
+            return new OpenMeteoRequestPlan(null);
+        }
+
+        return connection.getAirQualityPlan(airQualityValues,
                 (config.hourlyTimeSeries) ? config.hourlyHours : null, //
                 config.current, //
                 config.pastHours);
     }
 
-    private EnumSet<OpenMeteoConnection.AirQualityValue> getAirQualityValues() {
+    private static @Nullable AirQualityValue getAirQualityValue(int variable) {
+        return switch (variable) {
+            case Variable.uv_index -> AirQualityValue.UV_INDEX;
+            case Variable.uv_index_clear_sky -> AirQualityValue.UV_INDEX_CLEAR_SKY;
+            case Variable.pm10 -> AirQualityValue.PARTICULATE_10;
+            case Variable.pm2p5 -> AirQualityValue.PARTICULATE_2_5;
+            case Variable.carbon_monoxide -> AirQualityValue.CARBON_MONOXIDE;
+            case Variable.nitrogen_dioxide -> AirQualityValue.NITROGEN_DIOXIDE;
+            case Variable.sulphur_dioxide -> AirQualityValue.SULPHUR_DIOXIDE;
+            case Variable.ozone -> AirQualityValue.OZONE;
+            case Variable.aerosol_optical_depth -> AirQualityValue.AEROSOL_OPTICAL_DEPTH;
+            case Variable.dust -> AirQualityValue.DUST;
+            case Variable.ammonia -> AirQualityValue.AMMONIA;
+            case Variable.alder_pollen -> AirQualityValue.ALDER_POLLEN;
+            case Variable.birch_pollen -> AirQualityValue.BIRCH_POLLEN;
+            case Variable.mugwort_pollen -> AirQualityValue.MUGWORT_POLLEN;
+            case Variable.grass_pollen -> AirQualityValue.GRASS_POLLEN;
+            case Variable.olive_pollen -> AirQualityValue.OLIVE_POLLEN;
+            case Variable.ragweed_pollen -> AirQualityValue.RAGWEED_POLLEN;
+            case Variable.european_aqi -> AirQualityValue.EUROPEAN_AQI;
+            case Variable.european_aqi_pm2p5 -> AirQualityValue.EUROPEAN_AQI_PM_2_5;
+            case Variable.european_aqi_pm10 -> AirQualityValue.EUROPEAN_AQI_PM_10;
+            case Variable.european_aqi_nitrogen_dioxide -> AirQualityValue.EUROPEAN_AQI_NITROGEN_DIOXIDE;
+            case Variable.european_aqi_ozone -> AirQualityValue.EUROPEAN_AQI_OZONE;
+            case Variable.european_aqi_sulphur_dioxide -> AirQualityValue.EUROPEAN_AQI_SULPHUR_DIOXIDE;
+            case Variable.us_aqi -> AirQualityValue.US_AQI;
+            case Variable.us_aqi_pm2p5 -> AirQualityValue.US_AQI_PM_2_5;
+            case Variable.us_aqi_pm10 -> AirQualityValue.US_AQI_PM_10;
+            case Variable.us_aqi_nitrogen_dioxide -> AirQualityValue.US_AQI_NITROGEN_DIOXIDE;
+            case Variable.us_aqi_ozone -> AirQualityValue.US_AQI_OZONE;
+            case Variable.us_aqi_sulphur_dioxide -> AirQualityValue.US_AQI_SULPHUR_DIOXIDE;
+            case Variable.us_aqi_carbon_monoxide -> AirQualityValue.US_AQI_CARBON_MONOXIDE;
+            default -> null;
+        };
+    }
+
+    private EnumSet<OpenMeteoConnection.AirQualityValue> getAirQualityValues(
+            OpenMeteoAirQualityThingConfiguration config) {
         EnumSet<OpenMeteoConnection.AirQualityValue> result = EnumSet.noneOf(OpenMeteoConnection.AirQualityValue.class);
-        OpenMeteoAirQualityThingConfiguration config = getConfigAs(OpenMeteoAirQualityThingConfiguration.class);
 
         if (config.includeUVIndex)
             result.add(AirQualityValue.UV_INDEX);
@@ -478,144 +519,98 @@ public class OpenMeteoAirQualityThingHandler extends OpenMeteoBaseThingHandler {
         return getDecimalTypeState(floatValue); // , OpenMeteoBindingUnits.GRAINS_PER_CUBICMETRE);
     }
 
-    protected State getForecastState(String channelId, @Nullable Float floatValue, @Nullable Long longValue) {
-        State state = UnDefType.UNDEF;
-
+    protected StateConverter getStateConverter(String channelId) {
         switch (channelId) {
             case CHANNEL_AIR_QUALITY_UV_INDEX:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_UV_INDEX_CLEAR_SKY:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_PARTICULATE_10:
-                state = getQuantityTypeState(floatValue, Units.MICROGRAM_PER_CUBICMETRE);
-                break;
+                return getQuantityTypeConverter(Units.MICROGRAM_PER_CUBICMETRE);
             case CHANNEL_AIR_QUALITY_PARTICULATE_2_5:
-                state = getQuantityTypeState(floatValue, Units.MICROGRAM_PER_CUBICMETRE);
-                break;
+                return getQuantityTypeConverter(Units.MICROGRAM_PER_CUBICMETRE);
             case CHANNEL_AIR_QUALITY_CARBON_MONOXIDE:
-                state = getQuantityTypeState(floatValue, Units.MICROGRAM_PER_CUBICMETRE);
-                break;
+                return getQuantityTypeConverter(Units.MICROGRAM_PER_CUBICMETRE);
             case CHANNEL_AIR_QUALITY_NITROGEN_DIOXIDE:
-                state = getQuantityTypeState(floatValue, Units.MICROGRAM_PER_CUBICMETRE);
-                break;
+                return getQuantityTypeConverter(Units.MICROGRAM_PER_CUBICMETRE);
             case CHANNEL_AIR_QUALITY_SULPHUR_DIOXIDE:
-                state = getQuantityTypeState(floatValue, Units.MICROGRAM_PER_CUBICMETRE);
-                break;
+                return getQuantityTypeConverter(Units.MICROGRAM_PER_CUBICMETRE);
             case CHANNEL_AIR_QUALITY_OZONE:
-                state = getQuantityTypeState(floatValue, Units.MICROGRAM_PER_CUBICMETRE);
-                break;
+                return getQuantityTypeConverter(Units.MICROGRAM_PER_CUBICMETRE);
             case CHANNEL_AIR_QUALITY_AEROSOL_OPTICAL_DEPTH:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_DUST:
-                state = getQuantityTypeState(floatValue, Units.MICROGRAM_PER_CUBICMETRE);
-                break;
+                return getQuantityTypeConverter(Units.MICROGRAM_PER_CUBICMETRE);
             case CHANNEL_AIR_QUALITY_AMMONIA:
-                state = getQuantityTypeState(floatValue, Units.MICROGRAM_PER_CUBICMETRE);
-                break;
+                return getQuantityTypeConverter(Units.MICROGRAM_PER_CUBICMETRE);
             case CHANNEL_AIR_QUALITY_ALDER_POLLEN:
-                state = getPollenState(floatValue);
-                break;
+                return (floatValue, longValue) -> getPollenState(floatValue);
             case CHANNEL_AIR_QUALITY_BIRCH_POLLEN:
-                state = getPollenState(floatValue);
-                break;
+                return (floatValue, longValue) -> getPollenState(floatValue);
             case CHANNEL_AIR_QUALITY_MUGWORT_POLLEN:
-                state = getPollenState(floatValue);
-                break;
+                return (floatValue, longValue) -> getPollenState(floatValue);
             case CHANNEL_AIR_QUALITY_GRASS_POLLEN:
-                state = getPollenState(floatValue);
-                break;
+                return (floatValue, longValue) -> getPollenState(floatValue);
             case CHANNEL_AIR_QUALITY_OLIVE_POLLEN:
-                state = getPollenState(floatValue);
-                break;
+                return (floatValue, longValue) -> getPollenState(floatValue);
             case CHANNEL_AIR_QUALITY_RAGWEED_POLLEN:
-                state = getPollenState(floatValue);
-                break;
+                return (floatValue, longValue) -> getPollenState(floatValue);
             case CHANNEL_AIR_QUALITY_EUROPEAN_AQI:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_EUROPEAN_AQI_PM_2_5:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_EUROPEAN_AQI_PM_10:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_EUROPEAN_AQI_NITROGEN_DIOXIDE:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_EUROPEAN_AQI_OZONE:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_EUROPEAN_AQI_SULPHUR_DIOXIDE:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_EUROPEAN_AQI_AS_STRING:
-                state = getEuropeanStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getEuropeanStringAirQualityState(floatValue);
             case CHANNEL_AIR_QUALITY_EUROPEAN_AQI_AS_STRING_PM_2_5:
-                state = getEuropeanStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getEuropeanStringAirQualityState(floatValue);
             case CHANNEL_AIR_QUALITY_EUROPEAN_AQI_AS_STRING_PM_10:
-                state = getEuropeanStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getEuropeanStringAirQualityState(floatValue);
             case CHANNEL_AIR_QUALITY_EUROPEAN_AQI_AS_STRING_NITROGEN_DIOXIDE:
-                state = getEuropeanStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getEuropeanStringAirQualityState(floatValue);
             case CHANNEL_AIR_QUALITY_EUROPEAN_AQI_AS_STRING_OZONE:
-                state = getEuropeanStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getEuropeanStringAirQualityState(floatValue);
             case CHANNEL_AIR_QUALITY_EUROPEAN_AQI_AS_STRING_SULPHUR_DIOXIDE:
-                state = getEuropeanStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getEuropeanStringAirQualityState(floatValue);
             case CHANNEL_AIR_QUALITY_US_AQI:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_US_AQI_PM_2_5:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_US_AQI_PM_10:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_US_AQI_NITROGEN_DIOXIDE:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_US_AQI_OZONE:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_US_AQI_SULPHUR_DIOXIDE:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_US_AQI_CARBON_MONOXIDE:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_AIR_QUALITY_US_AQI_AS_STRING:
-                state = getUSStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getUSStringAirQualityState(floatValue);
             case CHANNEL_AIR_QUALITY_US_AQI_AS_STRING_PM_2_5:
-                state = getUSStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getUSStringAirQualityState(floatValue);
             case CHANNEL_AIR_QUALITY_US_AQI_AS_STRING_PM_10:
-                state = getUSStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getUSStringAirQualityState(floatValue);
             case CHANNEL_AIR_QUALITY_US_AQI_AS_STRING_NITROGEN_DIOXIDE:
-                state = getUSStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getUSStringAirQualityState(floatValue);
             case CHANNEL_AIR_QUALITY_US_AQI_AS_STRING_OZONE:
-                state = getUSStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getUSStringAirQualityState(floatValue);
             case CHANNEL_AIR_QUALITY_US_AQI_AS_STRING_SULPHUR_DIOXIDE:
-                state = getUSStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getUSStringAirQualityState(floatValue);
             case CHANNEL_AIR_QUALITY_US_AQI_AS_STRING_CARBON_MONOXIDE:
-                state = getUSStringAirQualityState(floatValue);
-                break;
+                return (floatValue, longValue) -> getUSStringAirQualityState(floatValue);
             default:
                 // This should not happen
                 logger.warn("Unknown channel id {} in weather data", channelId);
-                break;
+                return getUndefConverter();
         }
-        return state;
     }
 }
@@ -13,13 +13,32 @@ package com.obones.binding.openmeteo.internal.handler;
 
 import static com.obones.binding.openmeteo.internal.OpenMeteoBindingConstants.*;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
 
 import javax.measure.Unit;
 
@@ -61,12 +80,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.obones.binding.openmeteo.internal.config.OpenMeteoBaseThingConfiguration;
+import com.obones.binding.openmeteo.internal.connection.OpenMeteoCircuitOpenException;
 import com.obones.binding.openmeteo.internal.connection.OpenMeteoConnection;
+import com.obones.binding.openmeteo.internal.connection.OpenMeteoRequestPlan;
+import com.obones.binding.openmeteo.internal.connection.OpenMeteoResponseDigest;
+import com.obones.binding.openmeteo.internal.connection.OpenMeteoResponseStore;
+import com.obones.binding.openmeteo.internal.connection.OpenMeteoResponseStore.StoredResponse;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.Block;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.StateConverter;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoForecastSnapshot.BlockData;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoForecastSnapshot.Column;
+import com.obones.binding.openmeteo.internal.refresh.OpenMeteoModelRunSchedule;
+import com.obones.binding.openmeteo.internal.refresh.OpenMeteoPipelineStage;
 import com.obones.binding.openmeteo.internal.utils.Localization;
 import com.openmeteo.sdk.Aggregation;
-import com.openmeteo.sdk.VariableWithValues;
-import com.openmeteo.sdk.VariablesSearch;
-import com.openmeteo.sdk.VariablesWithTime;
+import com.openmeteo.sdk.Variable;
 import com.openmeteo.sdk.WeatherApiResponse;
 
 /***
@@ -79,12 +107,45 @@ public abstract class OpenMeteoBaseThingHandler extends BaseThingHandler {
 
     protected @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(OpenMeteoBridgeHandler.class);
     protected ChannelTypeRegistry channelTypeRegistry;
-    protected @Nullable WeatherApiResponse forecastData = null;
+    /*
+     * Replaced as a whole by each refresh, readers take a reference once and never need a lock
+     */
+    private volatile @Nullable OpenMeteoForecastSnapshot snapshot = null;
+    private final AtomicLong snapshotVersion = new AtomicLong();
+    private final AtomicBoolean snapshotRefreshRequested = new AtomicBoolean();
+    private volatile long responseDigest = OpenMeteoResponseDigest.NONE;
+    private final AtomicLong unchangedResponseCount = new AtomicLong();
+    private final Object updateLock = new Object();
+    private volatile int refreshInterval = 0;
+    /*
+     * One plan per set of due blocks, the blocks retrieved at their own cadence giving a few different requests
+     */
+    private final Map<Set<Block>, OpenMeteoRequestPlan> requestPlans = new HashMap<>();
+    private @Nullable OpenMeteoConnection requestPlanConnection = null;
+    private @Nullable String batchKey = null;
+    private Set<Block> requestPlanBlocks = EnumSet.allOf(Block.class);
+    private final Map<Block, Instant> blockFetchTimes = new EnumMap<>(Block.class);
+    private @Nullable OpenMeteoVariablePruner pruner = null;
+    /*
+     * Guards the decoders, apart from the handler itself which the refreshes synchronize on
+     */
+    private final Object channelDecodersLock = new Object();
+    private final Map<ChannelUID, OpenMeteoChannelDecoder> channelDecoders = new HashMap<>();
+    private final Map<ChannelUID, OpenMeteoPublishedTimeSeries> publishedTimeSeries = new ConcurrentHashMap<>();
+    private OpenMeteoChannelDecoder @Nullable [] linkedChannelDecoders = null;
     protected final TimeZoneProvider timeZoneProvider;
 
     public Localization localization;
 
-    protected @Nullable PointType location;
+    protected volatile @Nullable PointType location;
+
+    private @Nullable CompletableFuture<?> pendingRequest;
+
+    /*
+     * Leaves time for the wall clock to be past the boundary of a block when the refresh runs
+     */
+    private static final long BLOCK_BOUNDARY_MARGIN_IN_SECONDS = 10;
+    private volatile @Nullable ScheduledFuture<?> pacedUpdateJob;
 
     public OpenMeteoBaseThingHandler(Thing thing, Localization localization, final TimeZoneProvider timeZoneProvider,
             ChannelTypeRegistry channelTypeRegistry) {
@@ -98,6 +159,10 @@ public abstract class OpenMeteoBaseThingHandler extends BaseThingHandler {
     @Override
     public void initialize() {
         logger.trace("initialize() called.");
+        readConfiguration();
+        clearRequestPlan();
+        int pruneThreshold = getEmptyVariablePruneThreshold();
+        pruner = (pruneThreshold > 0) ? new OpenMeteoVariablePruner(pruneThreshold) : null;
         Bridge thisBridge = getBridge();
         logger.debug("initialize(): Initializing thing {} in combination with bridge {}.", getThing().getUID(),
                 thisBridge);
@@ -121,6 +186,8 @@ public abstract class OpenMeteoBaseThingHandler extends BaseThingHandler {
 
                 logger.trace("initialize() updating ThingStatus to ONLINE.");
                 updateStatus(ThingStatus.ONLINE);
+
+                restoreSnapshot();
             }
         } else {
             logger.trace("initialize() updating ThingStatus to OFFLINE/BRIDGE_OFFLINE.");
@@ -129,6 +196,14 @@ public abstract class OpenMeteoBaseThingHandler extends BaseThingHandler {
         logger.trace("initialize() done.");
     }
 
+    /**
+     * Reads the settings used at each refresh from the configuration, once per initialization rather than each time
+     * they are used
+     */
+    protected void readConfiguration() {
+        refreshInterval = getConfigAs(OpenMeteoBaseThingConfiguration.class).refreshInterval;
+    }
+
     protected synchronized boolean validateConfig() {
         OpenMeteoBaseThingConfiguration config = getConfigAs(OpenMeteoBaseThingConfiguration.class);
         if (config.location.trim().isEmpty()) {
@@ -196,6 +271,7 @@ public abstract class OpenMeteoBaseThingHandler extends BaseThingHandler {
         initializeChannels(callback, builder, thingUID);
 
         updateThing(builder.build());
+        clearChannelDecoders();
     }
 
     protected ThingBuilder initializeOptionalChannel(ThingHandlerCallback callback, ThingBuilder builder,
@@ -266,18 +342,42 @@ public abstract class OpenMeteoBaseThingHandler extends BaseThingHandler {
     @Override
     public void dispose() {
         logger.trace("dispose() called.");
+        cancelPendingRequest();
+        cancelPacedUpdate();
+        clearSnapshot();
+        publishedTimeSeries.clear();
         super.dispose();
     }
 
     @Override
     public void channelLinked(ChannelUID channelUID) {
         logger.trace("channelLinked({}) called.", channelUID.getAsString());
+        clearChannelDecoders();
+        if (isLinkedChannelsOnly()) {
+            clearRequestPlan();
+        }
 
         if (thing.getStatus() == ThingStatus.ONLINE) {
             handleCommand(channelUID, RefreshType.REFRESH);
         }
     }
 
+    @Override
+    public void handleRemoval() {
+        deleteStoredResponse();
+        super.handleRemoval();
+    }
+
+    @Override
+    public void channelUnlinked(ChannelUID channelUID) {
+        logger.trace("channelUnlinked({}) called.", channelUID.getAsString());
+        clearChannelDecoders();
+        publishedTimeSeries.remove(channelUID);
+        if (isLinkedChannelsOnly()) {
+            clearRequestPlan();
+        }
+    }
+
     @Override
     public void handleConfigurationUpdate(Map<String, Object> configurationParameters) {
         if (isInitialized()) { // prevents change of address
@@ -288,8 +388,9 @@ public abstract class OpenMeteoBaseThingHandler extends BaseThingHandler {
                         configurationParameter.getKey());
                 configuration.put(configurationParameter.getKey(), configurationParameter.getValue());
             }
-            // persist new configuration and reinitialize handler
+            // persist new configuration and reinitialize handler, the stored response may not match it anymore
             dispose();
+            deleteStoredResponse();
             updateConfiguration(configuration);
             initialize();
         } else {
@@ -329,6 +430,8 @@ public abstract class OpenMeteoBaseThingHandler extends BaseThingHandler {
                 logger.trace("handleCommand() nothing yet to do as thing is not initialized.");
             } else {
                 if (command instanceof RefreshType) {
+                    // a refresh publishes the whole time series again
+                    publishedTimeSeries.remove(channelUID);
                     updateChannel(channelUID);
                 } else {
                     logger.debug("The Open Meteo binding is a read-only binding and cannot handle command '{}'.",
@@ -339,203 +442,942 @@ public abstract class OpenMeteoBaseThingHandler extends BaseThingHandler {
     }
 
     /**
-     * Updates OpenMeteo data for this location.
+     * Updates OpenMeteo data for this location once the given request completes.
+     * The request is cancelled if this thing is disposed before it completes.
+     * <P>
+     * The response is decoded in the decode stage, waiting in its backlog while it is full, then the channels are
+     * updated in the publish stage. Decoding waits while the publish stage is full.
      *
-     * @param connection {@link OpenMeteoConnection} instance
+     * @param connection {@link OpenMeteoConnection} instance the request was sent to
+     * @param request the pending request, it must not be shared with other things as it may get cancelled
+     * @param index the index of the response for the location of this thing
+     * @param decodeStage the stage decoding the response
+     * @param publishStage the stage updating the channels
+     * @return a future completed once the response has been decoded and handed to the publish stage
      */
-    public void updateData(OpenMeteoConnection connection) {
-        try {
-            if (requestData(connection)) {
-                updateChannels();
-                updateStatus(ThingStatus.ONLINE);
+    public CompletableFuture<@Nullable Void> updateDataAsync(OpenMeteoConnection connection,
+            CompletableFuture<List<@Nullable WeatherApiResponse>> request, int index,
+            OpenMeteoPipelineStage decodeStage, OpenMeteoPipelineStage publishStage) {
+        setPendingRequest(request);
+
+        // the thread that received the response goes back to the HTTP client right away
+        return request.handleAsync((responses, error) -> {
+            clearPendingRequest(request);
+            WeatherApiResponse response = (error == null) ? responses.get(index) : null;
+            if (response != null) {
+                OpenMeteoForecastSnapshot localSnapshot = decodeData(connection, response);
+                publishStage.execute(() -> publishData(localSnapshot));
+            } else if (error == null) {
+                // the data retrieved before is kept rather than replaced by an empty one
+                logger.debug("The response holds no data for thing '{}'.", getThing().getUID());
+                updateDataFailed(new CommunicationException("@text/offline.comm-error-missing-response"));
+            } else {
+                Throwable cause = (error instanceof CompletionException && error.getCause() != null)
+                        ? error.getCause()
+                        : error;
+                if (cause instanceof CancellationException) {
+                    logger.debug("Update of thing '{}' was cancelled.", getThing().getUID());
+                } else {
+                    updateDataFailed(cause);
+                }
             }
-        } catch (CommunicationException e) {
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, e.getRawMessage());
-        } catch (ConfigurationException e) {
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, e.getRawMessage());
+            return null;
+        }, decodeStage::executeWhenFree);
+    }
+
+    private synchronized void setPendingRequest(CompletableFuture<?> request) {
+        var pendingRequest = this.pendingRequest;
+        if (pendingRequest != null && pendingRequest != request) {
+            pendingRequest.cancel(true);
         }
+        this.pendingRequest = request;
+    }
+
+    private synchronized void clearPendingRequest(CompletableFuture<?> request) {
+        if (pendingRequest == request) {
+            pendingRequest = null;
+        }
+    }
+
+    private synchronized void cancelPendingRequest() {
+        var pendingRequest = this.pendingRequest;
+        if (pendingRequest != null) {
+            logger.debug("Cancelling pending request of thing '{}'.", getThing().getUID());
+            pendingRequest.cancel(true);
+            this.pendingRequest = null;
+        }
+    }
+
+    /**
+     * Updates OpenMeteo data for this location from a response that was retrieved on its behalf, usually as part
+     * of a request shared with other things.
+     *
+     * @param connection {@link OpenMeteoConnection} instance the response was retrieved from
+     * @param response the response for the location of this thing
+     */
+    public void updateData(OpenMeteoConnection connection, WeatherApiResponse response) {
+        publishData(decodeData(connection, response));
     }
 
-    protected abstract WeatherApiResponse requestData(OpenMeteoConnection connection, PointType location)
-            throws CommunicationException, ConfigurationException;
+    /**
+     * Builds the snapshot of the given response
+     *
+     * @return the snapshot to publish, or null if the response holds the same data as the previous one
+     */
+    private @Nullable OpenMeteoForecastSnapshot decodeData(OpenMeteoConnection connection,
+            WeatherApiResponse response) {
+        // refreshes of the same thing are applied one after the other, commands reading the snapshot meanwhile
+        // get either the previous one or the new one
+        synchronized (updateLock) {
+            return setForecastData(connection, response);
+        }
+    }
 
     /**
-     * Requests the data from Open Meteo API.
+     * Updates the channels from the given snapshot, unless a more recent one was built meanwhile as it is then
+     * published by its own call
+     *
+     * @param snapshot the snapshot to publish, null if the response was unchanged
+     */
+    private void publishData(@Nullable OpenMeteoForecastSnapshot snapshot) {
+        synchronized (updateLock) {
+            if (snapshot != null && this.snapshot == snapshot) {
+                updateChannels(snapshot);
+            }
+            updateStatus(ThingStatus.ONLINE);
+        }
+
+        OpenMeteoBridgeHandler bridgeHandler = getBridgeHandler();
+        if (bridgeHandler != null) {
+            bridgeHandler.refreshSucceeded(getThing().getUID(), isRefreshIntervalAdaptive());
+        }
+    }
+
+    /**
+     * Reports an error that occurred while retrieving the data on behalf of this thing.
+     *
+     * @param e the exception that was raised
+     */
+    protected void updateDataFailed(Throwable e) {
+        if (e instanceof OpenMeteoCircuitOpenException) {
+            // the data retrieved before, or stored before a restart, is still the most recent one
+            restoreSnapshot();
+        }
+
+        if (e instanceof OpenMeteoCircuitOpenException && snapshot != null) {
+            logger.debug("Keeping the data of thing '{}': {}", getThing().getUID(), e.getMessage());
+            updateStatus(ThingStatus.ONLINE, ThingStatusDetail.NONE, "@text/online.serving-cached-data");
+        } else if (e instanceof ConfigurationException) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                    ((ConfigurationException) e).getRawMessage());
+        } else if (e instanceof CommunicationException) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
+                    ((CommunicationException) e).getRawMessage());
+        } else {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, e.getMessage());
+        }
+
+        OpenMeteoBridgeHandler bridgeHandler = getBridgeHandler();
+        if (bridgeHandler != null) {
+            bridgeHandler.refreshFailed(getThing().getUID());
+        }
+    }
+
+    public @Nullable PointType getLocation() {
+        return location;
+    }
+
+    /**
+     * Returns the delay until the next refresh of this thing. When blocks have their own cadence, it is the delay
+     * until the next boundary at which one of them may have changed. Otherwise, when the models of the thing are
+     * in the model run schedule of the bridge, it is the delay until one of them has a new run available, and
+     * the refresh interval of the thing in all other cases.
+     *
+     * @return the delay, null to use the refresh interval of the bridge
+     */
+    public @Nullable Duration getRefreshInterval() {
+        Set<Block> cadencedBlocks = getCadencedBlocks();
+        if (!cadencedBlocks.isEmpty()) {
+            long now = Instant.now().getEpochSecond();
+            long delay = Long.MAX_VALUE;
+            for (Block block : cadencedBlocks) {
+                long cadence = getBlockCadence(block).getSeconds();
+                delay = Math.min(delay, cadence - Math.floorMod(now, cadence));
+            }
+            return Duration.ofSeconds(delay + BLOCK_BOUNDARY_MARGIN_IN_SECONDS);
+        }
+
+        OpenMeteoBridgeHandler bridgeHandler = getBridgeHandler();
+        OpenMeteoModelRunSchedule modelRunSchedule = (bridgeHandler != null) ? bridgeHandler.getModelRunSchedule()
+                : null;
+        if (modelRunSchedule != null) {
+            Duration delay = modelRunSchedule.getDelayUntilNextRun(getModels(), Instant.now());
+            if (delay != null) {
+                return delay;
+            }
+        }
+
+        int refreshInterval = this.refreshInterval;
+        return (refreshInterval > 0) ? Duration.ofMinutes(refreshInterval) : null;
+    }
+
+    /**
+     * @return true if the refresh interval depends on the data received, it is then read again after each refresh
+     */
+    protected boolean isRefreshIntervalAdaptive() {
+        return false;
+    }
+
+    /**
+     * @return the comma separated list of models asked for, null or blank for the default ones
+     */
+    protected @Nullable String getModels() {
+        return null;
+    }
+
+    /**
+     * Returns the blocks that are retrieved at their own cadence instead of all at once at each refresh, none by
+     * default. It is called several times per refresh, the blocks are best read once from the configuration.
+     *
+     * @return the blocks, an empty set if the blocks are all retrieved at each refresh
+     */
+    protected Set<Block> getCadencedBlocks() {
+        return EnumSet.noneOf(Block.class);
+    }
+
+    /**
+     * Returns how often the data of the given block may change. A block is retrieved again once the wall clock has
+     * crossed a multiple of its cadence since it was last retrieved.
+     *
+     * @param block the block
+     * @return the cadence
+     */
+    protected Duration getBlockCadence(Block block) {
+        return switch (block) {
+            case CURRENT, MINUTELY_15 -> Duration.ofMinutes(15);
+            case HOURLY -> Duration.ofHours(1);
+            case DAILY -> Duration.ofHours(6);
+        };
+    }
+
+    /**
+     * Returns the blocks to retrieve at this refresh, to be called once per refresh as it depends on the current
+     * time
+     *
+     * @return the blocks due, all of them unless blocks have their own cadence
+     */
+    public synchronized Set<Block> getDueBlocks() {
+        Set<Block> cadencedBlocks = getCadencedBlocks();
+        if (cadencedBlocks.isEmpty()) {
+            return EnumSet.allOf(Block.class);
+        }
+
+        long now = Instant.now().getEpochSecond();
+        EnumSet<Block> dueBlocks = EnumSet.noneOf(Block.class);
+        for (Block block : cadencedBlocks) {
+            Instant fetchTime = blockFetchTimes.get(block);
+            long cadence = getBlockCadence(block).getSeconds();
+            if (fetchTime == null
+                    || Math.floorDiv(now, cadence) != Math.floorDiv(fetchTime.getEpochSecond(), cadence)) {
+                dueBlocks.add(block);
+            }
+        }
+
+        // a refresh asked for outside of the cadence gets everything
+        return dueBlocks.isEmpty() ? EnumSet.copyOf(cadencedBlocks) : dueBlocks;
+    }
+
+    /**
+     * Tells whether the request plan being prepared includes the given block, to be called from
+     * {@link #createRequestPlan(OpenMeteoConnection)}
+     */
+    protected synchronized boolean isBlockRequested(Block block) {
+        return requestPlanBlocks.contains(block);
+    }
+
+    /**
+     * Records the time at which the blocks held by the given response were retrieved
+     *
+     * @return true if the response holds all the blocks
+     */
+    private synchronized boolean setBlockFetchTimes(WeatherApiResponse response, Instant fetchTime) {
+        if (response.getByteBuffer() == null) {
+            return true;
+        }
+
+        boolean allBlocks = true;
+        for (Block block : getCadencedBlocks()) {
+            if (OpenMeteoForecastSnapshot.Builder.getVariables(response, block) != null) {
+                blockFetchTimes.put(block, fetchTime);
+            } else {
+                allBlocks = false;
+            }
+        }
+        return allBlocks;
+    }
+
+    private synchronized void clearBlockFetchTimes() {
+        blockFetchTimes.clear();
+    }
+
+    private @Nullable OpenMeteoBridgeHandler getBridgeHandler() {
+        Bridge bridge = getBridge();
+        return (bridge == null) ? null : (OpenMeteoBridgeHandler) bridge.getHandler();
+    }
+
+    /**
+     * Returns a key that is identical for all things sending the exact same request apart from their location.
+     * Things with the same key can be retrieved together with a single request.
+     *
+     * @param dueBlocks the blocks due at this refresh, as returned by {@link #getDueBlocks()}
+     * @return the batch key
+     */
+    public synchronized String getBatchKey(Set<Block> dueBlocks) {
+        var batchKey = this.batchKey;
+        if (batchKey == null) {
+            batchKey = createBatchKey();
+            this.batchKey = batchKey;
+        }
+
+        // things due for different blocks do not send the same request
+        if (!getCadencedBlocks().isEmpty()) {
+            return batchKey + "|blocks=" + dueBlocks;
+        }
+        return batchKey;
+    }
+
+    private String createBatchKey() {
+
+        StringBuilder key = new StringBuilder(getThing().getThingTypeUID().getAsString());
+
+        Configuration configuration = getConfig();
+        for (String name : new TreeSet<>(configuration.keySet())) {
+            if (!PROPERTY_THING_LOCATION.equals(name) && !CONFIG_THING_REFRESH_INTERVAL.equals(name)) {
+                key.append('|').append(name).append('=').append(configuration.get(name));
+            }
+        }
+
+        // things linked to different channels do not send the same request
+        if (isLinkedChannelsOnly()) {
+            key.append("|linked=").append(createSnapshotBuilder().getVariables());
+        }
+
+        // neither do things that pruned different variables
+        var pruner = this.pruner;
+        if (pruner != null) {
+            key.append("|pruned=").append(pruner.getPrunedVariables());
+        }
+
+        // elevation is either given for all locations in a request or none
+        var location = this.location;
+        if (location != null && location.getAltitude().longValue() != 0) {
+            key.append("|elevation");
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Requests the data from Open Meteo API for the given locations, using the configuration of this thing.
      *
      * @param connection {@link OpenMeteoConnection} instance
-     * @return true, if the request for the Open Meteo data was successful
+     * @param locations the locations to retrieve data for
+     * @param dueBlocks the blocks due at this refresh, as returned by {@link #getDueBlocks()}
+     * @return a future completed with one response per location, in the same order, null for a location missing
+     *         from the response
      * @throws CommunicationException if there is a problem retrieving the data
      * @throws ConfigurationException if there is a configuration error
      */
-    protected boolean requestData(OpenMeteoConnection connection)
-            throws CommunicationException, ConfigurationException {
-        logger.debug("Update weather and forecast data of thing '{}'.", getThing().getUID());
+    protected CompletableFuture<List<@Nullable WeatherApiResponse>> requestDataAsync(OpenMeteoConnection connection,
+            List<PointType> locations, Set<Block> dueBlocks) throws CommunicationException, ConfigurationException {
+        var pruner = this.pruner;
+        if (pruner != null && pruner.expire(Instant.now())) {
+            logger.debug("Checking again pruned variables of thing '{}'.", getThing().getUID());
+            clearRequestPlan();
+            updatePrunedVariablesProperty(pruner);
+        }
+        return connection.requestAsync(getRequestPlan(connection, dueBlocks), locations);
+    }
 
-        var location = this.location;
-        if (location != null) {
-            forecastData = requestData(connection, location);
+    /**
+     * Returns the request matching the configuration of this thing and the blocks due, preparing it on first use
+     * after the thing was initialized.
+     *
+     * @param connection {@link OpenMeteoConnection} instance the request will be sent to
+     * @param dueBlocks the blocks to retrieve
+     * @return the request plan
+     */
+    protected synchronized OpenMeteoRequestPlan getRequestPlan(OpenMeteoConnection connection,
+            Set<Block> dueBlocks) {
+        if (requestPlanConnection != connection) {
+            requestPlans.clear();
+            requestPlanConnection = connection;
+        }
 
-            var now = OffsetDateTime.now(ZoneOffset.UTC).withNano(0);
-            thing.setProperty(PROPERTY_THING_LAST_UPDATED, DateTimeFormatter.ISO_DATE_TIME.format(now));
+        OpenMeteoRequestPlan requestPlan = requestPlans.get(dueBlocks);
+        if (requestPlan == null) {
+            requestPlanBlocks = dueBlocks;
+            requestPlan = createRequestPlan(connection);
+            requestPlans.put(dueBlocks, requestPlan);
         }
+        return requestPlan;
+    }
 
-        return true;
+    private synchronized void clearRequestPlan() {
+        requestPlans.clear();
+        requestPlanConnection = null;
+        requestPlanBlocks = EnumSet.allOf(Block.class);
+        batchKey = null;
     }
 
     /**
-     * Updates all channels of this handler from the latest Open Meteo data retrieved.
+     * Prepares the request matching the configuration of this thing
+     *
+     * @param connection {@link OpenMeteoConnection} instance the request will be sent to
+     * @return the request plan
+     */
+    protected abstract OpenMeteoRequestPlan createRequestPlan(OpenMeteoConnection connection);
+
+    /**
+     * Builds the snapshot of the given response and publishes it for the channels to read
+     *
+     * @param connection {@link OpenMeteoConnection} instance the response was retrieved from
+     * @param response the response for the location of this thing, it is released before returning
+     * @return the published snapshot, or null if the response holds the same data as the previous one
      */
-    private void updateChannels() {
-        for (Channel channel : getThing().getChannels()) {
-            ChannelUID channelUID = channel.getUID();
-            if (ChannelKind.STATE.equals(channel.getKind()) && channelUID.isInGroup() && channelUID.getGroupId() != null
-                    && isLinked(channelUID)) {
-                updateChannel(channelUID);
+    protected @Nullable OpenMeteoForecastSnapshot setForecastData(OpenMeteoConnection connection,
+            WeatherApiResponse response) {
+        Instant fetchTime = Instant.now();
+        try {
+            boolean allBlocks = setBlockFetchTimes(response, fetchTime);
+
+            long digest = OpenMeteoResponseDigest.compute(response);
+            boolean unchanged = isUnchanged(digest);
+
+            // a partial response would replace the blocks stored before with nothing
+            OpenMeteoResponseStore responseStore = getResponseStore();
+            if (responseStore != null && allBlocks) {
+                String name = getThing().getUID().getAsString();
+                if (unchanged) {
+                    responseStore.setFetchTime(name, fetchTime);
+                } else {
+                    responseStore.save(name, response, fetchTime);
+                }
             }
+
+            if (unchanged) {
+                // the channels already have these values, there is nothing to decode nor publish
+                long count = unchangedResponseCount.incrementAndGet();
+                logger.trace("Response for thing '{}' is unchanged, skipped {} so far.", getThing().getUID(), count);
+                thing.setProperty(PROPERTY_THING_UNCHANGED_RESPONSES, Long.toString(count));
+                setLastUpdated(fetchTime);
+                return null;
+            }
+
+            var pruner = this.pruner;
+            // a variable may only have values in the blocks missing from a partial response
+            if (pruner != null && allBlocks && pruner.observe(response, fetchTime)) {
+                clearRequestPlan();
+                updatePrunedVariablesProperty(pruner);
+            }
+
+            return setForecastData(response, fetchTime, digest);
+        } finally {
+            // only the values read by the linked channels are kept, the response gives its memory back to the
+            // connection instead of staying around until the next refresh
+            connection.release(response);
         }
     }
 
+    private OpenMeteoForecastSnapshot setForecastData(WeatherApiResponse response, Instant fetchTime, long digest) {
+        // blocks retrieved at their own cadence are kept from the previous snapshot until retrieved again
+        OpenMeteoForecastSnapshot previousSnapshot = getCadencedBlocks().isEmpty() ? null : snapshot;
+        OpenMeteoForecastSnapshot localSnapshot = createSnapshotBuilder().build(response,
+                snapshotVersion.incrementAndGet(), fetchTime, previousSnapshot);
+        snapshot = localSnapshot;
+        snapshotRefreshRequested.set(false);
+        responseDigest = digest;
+
+        setLastUpdated(fetchTime);
+        return localSnapshot;
+    }
+
     /**
-     * Updates the channel with the given UID from the latest Open Meteo data retrieved.
-     *
-     * @param channelUID UID of the channel
+     * Tells whether a response with the given digest would give the snapshot already published. It never does
+     * when the snapshot is missing columns read by the channels.
      */
-    protected abstract void updateChannel(ChannelUID channelUID);
+    private boolean isUnchanged(long digest) {
+        return digest != OpenMeteoResponseDigest.NONE && digest == responseDigest && snapshot != null
+                && !snapshotRefreshRequested.get();
+    }
 
-    protected void updateForecastTimeSeries(ChannelUID channelUID, @Nullable VariablesWithTime forecast) {
-        StringBuilder channelId = new StringBuilder(channelUID.getIdWithoutGroup());
-        String channelGroupId = channelUID.getGroupId();
+    private void setLastUpdated(Instant fetchTime) {
+        var now = OffsetDateTime.ofInstant(fetchTime, ZoneOffset.UTC).withNano(0);
+        thing.setProperty(PROPERTY_THING_LAST_UPDATED, DateTimeFormatter.ISO_DATE_TIME.format(now));
+    }
 
-        if (forecast == null) {
-            logger.debug("Forecast is null for {}", channelUID);
-        } else {
-            VariableWithValues values = getVariableValues(channelId, forecast);
-            if (values == null) {
-                logger.warn("No values for channel '{}' of group '{}'", channelId, channelGroupId);
-            } else {
-                TimeSeries timeSeries = new TimeSeries(TimeSeries.Policy.REPLACE);
-                long time = forecast.time();
-                int valuesLength = Math.max(values.valuesLength(), values.valuesInt64Length());
-                for (int valueIndex = 0; valueIndex < valuesLength; valueIndex++) {
-                    Instant timestamp = Instant.ofEpochSecond(time);
-                    State state = getForecastState(channelId.toString(), values, valueIndex, forecast);
-
-                    if (state == UnDefType.NULL || state == UnDefType.UNDEF) {
-                        logger.debug("state is NULL or UNDEF for channel '{}' of group '{}' at time {}.", channelId,
-                                channelGroupId, timestamp.toString());
-                    } else {
-                        logger.debug("adding state {} at timestamp {}", state, timestamp);
-                        timeSeries.add(timestamp, state);
-                    }
+    /**
+     * @return the latest snapshot, null if no response was received since the thing was initialized
+     */
+    protected @Nullable OpenMeteoForecastSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Publishes the response stored by a previous run, if recent enough, so that the channels get their values
+     * without waiting for the first refresh
+     */
+    private void restoreSnapshot() {
+        OpenMeteoResponseStore responseStore = getResponseStore();
+        if (responseStore == null || snapshot != null) {
+            return;
+        }
+
+        StoredResponse storedResponse = responseStore.load(getThing().getUID().getAsString());
+        if (storedResponse != null) {
+            logger.debug("Restoring data of thing '{}' received at {}.", getThing().getUID(),
+                    storedResponse.getFetchTime());
+            synchronized (updateLock) {
+                // a refresh may have completed in the meantime, its data is more recent
+                if (snapshot == null) {
+                    WeatherApiResponse response = storedResponse.getResponse();
+                    updateChannels(setForecastData(response, storedResponse.getFetchTime(),
+                            OpenMeteoResponseDigest.compute(response)));
+                }
+            }
+        }
+    }
+
+    private void deleteStoredResponse() {
+        OpenMeteoResponseStore responseStore = getResponseStore();
+        if (responseStore != null) {
+            responseStore.delete(getThing().getUID().getAsString());
+        }
+    }
+
+    private @Nullable OpenMeteoResponseStore getResponseStore() {
+        Bridge bridge = getBridge();
+        OpenMeteoBridgeHandler bridgeHandler = (bridge == null) ? null
+                : (OpenMeteoBridgeHandler) bridge.getHandler();
+        return (bridgeHandler == null) ? null : bridgeHandler.getResponseStore();
+    }
+
+    private void clearSnapshot() {
+        snapshot = null;
+        snapshotRefreshRequested.set(false);
+        responseDigest = OpenMeteoResponseDigest.NONE;
+        clearBlockFetchTimes();
+    }
+
+    /**
+     * @return a builder asking for the values read by the linked channels and by the handler itself
+     */
+    private OpenMeteoForecastSnapshot.Builder createSnapshotBuilder() {
+        OpenMeteoForecastSnapshot.Builder builder = new OpenMeteoForecastSnapshot.Builder();
+        for (OpenMeteoChannelDecoder decoder : getLinkedChannelDecoders()) {
+            addSnapshotColumns(builder, decoder);
+        }
+        addSnapshotColumns(builder);
+        return builder;
+    }
+
+    /**
+     * Tells whether the requests only retrieve the variables read by the linked channels, instead of all the
+     * variables included by the configuration
+     */
+    protected boolean isLinkedChannelsOnly() {
+        Bridge bridge = getBridge();
+        OpenMeteoBridgeHandler bridgeHandler = (bridge == null) ? null
+                : (OpenMeteoBridgeHandler) bridge.getHandler();
+        return bridgeHandler != null && bridgeHandler.isLinkedChannelsOnly();
+    }
+
+    /**
+     * @return the maximum number of channels updated per second, 0 if the channels are all updated at once
+     */
+    protected int getMaxChannelUpdatesPerSecond() {
+        Bridge bridge = getBridge();
+        OpenMeteoBridgeHandler bridgeHandler = (bridge == null) ? null
+                : (OpenMeteoBridgeHandler) bridge.getHandler();
+        return (bridgeHandler != null) ? bridgeHandler.getMaxChannelUpdatesPerSecond() : 0;
+    }
+
+    /**
+     * Tells whether the time series channels only send the points that changed since the previous update
+     */
+    protected boolean isTimeSeriesDiff() {
+        Bridge bridge = getBridge();
+        OpenMeteoBridgeHandler bridgeHandler = (bridge == null) ? null
+                : (OpenMeteoBridgeHandler) bridge.getHandler();
+        return bridgeHandler != null && bridgeHandler.isTimeSeriesDiff();
+    }
+
+    /**
+     * @return the number of consecutive empty responses after which a variable is left out of the requests, 0 if
+     *         variables are never left out
+     */
+    protected int getEmptyVariablePruneThreshold() {
+        Bridge bridge = getBridge();
+        OpenMeteoBridgeHandler bridgeHandler = (bridge != null) ? (OpenMeteoBridgeHandler) bridge.getHandler()
+                : null;
+        return (bridgeHandler != null) ? bridgeHandler.getEmptyVariablePruneThreshold() : 0;
+    }
+
+    /**
+     * Removes the values that no linked channel reads when the requests only retrieve those, then the values whose
+     * variables all kept coming back empty
+     *
+     * @param values the values included by the configuration
+     * @param valueOfVariable gives the value retrieving a {@link com.openmeteo.sdk.Variable}, null if there is none
+     * @return the values to retrieve
+     */
+    protected <E extends Enum<E>> EnumSet<E> retainRequestedValues(EnumSet<E> values,
+            IntFunction<@Nullable E> valueOfVariable) {
+        EnumSet<E> result = values;
+        if (isLinkedChannelsOnly()) {
+            result = EnumSet.copyOf(values);
+            result.clear();
+            for (int variable : createSnapshotBuilder().getVariables()) {
+                E value = valueOfVariable.apply(variable);
+                if (value != null) {
+                    result.add(value);
+                }
+            }
+            result.retainAll(values);
+            logger.debug("Retrieving {} of the {} included values for the linked channels of thing '{}'.",
+                    result.size(), values.size(), getThing().getUID());
+        }
 
-                    time += forecast.interval();
+        var pruner = this.pruner;
+        if (pruner != null) {
+            // a value is only left out when all the variables it retrieves are empty
+            Set<Integer> prunedVariables = pruner.getPrunedVariables();
+            Map<E, Boolean> prunedValues = new HashMap<>();
+            for (int variable : pruner.getObservedVariables()) {
+                E value = valueOfVariable.apply(variable);
+                if (value != null) {
+                    prunedValues.merge(value, prunedVariables.contains(variable), Boolean::logicalAnd);
                 }
+            }
+            prunedValues.values().removeIf(pruned -> !pruned);
+            if (!prunedValues.isEmpty()) {
+                result = EnumSet.copyOf(result);
+                result.removeAll(prunedValues.keySet());
+                logger.debug("Leaving out values {} of thing '{}', they kept coming back empty.",
+                        prunedValues.keySet(), getThing().getUID());
+            }
+        }
+        return result;
+    }
+
+    private void updatePrunedVariablesProperty(OpenMeteoVariablePruner pruner) {
+        updateProperty(PROPERTY_THING_PRUNED_VARIABLES, pruner.getPrunedVariables().stream().map(Variable::name)
+                .collect(Collectors.joining(",")));
+    }
+
+    /**
+     * Asks for the values read by the given channel to be kept in the snapshot built from the next responses.
+     * Handlers whose channels read more than their own variable add the other ones here.
+     *
+     * @param builder the builder of the snapshot
+     * @param decoder the decoder of a linked channel
+     */
+    protected void addSnapshotColumns(OpenMeteoForecastSnapshot.Builder builder, OpenMeteoChannelDecoder decoder) {
+        builder.add(decoder.getBlock(), decoder.getVariable(), decoder.getAggregation());
+    }
 
-                logger.debug("Update channel '{}' of group '{}' with new time-series '{}'.", channelId, channelGroupId,
-                        timeSeries);
-                sendTimeSeries(channelUID, timeSeries);
+    /**
+     * Asks for the values read by the handler itself to be kept in the snapshot built from the next responses,
+     * whatever the linked channels. None by default.
+     *
+     * @param builder the builder of the snapshot
+     */
+    protected void addSnapshotColumns(OpenMeteoForecastSnapshot.Builder builder) {
+    }
+
+    /**
+     * Updates all channels of this handler from the given snapshot.
+     *
+     * @param snapshot the snapshot to read the values from
+     */
+    private void updateChannels(OpenMeteoForecastSnapshot snapshot) {
+        cancelPacedUpdate();
+
+        OpenMeteoChannelDecoder[] decoders = getLinkedChannelDecoders();
+        int maxUpdatesPerSecond = getMaxChannelUpdatesPerSecond();
+        if (maxUpdatesPerSecond <= 0 || decoders.length <= maxUpdatesPerSecond) {
+            for (OpenMeteoChannelDecoder decoder : decoders) {
+                updateChannel(snapshot, decoder);
             }
+        } else {
+            logger.debug("Pacing the update of {} channels of thing '{}' to {} per second.", decoders.length,
+                    getThing().getUID(), maxUpdatesPerSecond);
+            updateChannels(snapshot, decoders, 0, maxUpdatesPerSecond);
         }
     }
 
-    protected void updateHourlyTimeSeries(ChannelUID channelUID) {
-        var forecastData = this.forecastData;
-        if (forecastData == null) {
-            logger.debug("forecastData is null for {}", channelUID);
+    /**
+     * Updates the given number of channels starting at the given position, then schedules the update of the next
+     * ones one second later. Must be called with the update lock held.
+     */
+    private void updateChannels(OpenMeteoForecastSnapshot snapshot, OpenMeteoChannelDecoder[] decoders, int start,
+            int count) {
+        int end = Math.min(start + count, decoders.length);
+        for (int position = start; position < end; position++) {
+            updateChannel(snapshot, decoders[position]);
+        }
+
+        if (end < decoders.length) {
+            pacedUpdateJob = scheduler.schedule(() -> {
+                synchronized (updateLock) {
+                    // a more recent snapshot restarts the publication from the near-term channels
+                    if (this.snapshot == snapshot) {
+                        updateChannels(snapshot, decoders, end, count);
+                    }
+                }
+            }, 1, TimeUnit.SECONDS);
         } else {
-            updateForecastTimeSeries(channelUID, forecastData.hourly());
+            pacedUpdateJob = null;
+        }
+    }
+
+    private void cancelPacedUpdate() {
+        var pacedUpdateJob = this.pacedUpdateJob;
+        if (pacedUpdateJob != null) {
+            pacedUpdateJob.cancel(false);
+            this.pacedUpdateJob = null;
         }
     }
 
-    protected void updateDailyTimeSeries(ChannelUID channelUID) {
-        var forecastData = this.forecastData;
-        if (forecastData == null) {
-            logger.debug("forecastData is null for {}", channelUID);
+    /**
+     * Updates the channel with the given UID from the latest Open Meteo data retrieved.
+     *
+     * @param channelUID UID of the channel
+     */
+    protected void updateChannel(ChannelUID channelUID) {
+        OpenMeteoChannelDecoder decoder = getChannelDecoder(channelUID);
+        if (decoder != null) {
+            updateChannel(decoder);
+        }
+    }
+
+    /**
+     * Updates the channel described by the given decoder from the latest Open Meteo data retrieved.
+     *
+     * @param decoder the decoder of the channel
+     */
+    protected void updateChannel(OpenMeteoChannelDecoder decoder) {
+        updateChannel(snapshot, decoder);
+    }
+
+    /**
+     * Updates the channel described by the given decoder from the given snapshot.
+     *
+     * @param snapshot the snapshot to read the values from
+     * @param decoder the decoder of the channel
+     */
+    protected void updateChannel(@Nullable OpenMeteoForecastSnapshot snapshot, OpenMeteoChannelDecoder decoder) {
+        if (snapshot == null) {
+            logger.debug("forecastData is null for {}", decoder.getChannelUID());
+        } else if (!CHANNEL_FORECAST_TIME_STAMP.equals(decoder.getChannelId())
+                && !snapshot.isRequested(decoder.getBlock(), decoder.getVariable(), decoder.getAggregation())) {
+            // the channel was linked after the snapshot was built, its values were not kept
+            logger.debug("No values kept for {}, requesting a refresh", decoder.getChannelUID());
+            requestSnapshotRefresh();
         } else {
-            updateForecastTimeSeries(channelUID, forecastData.daily());
+            var forecast = snapshot.getBlock(decoder.getBlock());
+            if (forecast == null) {
+                logger.debug("Forecast is null for {}", decoder.getChannelUID());
+            } else if (decoder.isTimeSeries()) {
+                updateForecastTimeSeries(decoder, forecast);
+            } else {
+                updateForecastChannel(decoder, forecast);
+            }
         }
     }
 
-    protected void updateMinutely15TImeSeries(ChannelUID channelUID) {
-        var forecastData = this.forecastData;
-        if (forecastData == null) {
-            logger.debug("forecastData is null for {}", channelUID);
+    /**
+     * Asks the bridge to refresh this thing, once until the next snapshot is built
+     */
+    private void requestSnapshotRefresh() {
+        if (!snapshotRefreshRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        // the block of the channel may not be due, all of them are retrieved again
+        clearBlockFetchTimes();
+
+        Bridge bridge = getBridge();
+        OpenMeteoBridgeHandler bridgeHandler = (bridge == null) ? null
+                : (OpenMeteoBridgeHandler) bridge.getHandler();
+        if (bridgeHandler != null) {
+            bridgeHandler.refreshThing(this);
         } else {
-            updateForecastTimeSeries(channelUID, forecastData.minutely15());
+            snapshotRefreshRequested.set(false);
+        }
+    }
+
+    /**
+     * Returns the decoders of the channels that are currently linked, resolving them if needed.
+     */
+    private OpenMeteoChannelDecoder[] getLinkedChannelDecoders() {
+        synchronized (channelDecodersLock) {
+            var linkedChannelDecoders = this.linkedChannelDecoders;
+            if (linkedChannelDecoders == null) {
+                List<OpenMeteoChannelDecoder> decoders = new ArrayList<>();
+                for (Channel channel : getThing().getChannels()) {
+                    ChannelUID channelUID = channel.getUID();
+                    if (ChannelKind.STATE.equals(channel.getKind()) && channelUID.isInGroup()
+                            && channelUID.getGroupId() != null && isLinked(channelUID)) {
+                        OpenMeteoChannelDecoder decoder = getChannelDecoder(channelUID);
+                        if (decoder != null) {
+                            decoders.add(decoder);
+                        }
+                    }
+                }
+                // near-term channels first, they are the first ones published when updates are paced
+                decoders.sort(Comparator.comparingLong(OpenMeteoChannelDecoder::getHorizon));
+                linkedChannelDecoders = decoders.toArray(new OpenMeteoChannelDecoder[0]);
+                this.linkedChannelDecoders = linkedChannelDecoders;
+            }
+            return linkedChannelDecoders;
         }
     }
 
-    protected void updateForecastChannel(ChannelUID channelUID, @Nullable VariablesWithTime forecast,
+    private @Nullable OpenMeteoChannelDecoder getChannelDecoder(ChannelUID channelUID) {
+        synchronized (channelDecodersLock) {
+            OpenMeteoChannelDecoder decoder = channelDecoders.get(channelUID);
+            if (decoder == null) {
+                decoder = createChannelDecoder(channelUID);
+                if (decoder != null) {
+                    channelDecoders.put(channelUID, decoder);
+                }
+            }
+            return decoder;
+        }
+    }
+
+    /**
+     * Forgets the decoders so that they are resolved again, to be called when the channels or their links change
+     */
+    protected void clearChannelDecoders() {
+        synchronized (channelDecodersLock) {
+            channelDecoders.clear();
+            linkedChannelDecoders = null;
+            // the next response must be decoded for the columns of the channels linked since
+            responseDigest = OpenMeteoResponseDigest.NONE;
+        }
+    }
+
+    /**
+     * Resolves the channel with the given UID into a decoder, usually by calling
+     * {@link #createChannelDecoder(ChannelUID, Block, boolean, Integer)} with the block matching its group.
+     *
+     * @param channelUID UID of the channel
+     * @return the decoder, or null if the channel is not read from the responses
+     */
+    protected abstract @Nullable OpenMeteoChannelDecoder createChannelDecoder(ChannelUID channelUID);
+
+    protected OpenMeteoChannelDecoder createChannelDecoder(ChannelUID channelUID, Block block, boolean timeSeries,
             @Nullable Integer index) {
-        StringBuilder channelId = new StringBuilder(channelUID.getIdWithoutGroup());
+        String channelId = channelUID.getIdWithoutGroup();
+        int aggregation = Aggregation.none;
+        int suffixPosition = -1;
+        if ((suffixPosition = channelId.lastIndexOf("-min")) >= 0) {
+            aggregation = Aggregation.minimum;
+            channelId = channelId.substring(0, suffixPosition);
+        } else if ((suffixPosition = channelId.lastIndexOf("-max")) >= 0) {
+            aggregation = Aggregation.maximum;
+            channelId = channelId.substring(0, suffixPosition);
+        } else if ((suffixPosition = channelId.lastIndexOf("-mean")) >= 0) {
+            aggregation = Aggregation.mean;
+            channelId = channelId.substring(0, suffixPosition);
+        } else if ((suffixPosition = channelId.lastIndexOf("-sum")) >= 0) {
+            aggregation = Aggregation.sum;
+            channelId = channelId.substring(0, suffixPosition);
+        } else if ((suffixPosition = channelId.lastIndexOf("-dominant")) >= 0) {
+            aggregation = Aggregation.dominant;
+            channelId = channelId.substring(0, suffixPosition);
+        }
+
+        // the time stamp is not read from the variables but computed from the time of the block
+        StateConverter converter = CHANNEL_FORECAST_TIME_STAMP.equals(channelId) ? getUndefConverter()
+                : getStateConverter(channelId);
+
+        return new OpenMeteoChannelDecoder(channelUID, channelId, block, timeSeries, index,
+                getVariableIndex(channelId), aggregation, converter);
+    }
+
+    protected void updateForecastTimeSeries(OpenMeteoChannelDecoder decoder, BlockData forecast) {
+        ChannelUID channelUID = decoder.getChannelUID();
+        String channelId = decoder.getChannelId();
         String channelGroupId = channelUID.getGroupId();
 
-        if (forecast == null) {
-            logger.debug("forecast is null for {}", channelUID);
+        Column values = forecast.find(decoder.getVariable(), decoder.getAggregation());
+        if (values == null) {
+            logger.warn("No values for channel '{}' of group '{}'", channelId, channelGroupId);
         } else {
+            int valuesLength = values.getLength();
             @Nullable
-            State state = null;
+            State[] states = new @Nullable State[valuesLength];
+            for (int valueIndex = 0; valueIndex < valuesLength; valueIndex++) {
+                State state = getForecastState(decoder, values, valueIndex, forecast);
 
-            if (CHANNEL_FORECAST_TIME_STAMP.contentEquals(channelId)) {
-                state = getDateTimeTypeState(forecast.time() + ((index == null) ? 0 : index) * forecast.interval());
-            } else {
-                VariableWithValues values = getVariableValues(channelId, forecast);
-                if (values != null) {
-                    state = getForecastState(channelId.toString(), values, index, forecast);
+                if (state == UnDefType.NULL || state == UnDefType.UNDEF) {
+                    logger.debug("state is NULL or UNDEF for channel '{}' of group '{}' at time {}.", channelId,
+                            channelGroupId, forecast.getTime() + valueIndex * forecast.getInterval());
                 } else {
-                    logger.warn("No values for channel '{}' of group '{}'", channelId, channelGroupId);
+                    states[valueIndex] = state;
                 }
             }
 
-            if (state != null) {
-                logger.debug("Update channel '{}' of group '{}' with new state '{}'.", channelId, channelGroupId,
-                        state);
-                updateState(channelUID, state);
+            OpenMeteoPublishedTimeSeries published = new OpenMeteoPublishedTimeSeries(forecast.getTime(),
+                    forecast.getInterval(), states);
+            OpenMeteoPublishedTimeSeries previous = null;
+            if (isTimeSeriesDiff()) {
+                previous = publishedTimeSeries.put(channelUID, published);
             }
-        }
-    }
 
-    protected void updateCurrentChannel(ChannelUID channelUID) {
-        var forecastData = this.forecastData;
-        if (forecastData == null) {
-            logger.debug("forecastData is null for {}", channelUID);
-        } else {
-            updateForecastChannel(channelUID, forecastData.current(), null);
+            TimeSeries timeSeries = published.getUpdateFrom(previous);
+            if (timeSeries == null) {
+                logger.debug("Time series of channel '{}' of group '{}' is unchanged.", channelId, channelGroupId);
+                return;
+            }
+
+            logger.debug("Update channel '{}' of group '{}' with new time-series '{}'.", channelId, channelGroupId,
+                    timeSeries);
+            sendTimeSeries(channelUID, timeSeries);
         }
     }
 
-    protected abstract int getVariableIndex(String channelId);
-
-    protected @Nullable VariableWithValues getVariableValues(StringBuilder channelId,
-            @Nullable VariablesWithTime variablesWithTime) {
-        if (variablesWithTime != null && variablesWithTime.variablesLength() > 0) {
-            int aggregation = Aggregation.none;
-            int suffixPosition = -1;
-            if ((suffixPosition = channelId.lastIndexOf("-min")) >= 0) {
-                aggregation = Aggregation.minimum;
-                channelId.setLength(suffixPosition);
-            } else if ((suffixPosition = channelId.lastIndexOf("-max")) >= 0) {
-                aggregation = Aggregation.maximum;
-                channelId.setLength(suffixPosition);
-            } else if ((suffixPosition = channelId.lastIndexOf("-mean")) >= 0) {
-                aggregation = Aggregation.mean;
-                channelId.setLength(suffixPosition);
-            } else if ((suffixPosition = channelId.lastIndexOf("-sum")) >= 0) {
-                aggregation = Aggregation.sum;
-                channelId.setLength(suffixPosition);
-            } else if ((suffixPosition = channelId.lastIndexOf("-dominant")) >= 0) {
-                aggregation = Aggregation.dominant;
-                channelId.setLength(suffixPosition);
-            }
+    protected void updateForecastChannel(OpenMeteoChannelDecoder decoder, BlockData forecast) {
+        ChannelUID channelUID = decoder.getChannelUID();
+        String channelId = decoder.getChannelId();
+        String channelGroupId = channelUID.getGroupId();
+        Integer index = decoder.getIndex();
 
-            int variable = getVariableIndex(channelId.toString());
+        @Nullable
+        State state = null;
 
-            return new VariablesSearch(variablesWithTime).variable(variable).aggregation(aggregation).first();
+        if (CHANNEL_FORECAST_TIME_STAMP.equals(channelId)) {
+            state = getDateTimeTypeState(forecast.getTime() + ((index == null) ? 0 : index) * forecast.getInterval());
+        } else {
+            Column values = forecast.find(decoder.getVariable(), decoder.getAggregation());
+            if (values != null) {
+                state = getForecastState(decoder, values, index, forecast);
+            } else {
+                logger.warn("No values for channel '{}' of group '{}'", channelId, channelGroupId);
+            }
         }
 
-        return null;
+        if (state != null) {
+            logger.debug("Update channel '{}' of group '{}' with new state '{}'.", channelId, channelGroupId, state);
+            updateState(channelUID, state);
+        }
     }
 
+    protected abstract int getVariableIndex(String channelId);
+
     protected State getDecimalTypeState(@Nullable Float value) {
         return ((value == null || !Float.isFinite(value))) ? UnDefType.UNDEF : new DecimalType(value);
     }
@@ -560,22 +1402,40 @@ public abstract class OpenMeteoBaseThingHandler extends BaseThingHandler {
         return (value == null) ? UnDefType.UNDEF : (value == 1) ? OnOffType.ON : OnOffType.OFF;
     }
 
-    protected abstract State getForecastState(String channelId, @Nullable Float floatValue, @Nullable Long longValue);
+    protected StateConverter getDecimalTypeConverter() {
+        return (floatValue, longValue) -> getDecimalTypeState(floatValue);
+    }
 
-    protected State getForecastState(String channelId, VariableWithValues values, @Nullable Integer valueIndex,
-            @Nullable VariablesWithTime forecast) {
-        @Nullable
-        Float floatValue = null;
-        if (valueIndex == null)
-            floatValue = values.value();
-        else if (valueIndex < values.valuesLength())
-            floatValue = values.values(valueIndex);
+    protected StateConverter getQuantityTypeConverter(Unit<?> unit) {
+        return (floatValue, longValue) -> getQuantityTypeState(floatValue, unit);
+    }
 
-        @Nullable
-        Long longValue = null;
-        if ((valueIndex != null) && (valueIndex < values.valuesInt64Length()))
-            longValue = values.valuesInt64(valueIndex);
+    protected StateConverter getQuantityTypeConverter(int multiplier, Unit<?> unit) {
+        return (floatValue, longValue) -> getQuantityTypeState(floatValue, multiplier, unit);
+    }
+
+    protected StateConverter getDateTimeTypeConverter() {
+        return (floatValue, longValue) -> getDateTimeTypeState(longValue);
+    }
+
+    protected StateConverter getOnOffConverter() {
+        return (floatValue, longValue) -> getOnOffState(floatValue);
+    }
+
+    protected StateConverter getUndefConverter() {
+        return (floatValue, longValue) -> UnDefType.UNDEF;
+    }
+
+    /**
+     * Returns the function turning the values of the given channel into states. It is called once per channel, the
+     * units it needs are best computed before creating the function.
+     *
+     * @param channelId the channel identifier, without its group and aggregation suffix
+     */
+    protected abstract StateConverter getStateConverter(String channelId);
 
-        return getForecastState(channelId, floatValue, longValue);
+    protected State getForecastState(OpenMeteoChannelDecoder decoder, Column values, @Nullable Integer valueIndex,
+            BlockData forecast) {
+        return decoder.getConverter().convert(values.getFloatValue(valueIndex), values.getLongValue(valueIndex));
     }
 }
@@ -13,19 +13,36 @@ package com.obones.binding.openmeteo.internal.handler;
 
 import static com.obones.binding.openmeteo.internal.OpenMeteoBindingConstants.*;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.HttpClient;
+import org.openhab.core.OpenHAB;
+import org.openhab.core.i18n.CommunicationException;
+import org.openhab.core.i18n.ConfigurationException;
+import org.openhab.core.io.net.http.HttpClientFactory;
 import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.PointType;
 import org.openhab.core.thing.Bridge;
 import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.thing.Thing;
 import org.openhab.core.thing.ThingStatus;
+import org.openhab.core.thing.ThingStatusDetail;
+import org.openhab.core.thing.ThingUID;
 import org.openhab.core.thing.binding.BaseBridgeHandler;
 import org.openhab.core.thing.binding.ThingHandler;
 import org.openhab.core.thing.util.ThingHandlerHelper;
@@ -36,7 +53,15 @@ import org.slf4j.LoggerFactory;
 
 import com.obones.binding.openmeteo.internal.config.OpenMeteoBridgeConfiguration;
 import com.obones.binding.openmeteo.internal.connection.OpenMeteoHttpConnection;
+import com.obones.binding.openmeteo.internal.connection.OpenMeteoHttpUtil;
+import com.obones.binding.openmeteo.internal.connection.OpenMeteoResponseStore;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.Block;
+import com.obones.binding.openmeteo.internal.refresh.OpenMeteoModelRunSchedule;
+import com.obones.binding.openmeteo.internal.refresh.OpenMeteoPipelineStage;
+import com.obones.binding.openmeteo.internal.refresh.OpenMeteoRefreshCoalescer;
+import com.obones.binding.openmeteo.internal.refresh.OpenMeteoRefreshScheduler;
 import com.obones.binding.openmeteo.internal.utils.Localization;
+import com.openmeteo.sdk.WeatherApiResponse;
 
 /**
  * <B>Common interaction with the </B><I>OpenMeteo</I><B> bridge.</B>
@@ -65,20 +90,65 @@ public class OpenMeteoBridgeHandler extends BaseBridgeHandler {
 
     public Localization localization;
 
-    private @Nullable ScheduledFuture<?> refreshJob;
+    private final HttpClientFactory httpClientFactory;
+    private @Nullable HttpClient httpClient;
     private @Nullable OpenMeteoHttpConnection connection;
+    private boolean batchRequests = false;
+    private final Set<CompletableFuture<?>> pendingRequests = ConcurrentHashMap.newKeySet();
+    private @Nullable OpenMeteoRefreshCoalescer refreshCoalescer;
+    private @Nullable OpenMeteoRefreshScheduler refreshScheduler;
+    private int refreshInterval = 60;
+    private @Nullable OpenMeteoModelRunSchedule modelRunSchedule;
+    private boolean fastStartup = false;
+    private boolean linkedChannelsOnly = false;
+    private int emptyVariablePruneThreshold = 0;
+    private boolean timeSeriesDiff = false;
+    private int maxChannelUpdatesPerSecond = 0;
+    private @Nullable OpenMeteoResponseStore responseStore;
+    private @Nullable OpenMeteoPipelineStage fetchStage;
+    private @Nullable OpenMeteoPipelineStage decodeStage;
+    private @Nullable OpenMeteoPipelineStage publishStage;
+    private @Nullable ScheduledFuture<?> stagePropertiesJob;
+    private long startupDeadline;
 
     private static final long INITIAL_DELAY_IN_SECONDS = 15;
 
+    /*
+     * Leaves time for the other channels linked at the same moment to ask for the same refresh
+     */
+    private static final long REFRESH_THING_DELAY_IN_SECONDS = 2;
+
+    /*
+     * With a fast startup, the things initialized within that delay after the bridge are retrieved together
+     */
+    private static final long STARTUP_WINDOW_IN_SECONDS = 5;
+
+    /*
+     * The things that did not fit in the full fetch stage are refreshed again after that delay
+     */
+    private static final long FETCH_RETRY_DELAY_IN_SECONDS = 1;
+
+    /*
+     * Keeps the URL of batched requests to a reasonable length
+     */
+    private static final int MAX_LOCATIONS_PER_REQUEST = 50;
+
+    /*
+     * The queue depth and latency of the stages are reported at that interval, whether refreshes run or not
+     */
+    private static final long STAGE_PROPERTIES_INTERVAL_IN_SECONDS = 10;
+
     /*
      * ************************
      * ***** Constructors *****
      */
-    public OpenMeteoBridgeHandler(final Bridge bridge, Localization localization) {
+    public OpenMeteoBridgeHandler(final Bridge bridge, Localization localization,
+            final HttpClientFactory httpClientFactory) {
         super(bridge);
         logger.trace("OpenMeteoBridgeHandler(constructor with bridge={}, localization={}) called.", bridge,
                 localization);
         this.localization = localization;
+        this.httpClientFactory = httpClientFactory;
         logger.debug("Creating a OpenMeteoBridgeHandler for thing '{}'.", getThing().getUID());
     }
 
@@ -97,14 +167,67 @@ public class OpenMeteoBridgeHandler extends BaseBridgeHandler {
 
         OpenMeteoBridgeConfiguration config = getConfigAs(OpenMeteoBridgeConfiguration.class);
 
-        connection = new OpenMeteoHttpConnection(config.baseURI, config.APIKey, config.proxyHost, config.proxyPort,
-                config.proxyUser, config.proxyPassword);
+        HttpClient localHttpClient;
+        try {
+            localHttpClient = OpenMeteoHttpUtil.createHttpClient(httpClientFactory,
+                    OpenMeteoHttpUtil.getConsumerName(getThing().getUID()), config.proxyHost, config.proxyPort,
+                    config.proxyUser, config.proxyPassword);
+        } catch (IllegalArgumentException e) {
+            logger.warn("initialize(): could not create the HTTP client: {}", e.getMessage());
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, e.getMessage());
+            return;
+        }
+        try {
+            localHttpClient.start();
+        } catch (Exception e) {
+            logger.warn("initialize(): could not start the HTTP client: {}", e.getMessage());
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, e.getMessage());
+            return;
+        }
+        httpClient = localHttpClient;
+
+        OpenMeteoHttpConnection localConnection = new OpenMeteoHttpConnection(localHttpClient, config.baseURI,
+                config.APIKey, config.directBuffers, config.responseCacheTTL, scheduler, config.maxRetries,
+                config.circuitBreakerThreshold, Duration.ofSeconds(config.circuitBreakerOpenTime));
+        localConnection.preconnect();
+        connection = localConnection;
+        batchRequests = config.batchRequests;
+        refreshCoalescer = new OpenMeteoRefreshCoalescer(scheduler, this::refreshThings);
+        refreshInterval = Math.max(config.refreshInterval, 1);
+        OpenMeteoModelRunSchedule localModelRunSchedule = new OpenMeteoModelRunSchedule(config.modelRunSchedule);
+        modelRunSchedule = localModelRunSchedule.isEmpty() ? null : localModelRunSchedule;
+        refreshScheduler = new OpenMeteoRefreshScheduler(scheduler, this::getRefreshInterval,
+                config.refreshJitter / 100.0, this::updateThings);
+        responseStore = (config.storedResponseMaxAge > 0)
+                ? new OpenMeteoResponseStore(Path.of(OpenHAB.getUserDataFolder(), BINDING_ID),
+                        Duration.ofMinutes(config.storedResponseMaxAge))
+                : null;
+        fastStartup = config.fastStartup;
+        linkedChannelsOnly = config.linkedChannelsOnly;
+        emptyVariablePruneThreshold = config.emptyVariablePruneThreshold;
+        timeSeriesDiff = config.timeSeriesDiff;
+        maxChannelUpdatesPerSecond = config.maxChannelUpdatesPerSecond;
+        shutdownStages();
+        fetchStage = new OpenMeteoPipelineStage("fetch", config.fetchParallelism, config.fetchQueueSize,
+                config.virtualThreads);
+        decodeStage = new OpenMeteoPipelineStage("decode", config.decodeParallelism, config.decodeQueueSize,
+                config.virtualThreads);
+        publishStage = new OpenMeteoPipelineStage("publish", config.publishParallelism, config.publishQueueSize,
+                config.virtualThreads);
+        stagePropertiesJob = scheduler.scheduleWithFixedDelay(this::updateStageProperties,
+                STAGE_PROPERTIES_INTERVAL_IN_SECONDS, STAGE_PROPERTIES_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
+        startupDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(STARTUP_WINDOW_IN_SECONDS);
 
-        ScheduledFuture<?> localRefreshJob = refreshJob;
-        if (localRefreshJob == null || localRefreshJob.isCancelled()) {
-            logger.debug("Start refresh job at interval {} min.", config.refreshInterval);
-            refreshJob = scheduler.scheduleWithFixedDelay(this::updateThings, INITIAL_DELAY_IN_SECONDS,
-                    TimeUnit.MINUTES.toSeconds(config.refreshInterval), TimeUnit.SECONDS);
+        // each thing is then refreshed by the refresh scheduler, one interval after it was last retrieved
+        if (fastStartup) {
+            // the things are first retrieved when they initialize, which lets them validate their configuration
+            // right away instead of after the first refresh
+            updateStatus(ThingStatus.ONLINE);
+        } else {
+            // merged with the refreshes the things ask for when they initialize, each thing is retrieved once
+            logger.debug("Start initial refresh, things then refreshed every {} min by default.", refreshInterval);
+            requestRefresh(getThing().getThings().stream().map(Thing::getUID).collect(Collectors.toList()),
+                    INITIAL_DELAY_IN_SECONDS, TimeUnit.SECONDS);
         }
 
         logger.trace("initialize(): initialize bridge configuration parameters.");
@@ -113,11 +236,31 @@ public class OpenMeteoBridgeHandler extends BaseBridgeHandler {
     @Override
     public void dispose() {
         logger.debug("Dispose OpenMeteo bridge handler '{}'.", getThing().getUID());
-        ScheduledFuture<?> localRefreshJob = refreshJob;
-        if (localRefreshJob != null && !localRefreshJob.isCancelled()) {
-            logger.debug("Stop refresh job.");
-            if (localRefreshJob.cancel(true)) {
-                refreshJob = null;
+        OpenMeteoRefreshCoalescer localRefreshCoalescer = refreshCoalescer;
+        if (localRefreshCoalescer != null) {
+            refreshCoalescer = null;
+            localRefreshCoalescer.cancel();
+        }
+        OpenMeteoRefreshScheduler localRefreshScheduler = refreshScheduler;
+        if (localRefreshScheduler != null) {
+            refreshScheduler = null;
+            localRefreshScheduler.cancel();
+        }
+        cancelPendingRequests();
+        shutdownStages();
+
+        OpenMeteoHttpConnection localConnection = connection;
+        if (localConnection != null) {
+            connection = null;
+            localConnection.dispose();
+        }
+        HttpClient localHttpClient = httpClient;
+        if (localHttpClient != null) {
+            httpClient = null;
+            try {
+                localHttpClient.stop();
+            } catch (Exception e) {
+                logger.debug("Could not stop the HTTP client: {}", e.getMessage());
             }
         }
     }
@@ -149,7 +292,8 @@ public class OpenMeteoBridgeHandler extends BaseBridgeHandler {
         logger.debug("handleCommand({},{}) called.", channelUID.getAsString(), command);
 
         if (command instanceof RefreshType) {
-            scheduler.schedule(this::updateThings, INITIAL_DELAY_IN_SECONDS, TimeUnit.SECONDS);
+            requestRefresh(getThing().getThings().stream().map(Thing::getUID).collect(Collectors.toList()),
+                    INITIAL_DELAY_IN_SECONDS, TimeUnit.SECONDS);
         } else {
             logger.debug("The Open Meteo binding is a read-only binding and cannot handle command '{}'.", command);
         }
@@ -159,33 +303,385 @@ public class OpenMeteoBridgeHandler extends BaseBridgeHandler {
 
     @Override
     public void childHandlerInitialized(ThingHandler childHandler, Thing childThing) {
-        scheduler.schedule(() -> {
-            updateThing((OpenMeteoBaseThingHandler) childHandler, childThing);
-        }, INITIAL_DELAY_IN_SECONDS, TimeUnit.SECONDS);
+        long remainingStartupNanos = startupDeadline - System.nanoTime();
+        if (fastStartup && remainingStartupNanos > 0) {
+            // all the things initialized along with the bridge are retrieved together at the end of the window
+            logger.debug("Thing '{}' will be retrieved with the other things starting along with the bridge.",
+                    childThing.getUID());
+            requestRefresh(List.of(childThing.getUID()), remainingStartupNanos, TimeUnit.NANOSECONDS);
+        } else {
+            requestRefresh(List.of(childThing.getUID()), INITIAL_DELAY_IN_SECONDS, TimeUnit.SECONDS);
+        }
+
+        OpenMeteoRefreshScheduler localRefreshScheduler = refreshScheduler;
+        if (localRefreshScheduler != null) {
+            localRefreshScheduler.add(childThing.getUID());
+        }
+    }
+
+    @Override
+    public void childHandlerDisposed(ThingHandler childHandler, Thing childThing) {
+        OpenMeteoRefreshScheduler localRefreshScheduler = refreshScheduler;
+        if (localRefreshScheduler != null) {
+            localRefreshScheduler.remove(childThing.getUID());
+        }
+    }
+
+    /**
+     * Tells that the given thing was refreshed, its next refresh happening one interval later
+     *
+     * @param thingUID the UID of the thing
+     * @param reschedule true if the interval of the thing depends on the data it just received
+     */
+    public void refreshSucceeded(ThingUID thingUID, boolean reschedule) {
+        OpenMeteoRefreshScheduler localRefreshScheduler = refreshScheduler;
+        if (localRefreshScheduler != null) {
+            localRefreshScheduler.succeeded(thingUID, reschedule);
+        }
     }
 
-    private void updateThings() {
-        ThingStatus status = ThingStatus.ONLINE;
+    /**
+     * Tells that the given thing could not be refreshed, it is retried sooner than its interval
+     *
+     * @param thingUID the UID of the thing
+     */
+    public void refreshFailed(ThingUID thingUID) {
+        OpenMeteoRefreshScheduler localRefreshScheduler = refreshScheduler;
+        if (localRefreshScheduler != null) {
+            localRefreshScheduler.failed(thingUID);
+        }
+    }
+
+    /**
+     * @return the delay until the next refresh of the given thing, the refresh interval of the bridge unless the
+     *         thing has its own
+     */
+    private Duration getRefreshInterval(ThingUID thingUID) {
+        Thing thing = getThingByUID(thingUID);
+        ThingHandler handler = (thing != null) ? thing.getHandler() : null;
+        Duration thingRefreshInterval = (handler instanceof OpenMeteoBaseThingHandler)
+                ? ((OpenMeteoBaseThingHandler) handler).getRefreshInterval()
+                : null;
+        return (thingRefreshInterval != null) ? thingRefreshInterval : Duration.ofMinutes(refreshInterval);
+    }
+
+    /**
+     * @return the store keeping the last response of each thing, null if the responses are not stored
+     */
+    public @Nullable OpenMeteoResponseStore getResponseStore() {
+        return responseStore;
+    }
+
+    /**
+     * @return the times at which the runs of the models are available, null if the things are refreshed at their
+     *         interval whatever their models
+     */
+    public @Nullable OpenMeteoModelRunSchedule getModelRunSchedule() {
+        return modelRunSchedule;
+    }
+
+    /**
+     * @return true if the things only retrieve the variables read by their linked channels
+     */
+    public boolean isLinkedChannelsOnly() {
+        return linkedChannelsOnly;
+    }
+
+    /**
+     * @return the number of consecutive empty responses after which a thing leaves a variable out of its requests,
+     *         0 if variables are never left out
+     */
+    public int getEmptyVariablePruneThreshold() {
+        return emptyVariablePruneThreshold;
+    }
+
+    /**
+     * @return true if the time series channels only send the points that changed since their previous update
+     */
+    public boolean isTimeSeriesDiff() {
+        return timeSeriesDiff;
+    }
+
+    /**
+     * @return the maximum number of channels a thing updates per second, 0 if it updates them all at once
+     */
+    public int getMaxChannelUpdatesPerSecond() {
+        return maxChannelUpdatesPerSecond;
+    }
+
+    /**
+     * Refreshes the given thing soon, outside of the periodic refresh
+     *
+     * @param handler the handler of the thing to refresh
+     */
+    public void refreshThing(OpenMeteoBaseThingHandler handler) {
+        requestRefresh(List.of(handler.getThing().getUID()), REFRESH_THING_DELAY_IN_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Asks for the given things to be refreshed, the requests received until then being merged into a single refresh
+     * of each thing.
+     */
+    private void requestRefresh(List<ThingUID> thingUIDs, long delay, TimeUnit unit) {
+        OpenMeteoRefreshCoalescer localRefreshCoalescer = refreshCoalescer;
+        if (localRefreshCoalescer != null) {
+            localRefreshCoalescer.request(thingUIDs, delay, unit);
+        }
+    }
+
+    private void refreshThings(Set<ThingUID> thingUIDs) {
+        OpenMeteoRefreshScheduler localRefreshScheduler = refreshScheduler;
+        if (localRefreshScheduler != null) {
+            localRefreshScheduler.refreshed(thingUIDs);
+        }
+        updateThings(thingUIDs);
+
+        OpenMeteoRefreshCoalescer localRefreshCoalescer = refreshCoalescer;
+        if (localRefreshCoalescer != null) {
+            updateProperty(PROPERTY_BRIDGE_REFRESH_TRIGGERS, String.valueOf(localRefreshCoalescer.getTriggerCount()));
+            updateProperty(PROPERTY_BRIDGE_MERGED_REFRESH_TRIGGERS,
+                    String.valueOf(localRefreshCoalescer.getMergedTriggerCount()));
+        }
+    }
 
+    private void updateThings(Set<ThingUID> thingUIDs) {
+        // the requests are prepared concurrently in the fetch stage and sent without waiting for each other, each
+        // response then going through the decode and publish stages while the next requests are in flight
         updateState(CHANNEL_BRIDGE_LAST_UPDATED, new DateTimeType(ZonedDateTime.now()));
 
-        List<Thing> children = getThing().getThings().stream().filter(Thing::isEnabled).collect(Collectors.toList());
+        List<ThingUID> deferredThingUIDs = updateChildren(getThing().getThings().stream()
+                .filter(thing -> thing.isEnabled() && thingUIDs.contains(thing.getUID())).collect(Collectors.toList()));
+        if (!deferredThingUIDs.isEmpty()) {
+            // the scheduler thread running this refresh never waits for the fetch stage
+            logger.debug("The fetch stage is full, refreshing {} things again in {} s.", deferredThingUIDs.size(),
+                    FETCH_RETRY_DELAY_IN_SECONDS);
+            requestRefresh(deferredThingUIDs, FETCH_RETRY_DELAY_IN_SECONDS, TimeUnit.SECONDS);
+        }
+        updateStatus(ThingStatus.ONLINE);
+    }
+
+    /**
+     * Reports the queue depth and latency of each stage of the refreshes, run periodically
+     */
+    private void updateStageProperties() {
+        for (OpenMeteoPipelineStage stage : new @Nullable OpenMeteoPipelineStage[] { fetchStage, decodeStage,
+                publishStage }) {
+            if (stage != null) {
+                updateProperty(stage.getName() + PROPERTY_BRIDGE_STAGE_QUEUE_DEPTH_SUFFIX,
+                        String.valueOf(stage.getQueueDepth()));
+                updateProperty(stage.getName() + PROPERTY_BRIDGE_STAGE_LATENCY_SUFFIX,
+                        stage.getLatency().toMillis() + " ms");
+            }
+        }
+    }
+
+    private void shutdownStages() {
+        ScheduledFuture<?> localStagePropertiesJob = stagePropertiesJob;
+        if (localStagePropertiesJob != null) {
+            stagePropertiesJob = null;
+            localStagePropertiesJob.cancel(false);
+        }
+        for (OpenMeteoPipelineStage stage : new @Nullable OpenMeteoPipelineStage[] { fetchStage, decodeStage,
+                publishStage }) {
+            if (stage != null) {
+                stage.shutdown();
+            }
+        }
+        fetchStage = null;
+        decodeStage = null;
+        publishStage = null;
+    }
+
+    /**
+     * Hands the given things to the fetch stage
+     *
+     * @return the UIDs of the things that did not fit in the fetch stage
+     */
+    private List<ThingUID> updateChildren(List<Thing> children) {
+        List<ThingUID> deferredThingUIDs = new ArrayList<>();
         if (!children.isEmpty()) {
-            for (Thing thing : children) {
-                updateThing((OpenMeteoBaseThingHandler) thing.getHandler(), thing);
+            if (batchRequests) {
+                updateThingsInBatches(children, deferredThingUIDs);
+            } else {
+                for (Thing thing : children) {
+                    if (!fetchThing((OpenMeteoBaseThingHandler) thing.getHandler(), thing)) {
+                        deferredThingUIDs.add(thing.getUID());
+                    }
+                }
             }
         }
-        updateStatus(status);
+        return deferredThingUIDs;
     }
 
-    private ThingStatus updateThing(@Nullable OpenMeteoBaseThingHandler handler, Thing thing) {
+    /**
+     * Updates the given things by grouping those sending the same request apart from their location so that
+     * each group is retrieved with a single call to the API.
+     *
+     * @param children the things to update
+     * @param deferredThingUIDs receives the UIDs of the things that did not fit in the fetch stage
+     */
+    private void updateThingsInBatches(List<Thing> children, List<ThingUID> deferredThingUIDs) {
+        Map<String, Batch> batches = new LinkedHashMap<>();
+        for (Thing thing : children) {
+            OpenMeteoBaseThingHandler handler = (OpenMeteoBaseThingHandler) thing.getHandler();
+            if (handler != null && ThingHandlerHelper.isHandlerInitialized(handler) && handler.getLocation() != null) {
+                Set<Block> dueBlocks = handler.getDueBlocks();
+                Batch batch = batches.computeIfAbsent(handler.getBatchKey(dueBlocks), key -> new Batch(dueBlocks));
+                batch.handlers.add(handler);
+                if (batch.handlers.size() >= MAX_LOCATIONS_PER_REQUEST) {
+                    fetchBatch(batch, deferredThingUIDs);
+                    batch.handlers.clear();
+                }
+            } else if (!fetchThing(handler, thing)) {
+                deferredThingUIDs.add(thing.getUID());
+            }
+        }
+
+        for (Batch batch : batches.values()) {
+            fetchBatch(batch, deferredThingUIDs);
+        }
+    }
+
+    /**
+     * Things sending the same request apart from their location, with the blocks due when the batch was formed
+     */
+    private static class Batch {
+        private final Set<Block> dueBlocks;
+        private final List<OpenMeteoBaseThingHandler> handlers = new ArrayList<>();
+
+        private Batch(Set<Block> dueBlocks) {
+            this.dueBlocks = dueBlocks;
+        }
+    }
+
+    /**
+     * Updates the given things in the fetch stage, concurrently with the other batches
+     *
+     * @param deferredThingUIDs receives the UIDs of the things of the batch if the fetch stage is full
+     */
+    private void fetchBatch(Batch batch, List<ThingUID> deferredThingUIDs) {
+        if (!batch.handlers.isEmpty()) {
+            List<OpenMeteoBaseThingHandler> localBatch = List.copyOf(batch.handlers);
+            if (!fetch(() -> updateBatch(localBatch, batch.dueBlocks))) {
+                localBatch.forEach(handler -> deferredThingUIDs.add(handler.getThing().getUID()));
+            }
+        }
+    }
+
+    /**
+     * Updates the given thing in the fetch stage, concurrently with the other things
+     *
+     * @return false if the fetch stage is full
+     */
+    private boolean fetchThing(@Nullable OpenMeteoBaseThingHandler handler, Thing thing) {
+        return fetch(() -> updateThing(handler, thing));
+    }
+
+    /**
+     * Runs the given task in the fetch stage if it has room for it, without waiting
+     *
+     * @return false if the fetch stage is full
+     */
+    private boolean fetch(Runnable task) {
+        OpenMeteoPipelineStage localFetchStage = fetchStage;
+        if (localFetchStage == null) {
+            return true;
+        }
+        try {
+            if (!localFetchStage.tryReserve(1)) {
+                return false;
+            }
+            localFetchStage.executeReserved(task);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Not fetching, the bridge is being disposed: {}", e.getMessage());
+        }
+        return true;
+    }
+
+    private void updateBatch(List<OpenMeteoBaseThingHandler> batch, Set<Block> dueBlocks) {
+        var connection = this.connection; // store in a local variable to avoid null checking error
+        if (batch.isEmpty() || connection == null) {
+            return;
+        }
+
+        List<PointType> locations = new ArrayList<>(batch.size());
+        for (OpenMeteoBaseThingHandler handler : batch) {
+            PointType location = handler.getLocation();
+            if (location != null) {
+                locations.add(location);
+            }
+        }
+
+        if (locations.size() != batch.size()) {
+            if (batch.size() > 1) {
+                logger.debug("Some locations were cleared while preparing the batch, updating things one by one.");
+                batch.forEach(handler -> updateBatch(List.of(handler), dueBlocks));
+            } else {
+                // the thing already reports its invalid configuration, it is only retried later
+                ThingUID thingUID = batch.get(0).getThing().getUID();
+                logger.debug("Cannot update weather data of thing '{}' as its location was cleared.", thingUID);
+                refreshFailed(thingUID);
+            }
+            return;
+        }
+
+        OpenMeteoPipelineStage localDecodeStage = decodeStage;
+        OpenMeteoPipelineStage localPublishStage = publishStage;
+        if (localDecodeStage == null || localPublishStage == null) {
+            return;
+        }
+
+        if (batch.size() > 1) {
+            logger.debug("Updating {} things with a single request.", batch.size());
+        }
+        // the responses take a slot of the decode stage when they arrive, waiting in its backlog while it is full,
+        // which never holds back the fetch stage: each thing has at most one request in flight
+        CompletableFuture<List<@Nullable WeatherApiResponse>> request;
+        try {
+            // all things in the batch share the same configuration, the first one builds the request for all
+            request = batch.get(0).requestDataAsync(connection, locations, dueBlocks);
+        } catch (CommunicationException | ConfigurationException e) {
+            batch.forEach(handler -> handler.updateDataFailed(e));
+            return;
+        }
+
+        if (batch.size() == 1) {
+            trackPendingRequest(request,
+                    batch.get(0).updateDataAsync(connection, request, 0, localDecodeStage, localPublishStage));
+            return;
+        }
+
+        // each thing gets its own copy so that disposing one of them does not cancel the request for the others
+        List<CompletableFuture<@Nullable Void>> updates = new ArrayList<>(batch.size());
+        for (int index = 0; index < batch.size(); index++) {
+            updates.add(batch.get(index).updateDataAsync(connection, request.copy(), index, localDecodeStage,
+                    localPublishStage));
+        }
+        trackPendingRequest(request, CompletableFuture.allOf(updates.toArray(new CompletableFuture<?>[0])));
+    }
+
+    private void updateThing(@Nullable OpenMeteoBaseThingHandler handler, Thing thing) {
         var connection = this.connection; // store in a local variable to avoid null checking error
         if (handler != null && ThingHandlerHelper.isHandlerInitialized(handler) && connection != null) {
-            handler.updateData(connection);
-            return thing.getStatus();
+            updateBatch(List.of(handler), handler.getDueBlocks());
         } else {
             logger.debug("Cannot update weather data of thing '{}' as location handler is null.", thing.getUID());
-            return ThingStatus.OFFLINE;
         }
     }
+
+    /**
+     * Keeps track of the given request until the given update completes, so that it can be cancelled when the
+     * bridge is disposed.
+     */
+    private void trackPendingRequest(CompletableFuture<?> request, CompletableFuture<?> update) {
+        pendingRequests.add(request);
+        update.whenComplete((result, error) -> pendingRequests.remove(request));
+    }
+
+    private void cancelPendingRequests() {
+        for (CompletableFuture<?> request : pendingRequests) {
+            request.cancel(true);
+        }
+        pendingRequests.clear();
+    }
 }
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.handler;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.thing.ChannelUID;
+import org.openhab.core.types.State;
+
+/**
+ * The {@link OpenMeteoChannelDecoder} describes where the value of a channel comes from in a response and how it is
+ * turned into a state.
+ * <P>
+ * Decoders are resolved from the channel UID once, when the thing initializes or a channel gets linked, so that
+ * updating the channels does not need to parse their identifiers again.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoChannelDecoder {
+    public enum Block {
+        HOURLY,
+        DAILY,
+        MINUTELY_15,
+        CURRENT
+    }
+
+    /**
+     * Turns a value read from a response into a channel state
+     */
+    @FunctionalInterface
+    public interface StateConverter {
+        State convert(@Nullable Float floatValue, @Nullable Long longValue);
+    }
+
+    private final ChannelUID channelUID;
+    private final String channelId;
+    private final Block block;
+    private final boolean timeSeries;
+    private final @Nullable Integer index;
+    private final int variable;
+    private final int aggregation;
+    private final StateConverter converter;
+
+    /**
+     * @param channelUID the UID of the decoded channel
+     * @param channelId the channel identifier, without its group and aggregation suffix
+     * @param block the block of the response holding the values
+     * @param timeSeries true to send all the values as a time series
+     * @param index the index of the value, null for the current block
+     * @param variable one of the {@link com.openmeteo.sdk.Variable} constants
+     * @param aggregation one of the {@link com.openmeteo.sdk.Aggregation} constants
+     * @param converter turns the value into a state
+     */
+    public OpenMeteoChannelDecoder(ChannelUID channelUID, String channelId, Block block, boolean timeSeries,
+            @Nullable Integer index, int variable, int aggregation, StateConverter converter) {
+        this.channelUID = channelUID;
+        this.channelId = channelId;
+        this.block = block;
+        this.timeSeries = timeSeries;
+        this.index = index;
+        this.variable = variable;
+        this.aggregation = aggregation;
+        this.converter = converter;
+    }
+
+    public ChannelUID getChannelUID() {
+        return channelUID;
+    }
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    public Block getBlock() {
+        return block;
+    }
+
+    public boolean isTimeSeries() {
+        return timeSeries;
+    }
+
+    public @Nullable Integer getIndex() {
+        return index;
+    }
+
+    public int getVariable() {
+        return variable;
+    }
+
+    public int getAggregation() {
+        return aggregation;
+    }
+
+    public StateConverter getConverter() {
+        return converter;
+    }
+
+    /**
+     * @return how far ahead of the start of its block the channel reads, in seconds, 0 for the current block and
+     *         the time series
+     */
+    public long getHorizon() {
+        Integer index = this.index;
+        if (timeSeries || index == null) {
+            return 0;
+        }
+        return switch (block) {
+            case MINUTELY_15 -> index * 900L;
+            case HOURLY -> index * 3600L;
+            case DAILY -> index * 86400L;
+            case CURRENT -> 0;
+        };
+    }
+}
@@ -0,0 +1,307 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.handler;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.obones.binding.openmeteo.internal.connection.OpenMeteoVariableIndex;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.Block;
+import com.openmeteo.sdk.VariableWithValues;
+import com.openmeteo.sdk.VariablesWithTime;
+import com.openmeteo.sdk.WeatherApiResponse;
+
+/**
+ * The {@link OpenMeteoForecastSnapshot} holds the values of a response that the channels of a thing read, copied
+ * into primitive arrays.
+ * <P>
+ * It is built once per refresh, after which the response can be given back to the connection. Only the variables
+ * that were asked for are copied, each block keeping a single time axis made of its start time and interval.
+ * A snapshot is never modified once built, it can be read from any thread once published.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoForecastSnapshot {
+    private static final float[] NO_FLOAT_VALUES = new float[0];
+    private static final long[] NO_LONG_VALUES = new long[0];
+
+    /**
+     * The values of a single variable
+     */
+    public static class Column {
+        private final float value;
+        private final float[] values;
+        private final long[] valuesInt64;
+
+        private Column(VariableWithValues variable) {
+            value = variable.value();
+
+            int length = variable.valuesLength();
+            values = length == 0 ? NO_FLOAT_VALUES : new float[length];
+            for (int valueIndex = 0; valueIndex < length; valueIndex++) {
+                values[valueIndex] = variable.values(valueIndex);
+            }
+
+            length = variable.valuesInt64Length();
+            valuesInt64 = length == 0 ? NO_LONG_VALUES : new long[length];
+            for (int valueIndex = 0; valueIndex < length; valueIndex++) {
+                valuesInt64[valueIndex] = variable.valuesInt64(valueIndex);
+            }
+        }
+
+        /**
+         * @return the number of values, whatever their type
+         */
+        public int getLength() {
+            return Math.max(values.length, valuesInt64.length);
+        }
+
+        /**
+         * @param valueIndex the index of the value, null for the single value of the current block
+         * @return the value, or null if there is none at that index
+         */
+        public @Nullable Float getFloatValue(@Nullable Integer valueIndex) {
+            if (valueIndex == null) {
+                return value;
+            }
+            return valueIndex < values.length ? values[valueIndex] : null;
+        }
+
+        /**
+         * @param valueIndex the index of the value, null for the current block which has none
+         * @return the value, or null if there is none at that index
+         */
+        public @Nullable Long getLongValue(@Nullable Integer valueIndex) {
+            return (valueIndex != null && valueIndex < valuesInt64.length) ? valuesInt64[valueIndex] : null;
+        }
+    }
+
+    /**
+     * The copied variables of a block, along with its time axis
+     */
+    public static class BlockData {
+        private final long time;
+        private final long interval;
+        private final int[] keys; // sorted
+        private final Column[] columns;
+
+        private BlockData(long time, long interval, int[] keys, Column[] columns) {
+            this.time = time;
+            this.interval = interval;
+            this.keys = keys;
+            this.columns = columns;
+        }
+
+        /**
+         * @return the time of the first value, in seconds since the epoch
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * @return the number of seconds between two values
+         */
+        public long getInterval() {
+            return interval;
+        }
+
+        /**
+         * Returns the values of the given variable, whatever its altitude
+         *
+         * @param variable one of the {@link com.openmeteo.sdk.Variable} constants
+         * @param aggregation one of the {@link com.openmeteo.sdk.Aggregation} constants
+         * @return the values, or null if the variable was not in the response or was not asked for
+         */
+        public @Nullable Column find(int variable, int aggregation) {
+            int position = Arrays.binarySearch(keys, getKey(variable, aggregation));
+            return position < 0 ? null : columns[position];
+        }
+    }
+
+    private final @Nullable BlockData[] blocks;
+    private final int[][] requestedKeys;
+    private final long version;
+    private final Instant fetchTime;
+
+    private OpenMeteoForecastSnapshot(@Nullable BlockData[] blocks, int[][] requestedKeys, long version,
+            Instant fetchTime) {
+        this.blocks = blocks;
+        this.requestedKeys = requestedKeys;
+        this.version = version;
+        this.fetchTime = fetchTime;
+    }
+
+    /**
+     * @return the number of the snapshot, higher for the more recent ones of a thing
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the time at which the response was received
+     */
+    public Instant getFetchTime() {
+        return fetchTime;
+    }
+
+    /**
+     * @return the data of the given block, or null if it was missing from the response
+     */
+    public @Nullable BlockData getBlock(Block block) {
+        return blocks[block.ordinal()];
+    }
+
+    /**
+     * Tells whether the given variable was asked for when building this snapshot. A variable that was not can
+     * only be read once a new snapshot is built.
+     */
+    public boolean isRequested(Block block, int variable, int aggregation) {
+        return Arrays.binarySearch(requestedKeys[block.ordinal()], getKey(variable, aggregation)) >= 0;
+    }
+
+    private static int getKey(int variable, int aggregation) {
+        return ((variable & 0xFF) << 8) | (aggregation & 0xFF);
+    }
+
+    /**
+     * Collects the variables to copy, then builds the snapshot from a response
+     */
+    public static class Builder {
+        private final List<Set<Integer>> keys = new ArrayList<>();
+
+        public Builder() {
+            for (int blockIndex = 0; blockIndex < Block.values().length; blockIndex++) {
+                keys.add(new TreeSet<>());
+            }
+        }
+
+        /**
+         * Asks for the given variable of the given block to be copied
+         *
+         * @param block the block holding the variable
+         * @param variable one of the {@link com.openmeteo.sdk.Variable} constants
+         * @param aggregation one of the {@link com.openmeteo.sdk.Aggregation} constants
+         * @return this builder
+         */
+        public Builder add(Block block, int variable, int aggregation) {
+            keys.get(block.ordinal()).add(getKey(variable, aggregation));
+            return this;
+        }
+
+        /**
+         * @return the variables asked for, whatever their block and aggregation
+         */
+        public Set<Integer> getVariables() {
+            Set<Integer> variables = new TreeSet<>();
+            for (Set<Integer> blockKeys : keys) {
+                for (int key : blockKeys) {
+                    variables.add(key >>> 8);
+                }
+            }
+            return variables;
+        }
+
+        /**
+         * Copies the variables that were asked for. The response is not referenced by the snapshot and can be
+         * released as soon as this returns.
+         *
+         * @param response the response to copy the variables from
+         * @param version the number of the snapshot
+         * @param fetchTime the time at which the response was received
+         * @return the snapshot
+         */
+        public OpenMeteoForecastSnapshot build(WeatherApiResponse response, long version, Instant fetchTime) {
+            return build(response, version, fetchTime, null);
+        }
+
+        /**
+         * Copies the variables that were asked for, the blocks missing from the response being taken from the
+         * given snapshot. The response is not referenced by the snapshot and can be released as soon as this
+         * returns.
+         *
+         * @param response the response to copy the variables from
+         * @param version the number of the snapshot
+         * @param fetchTime the time at which the response was received
+         * @param previous the snapshot giving the blocks missing from the response, null to leave them missing
+         * @return the snapshot
+         */
+        public OpenMeteoForecastSnapshot build(WeatherApiResponse response, long version, Instant fetchTime,
+                @Nullable OpenMeteoForecastSnapshot previous) {
+            // an empty response has no content to read the blocks from
+            boolean empty = response.getByteBuffer() == null;
+
+            Block[] allBlocks = Block.values();
+            @Nullable
+            BlockData[] blocks = new @Nullable BlockData[allBlocks.length];
+            int[][] requestedKeys = new int[allBlocks.length][];
+            for (Block block : allBlocks) {
+                int blockIndex = block.ordinal();
+                requestedKeys[blockIndex] = keys.get(blockIndex).stream().mapToInt(Integer::intValue).toArray();
+                VariablesWithTime variables = empty ? null : getVariables(response, block);
+                if (variables != null) {
+                    blocks[blockIndex] = build(variables, requestedKeys[blockIndex]);
+                } else if (previous != null) {
+                    // both are immutable, they are shared
+                    blocks[blockIndex] = previous.blocks[blockIndex];
+                    requestedKeys[blockIndex] = previous.requestedKeys[blockIndex];
+                }
+            }
+
+            return new OpenMeteoForecastSnapshot(blocks, requestedKeys, version, fetchTime);
+        }
+
+        /**
+         * @return the variables of the given block of a response that is not empty, null if it is missing
+         */
+        static @Nullable VariablesWithTime getVariables(WeatherApiResponse response, Block block) {
+            return switch (block) {
+                case HOURLY -> response.hourly();
+                case DAILY -> response.daily();
+                case MINUTELY_15 -> response.minutely15();
+                case CURRENT -> response.current();
+            };
+        }
+
+        private static @Nullable BlockData build(@Nullable VariablesWithTime variables, int[] requestedKeys) {
+            if (variables == null) {
+                return null;
+            }
+
+            // the index is only needed while copying, it goes away with the response
+            OpenMeteoVariableIndex index = new OpenMeteoVariableIndex(variables);
+            int[] foundKeys = new int[requestedKeys.length];
+            Column[] columns = new Column[requestedKeys.length];
+            int count = 0;
+            for (int key : requestedKeys) {
+                VariableWithValues values = index.find(key >>> 8, key & 0xFF);
+                if (values != null) {
+                    foundKeys[count] = key;
+                    columns[count] = new Column(values);
+                    count++;
+                }
+            }
+
+            return new BlockData(variables.time(), variables.interval(), Arrays.copyOf(foundKeys, count),
+                    Arrays.copyOf(columns, count));
+        }
+    }
+}
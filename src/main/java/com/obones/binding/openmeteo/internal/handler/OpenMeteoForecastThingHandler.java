@@ -15,19 +15,20 @@ import static com.obones.binding.openmeteo.internal.OpenMeteoBindingConstants.*;
 import static org.openhab.core.thing.DefaultSystemChannelTypeProvider.*;
 
 import java.text.DecimalFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
-import org.openhab.core.i18n.CommunicationException;
-import org.openhab.core.i18n.ConfigurationException;
 import org.openhab.core.i18n.TimeZoneProvider;
 import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.OnOffType;
-import org.openhab.core.library.types.PointType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.library.unit.MetricPrefix;
 import org.openhab.core.library.unit.SIUnits;
@@ -48,11 +49,14 @@ import org.slf4j.LoggerFactory;
 import com.obones.binding.openmeteo.internal.config.OpenMeteoForecastThingConfiguration;
 import com.obones.binding.openmeteo.internal.connection.OpenMeteoConnection;
 import com.obones.binding.openmeteo.internal.connection.OpenMeteoConnection.ForecastValue;
+import com.obones.binding.openmeteo.internal.connection.OpenMeteoRequestPlan;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.Block;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.StateConverter;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoForecastSnapshot.BlockData;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoForecastSnapshot.Column;
 import com.obones.binding.openmeteo.internal.utils.Localization;
+import com.openmeteo.sdk.Aggregation;
 import com.openmeteo.sdk.Variable;
-import com.openmeteo.sdk.VariableWithValues;
-import com.openmeteo.sdk.VariablesWithTime;
-import com.openmeteo.sdk.WeatherApiResponse;
 
 /***
  * The{@link OpenMeteoForecastThingHandler} is responsible for updating weather forecast related channels, which are
@@ -69,12 +73,43 @@ public class OpenMeteoForecastThingHandler extends OpenMeteoBaseThingHandler {
     private static final Pattern CHANNEL_GROUP_DAILY_FORECAST_PREFIX_PATTERN = Pattern
             .compile(CHANNEL_GROUP_DAILY_PREFIX + "([0-9]*)");
 
+    /*
+     * How far ahead the adaptive refresh looks for rain or storm
+     */
+    private static final Duration ADAPTIVE_REFRESH_HORIZON = Duration.ofHours(1);
+
+    /*
+     * The values the adaptive refresh looks at, see OpenMeteoAdaptiveRefreshPolicy
+     */
+    private static final Set<ForecastValue> ADAPTIVE_REFRESH_VALUES = Collections.unmodifiableSet(
+            EnumSet.of(ForecastValue.PRECIPITATION_PROBABILITY, ForecastValue.CAPE, ForecastValue.GUST_SPEED,
+                    ForecastValue.WEATHER_CODE));
+
+    /*
+     * Read from the configuration at initialization
+     */
+    private volatile OpenMeteoForecastThingConfiguration config = new OpenMeteoForecastThingConfiguration();
+    private volatile Set<Block> cadencedBlocks = EnumSet.noneOf(Block.class);
+    private volatile @Nullable OpenMeteoAdaptiveRefreshPolicy adaptiveRefreshPolicy = null;
+
     public OpenMeteoForecastThingHandler(Thing thing, Localization localization,
             final TimeZoneProvider timeZoneProvider, ChannelTypeRegistry channelTypeRegistry) {
         super(thing, localization, timeZoneProvider, channelTypeRegistry);
         logger.trace("OpenMeteoForecastHandler(thing={},localization={}) constructor called.", thing, localization);
     }
 
+    @Override
+    protected void readConfiguration() {
+        super.readConfiguration();
+        OpenMeteoForecastThingConfiguration config = getConfigAs(OpenMeteoForecastThingConfiguration.class);
+        this.config = config;
+        cadencedBlocks = Collections.unmodifiableSet(createCadencedBlocks(config));
+        adaptiveRefreshPolicy = config.adaptiveRefresh
+                ? new OpenMeteoAdaptiveRefreshPolicy(Duration.ofMinutes(Math.max(config.minRefreshInterval, 1)),
+                        Duration.ofMinutes(config.maxRefreshInterval), ADAPTIVE_REFRESH_HORIZON)
+                : null;
+    }
+
     @Override
     protected synchronized boolean validateConfig() {
         boolean result = super.validateConfig();
@@ -107,6 +142,12 @@ public class OpenMeteoForecastThingHandler extends OpenMeteoBaseThingHandler {
                         "@text/offline.conf-error-no-past-hours-with-split");
                 return false;
             }
+
+            if (config.adaptiveRefresh && !isHourlyIncluded(config) && !config.current && !config.minutely15) {
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                        "@text/offline.conf-error-adaptive-refresh-without-blocks");
+                return false;
+            }
         }
 
         return result;
@@ -640,23 +681,90 @@ public class OpenMeteoForecastThingHandler extends OpenMeteoBaseThingHandler {
                 CHANNEL_TYPE_UID_ICON_ID, config.includeIconId, labelArguments);
     }
 
-    protected WeatherApiResponse requestData(OpenMeteoConnection connection, PointType location)
-            throws CommunicationException, ConfigurationException {
-        OpenMeteoForecastThingConfiguration config = getConfigAs(OpenMeteoForecastThingConfiguration.class);
+    /**
+     * Returns the delay until the next refresh, chosen from the volatility of the weather in the near horizon
+     * of the latest snapshot when the refresh is adaptive. Blocks retrieved at their own cadence keep following
+     * the wall clock.
+     */
+    @Override
+    public @Nullable Duration getRefreshInterval() {
+        OpenMeteoAdaptiveRefreshPolicy policy = adaptiveRefreshPolicy;
+        OpenMeteoForecastSnapshot localSnapshot = getSnapshot();
+        if (policy != null && localSnapshot != null && cadencedBlocks.isEmpty()) {
+            Duration interval = policy.getRefreshInterval(localSnapshot, Instant.now());
+            if (interval != null) {
+                return interval;
+            }
+        }
+        return super.getRefreshInterval();
+    }
 
-        return connection.getForecast(location, getForecastValues(),
-                (config.hourlyTimeSeries || config.hourlySplit) ? config.hourlyHours : null, //
-                (config.dailyTimeSeries || config.dailySplit) ? config.dailyDays : null, //
-                config.current, //
-                (config.minutely15) ? config.minutely15Steps : null, //
+    @Override
+    protected boolean isRefreshIntervalAdaptive() {
+        return adaptiveRefreshPolicy != null;
+    }
+
+    @Override
+    protected @Nullable String getModels() {
+        return config.models;
+    }
+
+    @Override
+    protected Set<Block> getCadencedBlocks() {
+        return cadencedBlocks;
+    }
+
+    private static EnumSet<Block> createCadencedBlocks(OpenMeteoForecastThingConfiguration config) {
+        EnumSet<Block> blocks = EnumSet.noneOf(Block.class);
+        if (config.blockCadence) {
+            if (isHourlyIncluded(config))
+                blocks.add(Block.HOURLY);
+            if (isDailyIncluded(config))
+                blocks.add(Block.DAILY);
+            if (config.current)
+                blocks.add(Block.CURRENT);
+            if (config.minutely15)
+                blocks.add(Block.MINUTELY_15);
+        }
+        return blocks;
+    }
+
+    private static boolean isHourlyIncluded(OpenMeteoForecastThingConfiguration config) {
+        return config.hourlyTimeSeries || config.hourlySplit;
+    }
+
+    private static boolean isDailyIncluded(OpenMeteoForecastThingConfiguration config) {
+        return config.dailyTimeSeries || config.dailySplit;
+    }
+
+    protected OpenMeteoRequestPlan createRequestPlan(OpenMeteoConnection connection) {
+        OpenMeteoForecastThingConfiguration config = this.config;
+
+        EnumSet<ForecastValue> configuredForecastValues = getForecastValues(config);
+        EnumSet<ForecastValue> forecastValues = retainRequestedValues(configuredForecastValues,
+                OpenMeteoForecastThingHandler::getForecastValue);
+        if (forecastValues.isEmpty() && (isLinkedChannelsOnly() || !configuredForecastValues.isEmpty())) {
+            return new OpenMeteoRequestPlan(null);
+        }
+        if (adaptiveRefreshPolicy != null) {
+            // read by the policy whatever the linked channels, and never pruned so that it keeps working
+            forecastValues = EnumSet.copyOf(forecastValues);
+            forecastValues.addAll(ADAPTIVE_REFRESH_VALUES);
+        }
+
+        return connection.getForecastPlan(forecastValues,
+                (isHourlyIncluded(config) && isBlockRequested(Block.HOURLY)) ? config.hourlyHours : null, //
+                (isDailyIncluded(config) && isBlockRequested(Block.DAILY)) ? config.dailyDays : null, //
+                config.current && isBlockRequested(Block.CURRENT), //
+                (config.minutely15 && isBlockRequested(Block.MINUTELY_15)) ? config.minutely15Steps : null, //
                 config.panelTilt, config.panelAzimuth, //
                 config.pastHours, config.pastDays, config.pastMinutely15Steps, //
                 config.models);
     }
 
-    private EnumSet<OpenMeteoConnection.ForecastValue> getForecastValues() {
+    private EnumSet<OpenMeteoConnection.ForecastValue> getForecastValues(
+            OpenMeteoForecastThingConfiguration config) {
         EnumSet<OpenMeteoConnection.ForecastValue> result = EnumSet.noneOf(OpenMeteoConnection.ForecastValue.class);
-        OpenMeteoForecastThingConfiguration config = getConfigAs(OpenMeteoForecastThingConfiguration.class);
 
         if (config.includeTemperature)
             result.add(ForecastValue.TEMPERATURE);
@@ -753,74 +861,88 @@ public class OpenMeteoForecastThingHandler extends OpenMeteoBaseThingHandler {
         return result;
     }
 
-    /**
-     * Updates the channel with the given UID from the latest Open Meteo data retrieved.
-     *
-     * @param channelUID UID of the channel
-     */
-    protected void updateChannel(ChannelUID channelUID) {
+    private static @Nullable ForecastValue getForecastValue(int variable) {
+        return switch (variable) {
+            case Variable.temperature -> ForecastValue.TEMPERATURE;
+            case Variable.relative_humidity -> ForecastValue.HUMIDITY;
+            case Variable.dew_point -> ForecastValue.DEW_POINT;
+            case Variable.apparent_temperature -> ForecastValue.APPARENT_TEMPERATURE;
+            case Variable.surface_pressure -> ForecastValue.PRESSURE;
+            case Variable.cloud_cover -> ForecastValue.CLOUDINESS;
+            case Variable.cloud_cover_high -> ForecastValue.CLOUD_COVER_HIGH;
+            case Variable.cloud_cover_mid -> ForecastValue.CLOUD_COVER_MID;
+            case Variable.cloud_cover_low -> ForecastValue.CLOUD_COVER_LOW;
+            case Variable.wind_speed -> ForecastValue.WIND_SPEED;
+            case Variable.wind_direction -> ForecastValue.WING_DIRECTION;
+            case Variable.wind_gusts -> ForecastValue.GUST_SPEED;
+            case Variable.shortwave_radiation -> ForecastValue.SHORTWAVE_RADIATION;
+            case Variable.direct_radiation -> ForecastValue.DIRECT_RADIATION;
+            case Variable.direct_normal_irradiance -> ForecastValue.DIRECT_NORMAL_IRRADIANCE;
+            case Variable.diffuse_radiation -> ForecastValue.DIFFUSE_RADIATION;
+            case Variable.global_tilted_irradiance -> ForecastValue.GLOBAL_TILTED_IRRADIANCE;
+            case Variable.terrestrial_radiation -> ForecastValue.TERRESTRIAL_SOLAR_RADIATION;
+            case Variable.shortwave_radiation_instant -> ForecastValue.INSTANT_SHORTWAVE_RADIATION;
+            case Variable.direct_radiation_instant -> ForecastValue.INSTANT_DIRECT_RADIATION;
+            case Variable.direct_normal_irradiance_instant -> ForecastValue.INSTANT_DIRECT_NORMAL_IRRADIANCE;
+            case Variable.diffuse_radiation_instant -> ForecastValue.INSTANT_DIFFUSE_RADIATION;
+            case Variable.global_tilted_irradiance_instant -> ForecastValue.INSTANT_GLOBAL_TILTED_IRRADIANCE;
+            case Variable.terrestrial_radiation_instant -> ForecastValue.INSTANT_TERRESTRIAL_SOLAR_RADIATION;
+            case Variable.vapour_pressure_deficit -> ForecastValue.VAPOUR_PRESSURE_DEFICIT;
+            case Variable.cape -> ForecastValue.CAPE;
+            case Variable.evapotranspiration -> ForecastValue.EVAPOTRANSPIRATION;
+            case Variable.et0_fao_evapotranspiration -> ForecastValue.ET0_EVAPOTRANSPIRATION;
+            case Variable.precipitation, Variable.precipitation_hours -> ForecastValue.PRECIPITATION;
+            case Variable.snowfall -> ForecastValue.SNOW;
+            case Variable.precipitation_probability -> ForecastValue.PRECIPITATION_PROBABILITY;
+            case Variable.rain -> ForecastValue.RAIN;
+            case Variable.showers -> ForecastValue.SHOWERS;
+            case Variable.weather_code -> ForecastValue.WEATHER_CODE;
+            case Variable.snow_depth -> ForecastValue.SNOW_DEPTH;
+            case Variable.freezing_level_height -> ForecastValue.FREEZING_LEVEL_HEIGHT;
+            case Variable.visibility -> ForecastValue.VISIBILITY;
+            case Variable.is_day -> ForecastValue.IS_DAY;
+            case Variable.sunrise -> ForecastValue.SUNRISE;
+            case Variable.sunset -> ForecastValue.SUNSET;
+            case 103 -> ForecastValue.SUNSHINE_DURATION; // Variable.sunshine_duration; defined in 1.6
+            case Variable.daylight_duration -> ForecastValue.DAYLIGHT_DURATION;
+            case Variable.uv_index -> ForecastValue.UV_INDEX;
+            case Variable.uv_index_clear_sky -> ForecastValue.UV_INDEX_CLEAR_SKY;
+            default -> null;
+        };
+    }
+
+    protected @Nullable OpenMeteoChannelDecoder createChannelDecoder(ChannelUID channelUID) {
         String channelGroupId = Objects.requireNonNullElse(channelUID.getGroupId(), "");
-        logger.debug("OpenMeteoForecastThingHandler: updateChannel {}, groupID {}", channelUID, channelGroupId);
+        logger.debug("OpenMeteoForecastThingHandler: createChannelDecoder {}, groupID {}", channelUID,
+                channelGroupId);
 
         switch (channelGroupId) {
             case CHANNEL_GROUP_HOURLY_TIME_SERIES:
-                updateHourlyTimeSeries(channelUID);
-                break;
+                return createChannelDecoder(channelUID, Block.HOURLY, true, null);
             case CHANNEL_GROUP_DAILY_TIME_SERIES:
-                updateDailyTimeSeries(channelUID);
-                break;
+                return createChannelDecoder(channelUID, Block.DAILY, true, null);
             case CHANNEL_GROUP_DAILY_TODAY:
-                updateDailyChannel(channelUID, 0);
-                break;
+                return createChannelDecoder(channelUID, Block.DAILY, false, 0);
             case CHANNEL_GROUP_DAILY_TOMORROW:
-                updateDailyChannel(channelUID, 1);
-                break;
+                return createChannelDecoder(channelUID, Block.DAILY, false, 1);
             case CHANNEL_GROUP_CURRENT:
-                updateCurrentChannel(channelUID);
-                break;
+                return createChannelDecoder(channelUID, Block.CURRENT, false, null);
             case CHANNEL_GROUP_MINUTELY_15:
-                updateMinutely15TImeSeries(channelUID);
-                break;
+                return createChannelDecoder(channelUID, Block.MINUTELY_15, true, null);
             default:
+                // hour 1 is index 0
                 Matcher hourlyForecastMatcher = CHANNEL_GROUP_HOURLY_FORECAST_PREFIX_PATTERN.matcher(channelGroupId);
                 if (hourlyForecastMatcher.find()) {
                     int i = Integer.parseInt(hourlyForecastMatcher.group(1));
-                    updateHourlyChannel(channelUID, (i - 1));
-                    break;
+                    return createChannelDecoder(channelUID, Block.HOURLY, false, (i - 1));
                 }
+                // today is index 0, tomorrow is index 1...
                 Matcher dailyForecastMatcher = CHANNEL_GROUP_DAILY_FORECAST_PREFIX_PATTERN.matcher(channelGroupId);
                 if (dailyForecastMatcher.find()) {
                     int i = Integer.parseInt(dailyForecastMatcher.group(1));
-                    updateDailyChannel(channelUID, i);
-                    break;
+                    return createChannelDecoder(channelUID, Block.DAILY, false, i);
                 }
-                break;
-        }
-    }
-
-    /**
-     * Update the hourly forecast channel from the last Open Meteo data retrieved.
-     *
-     * @param channelUID the id identifying the channel to be updated
-     * @param index the index of the hourly data referenced by the channel (hour 1 is index 0)
-     */
-    private void updateHourlyChannel(ChannelUID channelUID, int index) {
-        var forecastData = this.forecastData;
-        if (forecastData != null) {
-            updateForecastChannel(channelUID, forecastData.hourly(), index);
-        }
-    }
-
-    /**
-     * Update the daily forecast channel from the last Open Meteo data retrieved.
-     *
-     * @param channelUID the id identifying the channel to be updated
-     * @param index the index of the daily data referenced by the channel (today is index 0, tomorrow is index 1...)
-     */
-    private void updateDailyChannel(ChannelUID channelUID, int index) {
-        var forecastData = this.forecastData;
-        if (forecastData != null) {
-            updateForecastChannel(channelUID, forecastData.daily(), index);
+                return null;
         }
     }
 
@@ -940,22 +1062,20 @@ public class OpenMeteoForecastThingHandler extends OpenMeteoBaseThingHandler {
     }
 
     @Override
-    protected State getForecastState(String channelId, VariableWithValues values, @Nullable Integer valueIndex,
-            @Nullable VariablesWithTime forecast) {
-        State channelState = super.getForecastState(channelId, values, valueIndex, forecast);
+    protected State getForecastState(OpenMeteoChannelDecoder decoder, Column values, @Nullable Integer valueIndex,
+            BlockData forecast) {
+        State channelState = super.getForecastState(decoder, values, valueIndex, forecast);
 
-        if (channelId.equals(CHANNEL_FORECAST_ICON_ID)) {
+        if (decoder.getChannelId().equals(CHANNEL_FORECAST_ICON_ID)) {
             int weatherCode = 0;
             DecimalType decimalState = channelState.as(DecimalType.class);
             if (decimalState != null) {
                 weatherCode = decimalState.intValue();
             }
 
-            StringBuilder isDayChannelId = new StringBuilder(CHANNEL_FORECAST_IS_DAY);
-            VariableWithValues isDayValues = getVariableValues(isDayChannelId, forecast);
+            Column isDayValues = forecast.find(Variable.is_day, Aggregation.none);
 
-            State isDayState = (isDayValues != null)
-                    ? super.getForecastState(CHANNEL_FORECAST_IS_DAY, isDayValues, valueIndex, forecast)
+            State isDayState = (isDayValues != null) ? getOnOffState(isDayValues.getFloatValue(valueIndex))
                     : UnDefType.UNDEF;
 
             return getIconIdState(weatherCode, (isDayState != OnOffType.OFF));
@@ -964,133 +1084,111 @@ public class OpenMeteoForecastThingHandler extends OpenMeteoBaseThingHandler {
         return channelState;
     }
 
-    protected State getForecastState(String channelId, @Nullable Float floatValue, @Nullable Long longValue) {
-        State state = UnDefType.UNDEF;
+    @Override
+    protected void addSnapshotColumns(OpenMeteoForecastSnapshot.Builder builder, OpenMeteoChannelDecoder decoder) {
+        super.addSnapshotColumns(builder, decoder);
 
+        // the icon depends on the time of day
+        if (decoder.getChannelId().equals(CHANNEL_FORECAST_ICON_ID)) {
+            builder.add(decoder.getBlock(), Variable.is_day, Aggregation.none);
+        }
+    }
+
+    @Override
+    protected void addSnapshotColumns(OpenMeteoForecastSnapshot.Builder builder) {
+        if (adaptiveRefreshPolicy != null) {
+            OpenMeteoAdaptiveRefreshPolicy.addSnapshotColumns(builder);
+        }
+    }
+
+    protected StateConverter getStateConverter(String channelId) {
         switch (channelId) {
             case CHANNEL_FORECAST_TEMPERATURE:
-                state = getQuantityTypeState(floatValue, SIUnits.CELSIUS);
-                break;
+                return getQuantityTypeConverter(SIUnits.CELSIUS);
             case CHANNEL_FORECAST_HUMIDITY:
-                state = getQuantityTypeState(floatValue, Units.PERCENT);
-                break;
+                return getQuantityTypeConverter(Units.PERCENT);
             case CHANNEL_FORECAST_DEW_POINT:
-                state = getQuantityTypeState(floatValue, SIUnits.CELSIUS);
-                break;
+                return getQuantityTypeConverter(SIUnits.CELSIUS);
             case CHANNEL_FORECAST_APPARENT_TEMPERATURE:
-                state = getQuantityTypeState(floatValue, SIUnits.CELSIUS);
-                break;
+                return getQuantityTypeConverter(SIUnits.CELSIUS);
             case CHANNEL_FORECAST_PRESSURE:
-                state = getQuantityTypeState(floatValue, MetricPrefix.HECTO(SIUnits.PASCAL));
-                break;
+                return getQuantityTypeConverter(MetricPrefix.HECTO(SIUnits.PASCAL));
             case CHANNEL_FORECAST_CLOUDINESS:
             case CHANNEL_FORECAST_CLOUD_COVER_HIGH:
             case CHANNEL_FORECAST_CLOUD_COVER_MID:
             case CHANNEL_FORECAST_CLOUD_COVER_LOW:
-                state = getQuantityTypeState(floatValue, Units.PERCENT);
-                break;
+                return getQuantityTypeConverter(Units.PERCENT);
             case CHANNEL_FORECAST_WIND_SPEED:
-                state = getQuantityTypeState(floatValue, Units.METRE_PER_SECOND);
-                break;
+                return getQuantityTypeConverter(Units.METRE_PER_SECOND);
             case CHANNEL_FORECAST_WIND_DIRECTION:
-                state = getQuantityTypeState(floatValue, Units.DEGREE_ANGLE);
-                break;
+                return getQuantityTypeConverter(Units.DEGREE_ANGLE);
             case CHANNEL_FORECAST_GUST_SPEED:
-                state = getQuantityTypeState(floatValue, Units.METRE_PER_SECOND);
-                break;
+                return getQuantityTypeConverter(Units.METRE_PER_SECOND);
             case CHANNEL_FORECAST_SHORTWAVE_RADIATION:
             case CHANNEL_FORECAST_INSTANT_SHORTWAVE_RADIATION:
-                state = getQuantityTypeState(floatValue, 100, Units.MICROWATT_PER_SQUARE_CENTIMETRE);
-                break;
+                return getQuantityTypeConverter(100, Units.MICROWATT_PER_SQUARE_CENTIMETRE);
             case CHANNEL_FORECAST_DIRECT_RADIATION:
             case CHANNEL_FORECAST_INSTANT_DIRECT_RADIATION:
-                state = getQuantityTypeState(floatValue, 100, Units.MICROWATT_PER_SQUARE_CENTIMETRE);
-                break;
+                return getQuantityTypeConverter(100, Units.MICROWATT_PER_SQUARE_CENTIMETRE);
             case CHANNEL_FORECAST_DIRECT_NORMAL_IRRADIANCE:
             case CHANNEL_FORECAST_INSTANT_DIRECT_NORMAL_IRRADIANCE:
-                state = getQuantityTypeState(floatValue, 100, Units.MICROWATT_PER_SQUARE_CENTIMETRE);
-                break;
+                return getQuantityTypeConverter(100, Units.MICROWATT_PER_SQUARE_CENTIMETRE);
             case CHANNEL_FORECAST_DIFFUSE_RADIATION:
             case CHANNEL_FORECAST_INSTANT_DIFFUSE_RADIATION:
-                state = getQuantityTypeState(floatValue, 100, Units.MICROWATT_PER_SQUARE_CENTIMETRE);
-                break;
+                return getQuantityTypeConverter(100, Units.MICROWATT_PER_SQUARE_CENTIMETRE);
             case CHANNEL_FORECAST_GLOBAL_TILTED_IRRADIANCE:
             case CHANNEL_FORECAST_INSTANT_GLOBAL_TILTED_IRRADIANCE:
-                state = getQuantityTypeState(floatValue, 100, Units.MICROWATT_PER_SQUARE_CENTIMETRE);
-                break;
+                return getQuantityTypeConverter(100, Units.MICROWATT_PER_SQUARE_CENTIMETRE);
             case CHANNEL_FORECAST_TERRESTRIAL_SOLAR_RADIATION:
             case CHANNEL_FORECAST_INSTANT_TERRESTRIAL_SOLAR_RADIATION:
-                state = getQuantityTypeState(floatValue, 100, Units.MICROWATT_PER_SQUARE_CENTIMETRE);
-                break;
+                return getQuantityTypeConverter(100, Units.MICROWATT_PER_SQUARE_CENTIMETRE);
             case CHANNEL_FORECAST_VAPOUR_PRESSURE_DEFICIT:
-                state = getQuantityTypeState(floatValue, MetricPrefix.HECTO(SIUnits.PASCAL));
-                break;
+                return getQuantityTypeConverter(MetricPrefix.HECTO(SIUnits.PASCAL));
             case CHANNEL_FORECAST_CAPE:
-                state = getDecimalTypeState(floatValue); // OpenMeteoBindingUnits.JOULES_PER_KILOGRAM);
-                break;
+                return getDecimalTypeConverter(); // OpenMeteoBindingUnits.JOULES_PER_KILOGRAM);
             case CHANNEL_FORECAST_EVAPOTRANSPIRATION:
-                state = getQuantityTypeState(floatValue, MetricPrefix.MILLI(SIUnits.METRE));
-                break;
+                return getQuantityTypeConverter(MetricPrefix.MILLI(SIUnits.METRE));
             case CHANNEL_FORECAST_ET0_EVAPOTRANSPIRATION:
-                state = getQuantityTypeState(floatValue, MetricPrefix.MILLI(SIUnits.METRE));
-                break;
+                return getQuantityTypeConverter(MetricPrefix.MILLI(SIUnits.METRE));
             case CHANNEL_FORECAST_PRECIPITATION:
-                state = getQuantityTypeState(floatValue, MetricPrefix.MILLI(SIUnits.METRE));
-                break;
+                return getQuantityTypeConverter(MetricPrefix.MILLI(SIUnits.METRE));
             case CHANNEL_FORECAST_PRECIPITATION_HOURS:
-                state = getQuantityTypeState(floatValue, Units.HOUR);
-                break;
+                return getQuantityTypeConverter(Units.HOUR);
             case CHANNEL_FORECAST_SNOW:
-                state = getQuantityTypeState(floatValue, MetricPrefix.CENTI(SIUnits.METRE));
-                break;
+                return getQuantityTypeConverter(MetricPrefix.CENTI(SIUnits.METRE));
             case CHANNEL_FORECAST_PRECIPITATION_PROBABILITY:
-                state = getQuantityTypeState(floatValue, Units.PERCENT);
-                break;
+                return getQuantityTypeConverter(Units.PERCENT);
             case CHANNEL_FORECAST_RAIN:
-                state = getQuantityTypeState(floatValue, MetricPrefix.MILLI(SIUnits.METRE));
-                break;
+                return getQuantityTypeConverter(MetricPrefix.MILLI(SIUnits.METRE));
             case CHANNEL_FORECAST_SHOWERS:
-                state = getQuantityTypeState(floatValue, MetricPrefix.MILLI(SIUnits.METRE));
-                break;
+                return getQuantityTypeConverter(MetricPrefix.MILLI(SIUnits.METRE));
             case CHANNEL_FORECAST_WEATHER_CODE:
             case CHANNEL_FORECAST_ICON_ID: // same as above
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_FORECAST_SNOW_DEPTH:
-                state = getQuantityTypeState(floatValue, SIUnits.METRE);
-                break;
+                return getQuantityTypeConverter(SIUnits.METRE);
             case CHANNEL_FORECAST_FREEZING_LEVEL_HEIGHT:
-                state = getQuantityTypeState(floatValue, SIUnits.METRE);
-                break;
+                return getQuantityTypeConverter(SIUnits.METRE);
             case CHANNEL_FORECAST_VISIBILITY:
-                state = getQuantityTypeState(floatValue, SIUnits.METRE);
-                break;
+                return getQuantityTypeConverter(SIUnits.METRE);
             case CHANNEL_FORECAST_IS_DAY:
-                state = getOnOffState(floatValue);
-                break;
+                return getOnOffConverter();
             case CHANNEL_FORECAST_SUNRISE:
-                state = getDateTimeTypeState(longValue);
-                break;
+                return getDateTimeTypeConverter();
             case CHANNEL_FORECAST_SUNSET:
-                state = getDateTimeTypeState(longValue);
-                break;
+                return getDateTimeTypeConverter();
             case CHANNEL_FORECAST_SUNSHINE_DURATION:
-                state = getQuantityTypeState(floatValue, Units.SECOND);
-                break;
+                return getQuantityTypeConverter(Units.SECOND);
             case CHANNEL_FORECAST_DAYLIGHT_DURATION:
-                state = getQuantityTypeState(floatValue, Units.SECOND);
-                break;
+                return getQuantityTypeConverter(Units.SECOND);
             case CHANNEL_FORECAST_UV_INDEX:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             case CHANNEL_FORECAST_UV_INDEX_CLEAR_SKY:
-                state = getDecimalTypeState(floatValue);
-                break;
+                return getDecimalTypeConverter();
             default:
                 // This should not happen
                 logger.warn("Unknown channel id {} in weather data", channelId);
-                break;
+                return getUndefConverter();
         }
-        return state;
     }
 }
@@ -3,32 +3,31 @@ package com.obones.binding.openmeteo.internal.handler;
 import static com.obones.binding.openmeteo.internal.OpenMeteoBindingConstants.*;
 import static org.openhab.core.thing.DefaultSystemChannelTypeProvider.SYSTEM_CHANNEL_TYPE_UID_OUTDOOR_TEMPERATURE;
 
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
-import org.openhab.core.i18n.CommunicationException;
-import org.openhab.core.i18n.ConfigurationException;
 import org.openhab.core.i18n.TimeZoneProvider;
-import org.openhab.core.library.types.PointType;
 import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.thing.Thing;
 import org.openhab.core.thing.ThingUID;
 import org.openhab.core.thing.binding.ThingHandlerCallback;
 import org.openhab.core.thing.binding.builder.ThingBuilder;
 import org.openhab.core.thing.type.ChannelTypeRegistry;
-import org.openhab.core.types.State;
-import org.openhab.core.types.UnDefType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.obones.binding.openmeteo.internal.config.OpenMeteoMarineForecastThingConfiguration;
 import com.obones.binding.openmeteo.internal.connection.OpenMeteoConnection;
 import com.obones.binding.openmeteo.internal.connection.OpenMeteoConnection.MarineForecastValue;
+import com.obones.binding.openmeteo.internal.connection.OpenMeteoRequestPlan;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.Block;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.StateConverter;
 import com.obones.binding.openmeteo.internal.utils.Localization;
 import com.openmeteo.sdk.Variable;
-import com.openmeteo.sdk.WeatherApiResponse;
 
 /***
  * The{@link OpenMeteoMarineForecastThingHandler} is responsible for updating marine weather forecast related channels,
@@ -40,6 +39,12 @@ import com.openmeteo.sdk.WeatherApiResponse;
 public class OpenMeteoMarineForecastThingHandler extends OpenMeteoBaseThingHandler {
     private @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(OpenMeteoBridgeHandler.class);
 
+    /*
+     * Read from the configuration at initialization
+     */
+    private volatile OpenMeteoMarineForecastThingConfiguration config = new OpenMeteoMarineForecastThingConfiguration();
+    private volatile Set<Block> cadencedBlocks = EnumSet.noneOf(Block.class);
+
     public OpenMeteoMarineForecastThingHandler(Thing thing, Localization localization,
             final TimeZoneProvider timeZoneProvider, ChannelTypeRegistry channelTypeRegistry) {
         super(thing, localization, timeZoneProvider, channelTypeRegistry);
@@ -47,6 +52,15 @@ public class OpenMeteoMarineForecastThingHandler extends OpenMeteoBaseThingHandl
                 localization);
     }
 
+    @Override
+    protected void readConfiguration() {
+        super.readConfiguration();
+        OpenMeteoMarineForecastThingConfiguration config = getConfigAs(
+                OpenMeteoMarineForecastThingConfiguration.class);
+        this.config = config;
+        cadencedBlocks = Collections.unmodifiableSet(createCadencedBlocks(config));
+    }
+
     protected void initializeChannels(ThingHandlerCallback callback, ThingBuilder builder, ThingUID thingUID) {
         OpenMeteoMarineForecastThingConfiguration config = getConfigAs(OpenMeteoMarineForecastThingConfiguration.class);
 
@@ -277,39 +291,95 @@ public class OpenMeteoMarineForecastThingHandler extends OpenMeteoBaseThingHandl
         return builder;
     }
 
-    protected void updateChannel(ChannelUID channelUID) {
+    protected @Nullable OpenMeteoChannelDecoder createChannelDecoder(ChannelUID channelUID) {
         String channelGroupId = Objects.requireNonNullElse(channelUID.getGroupId(), "");
-        logger.debug("OpenMeteoMarineForecastThingHandler: updateChannel {}, groupID {}", channelUID, channelGroupId);
+        logger.debug("OpenMeteoMarineForecastThingHandler: createChannelDecoder {}, groupID {}", channelUID,
+                channelGroupId);
 
         switch (channelGroupId) {
             case CHANNEL_GROUP_HOURLY_TIME_SERIES:
-                updateHourlyTimeSeries(channelUID);
-                break;
+                return createChannelDecoder(channelUID, Block.HOURLY, true, null);
             case CHANNEL_GROUP_DAILY_TIME_SERIES:
-                updateDailyTimeSeries(channelUID);
-                break;
+                return createChannelDecoder(channelUID, Block.DAILY, true, null);
             case CHANNEL_GROUP_CURRENT:
-                updateCurrentChannel(channelUID);
-                break;
+                return createChannelDecoder(channelUID, Block.CURRENT, false, null);
         }
+        return null;
     }
 
-    protected WeatherApiResponse requestData(OpenMeteoConnection connection, PointType location)
-            throws CommunicationException, ConfigurationException {
-        OpenMeteoMarineForecastThingConfiguration config = getConfigAs(OpenMeteoMarineForecastThingConfiguration.class);
+    @Override
+    protected @Nullable String getModels() {
+        return config.models;
+    }
+
+    @Override
+    protected Set<Block> getCadencedBlocks() {
+        return cadencedBlocks;
+    }
+
+    private static EnumSet<Block> createCadencedBlocks(OpenMeteoMarineForecastThingConfiguration config) {
+        EnumSet<Block> blocks = EnumSet.noneOf(Block.class);
+        if (config.blockCadence) {
+            if (config.hourlyTimeSeries)
+                blocks.add(Block.HOURLY);
+            if (config.dailyTimeSeries)
+                blocks.add(Block.DAILY);
+            if (config.current)
+                blocks.add(Block.CURRENT);
+        }
+        return blocks;
+    }
+
+    protected OpenMeteoRequestPlan createRequestPlan(OpenMeteoConnection connection) {
+        OpenMeteoMarineForecastThingConfiguration config = this.config;
 
-        return connection.getMarineForecast(location, getMarineForecastValues(),
-                (config.hourlyTimeSeries) ? config.hourlyHours : null, //
-                (config.dailyTimeSeries) ? config.dailyDays : null, //
-                config.current, //
+        EnumSet<MarineForecastValue> configuredMarineForecastValues = getMarineForecastValues(config);
+        EnumSet<MarineForecastValue> marineForecastValues = retainRequestedValues(configuredMarineForecastValues,
+                OpenMeteoMarineForecastThingHandler::getMarineForecastValue);
+        if (marineForecastValues.isEmpty() && (isLinkedChannelsOnly() || !configuredMarineForecastValues.isEmpty())) {
+            return new OpenMeteoRequestPlan(null);
+        }
+
+        return connection.getMarineForecastPlan(marineForecastValues,
+                (config.hourlyTimeSeries && isBlockRequested(Block.HOURLY)) ? config.hourlyHours : null, //
+                (config.dailyTimeSeries && isBlockRequested(Block.DAILY)) ? config.dailyDays : null, //
+                config.current && isBlockRequested(Block.CURRENT), //
                 config.pastHours, config.pastDays, //
                 config.models);
     }
 
-    private EnumSet<OpenMeteoConnection.MarineForecastValue> getMarineForecastValues() {
+    private static @Nullable MarineForecastValue getMarineForecastValue(int variable) {
+        return switch (variable) {
+            case Variable.wave_height -> MarineForecastValue.WAVE_HEIGHT;
+            case Variable.wind_wave_height -> MarineForecastValue.WIND_WAVE_HEIGHT;
+            case Variable.swell_wave_height -> MarineForecastValue.SWELL_WAVE_HEIGHT;
+            case 141 -> MarineForecastValue.SECONDARY_SWELL_WAVE_HEIGHT; // secondary_swell_wave_height
+            case 145 -> MarineForecastValue.TERTIARY_SWELL_WAVE_HEIGHT; // tertiary_swell_wave_height
+            case Variable.wave_direction -> MarineForecastValue.WAVE_DIRECTION;
+            case Variable.wind_wave_direction -> MarineForecastValue.WIND_WAVE_DIRECTION;
+            case Variable.swell_wave_direction -> MarineForecastValue.SWELL_WAVE_DIRECTION;
+            case 144 -> MarineForecastValue.SECONDARY_SWELL_WAVE_DIRECTION; // secondary_swell_wave_direction
+            case 148 -> MarineForecastValue.TERTIARY_SWELL_WAVE_DIRECTION; // tertiary_swell_wave_direction
+            case Variable.wave_period -> MarineForecastValue.WAVE_PERIOD;
+            case Variable.wind_wave_period -> MarineForecastValue.WIND_WAVE_PERIOD;
+            case Variable.swell_wave_period -> MarineForecastValue.SWELL_WAVE_PERIOD;
+            case 142 -> MarineForecastValue.SECONDARY_SWELL_WAVE_PERIOD; // secondary_swell_wave_period
+            case 146 -> MarineForecastValue.TERTIARY_SWELL_WAVE_PERIOD; // tertiary_swell_wave_period
+            case Variable.wind_wave_peak_period -> MarineForecastValue.WIND_WAVE_PEAK_PERIOD;
+            case Variable.swell_wave_peak_period -> MarineForecastValue.SWELL_WAVE_PEAK_PERIOD;
+            case 108 -> MarineForecastValue.OCEAN_CURRENT_VELOCITY; // ocean_current_velocity
+            case 109 -> MarineForecastValue.OCEAN_CURRENT_DIRECTION; // ocean_current_direction
+            case 133 -> MarineForecastValue.SEA_SURFACE_TEMPERATURE; // sea_surface_temperature
+            case 132 -> MarineForecastValue.SEA_LEVEL_HEIGHT_MSL; // sea_level_height_msl
+            case 134 -> MarineForecastValue.INVERT_BAROMETER_HEIGHT; // invert_barometer_height
+            default -> null;
+        };
+    }
+
+    private EnumSet<OpenMeteoConnection.MarineForecastValue> getMarineForecastValues(
+            OpenMeteoMarineForecastThingConfiguration config) {
         EnumSet<OpenMeteoConnection.MarineForecastValue> result = EnumSet
                 .noneOf(OpenMeteoConnection.MarineForecastValue.class);
-        OpenMeteoMarineForecastThingConfiguration config = getConfigAs(OpenMeteoMarineForecastThingConfiguration.class);
 
         if (config.includeWaveHeight)
             result.add(MarineForecastValue.WAVE_HEIGHT);
@@ -387,59 +457,56 @@ public class OpenMeteoMarineForecastThingHandler extends OpenMeteoBaseThingHandl
         };
     }
 
-    protected State getForecastState(String channelId, @Nullable Float floatValue, @Nullable Long longValue) {
-        State state = UnDefType.UNDEF;
-
+    protected StateConverter getStateConverter(String channelId) {
         switch (channelId) {
             case CHANNEL_MARINE_FORECAST_WAVE_HEIGHT:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_WIND_WAVE_HEIGHT:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_SWELL_WAVE_HEIGHT:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_SECONDARY_SWELL_WAVE_HEIGHT:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_TERTIARY_SWELL_WAVE_HEIGHT:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_WAVE_DIRECTION:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_WIND_WAVE_DIRECTION:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_SWELL_WAVE_DIRECTION:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_SECONDARY_SWELL_WAVE_DIRECTION:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_TERTIARY_SWELL_WAVE_DIRECTION:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_WAVE_PERIOD:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_WIND_WAVE_PERIOD:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_SWELL_WAVE_PERIOD:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_SECONDARY_SWELL_WAVE_PERIOD:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_TERTIARY_SWELL_WAVE_PERIOD:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_WIND_WAVE_PEAK_PERIOD:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_SWELL_WAVE_PEAK_PERIOD:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_OCEAN_CURRENT_VELOCITY:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_OCEAN_CURRENT_DIRECTION:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_SEA_SURFACE_TEMPERATURE:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_SEA_LEVEL_HEIGHT_MSL:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             case CHANNEL_MARINE_FORECAST_INVERT_BAROMETER_HEIGHT:
-                return getDecimalTypeState(floatValue);
+                return getDecimalTypeConverter();
             default:
                 // This should not happen
                 logger.warn("Unknown channel id {} in marine weather data", channelId);
-                break;
+                return getUndefConverter();
         }
-        return state;
     }
 }
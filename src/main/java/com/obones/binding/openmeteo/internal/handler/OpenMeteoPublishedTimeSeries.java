@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.handler;
+
+import java.time.Instant;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.types.State;
+import org.openhab.core.types.TimeSeries;
+
+/**
+ * The {@link OpenMeteoPublishedTimeSeries} holds the points sent for a time series channel, null where the state
+ * was undefined, so that the next refresh only sends the points that changed.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoPublishedTimeSeries {
+    private final long time;
+    private final long interval;
+    private final @Nullable State[] states;
+
+    /**
+     * @param time the time of the first point, in seconds since the epoch
+     * @param interval the time between two points, in seconds
+     * @param states the state of each point, null where it is undefined
+     */
+    public OpenMeteoPublishedTimeSeries(long time, long interval, @Nullable State[] states) {
+        this.time = time;
+        this.interval = interval;
+        this.states = states;
+    }
+
+    /**
+     * Builds the time series to send so that the channel holds this series.
+     * <P>
+     * Only the points that differ from the previous series are added to it when the time axis has not shifted and
+     * no point has become undefined. Otherwise all the defined points replace the previous series.
+     *
+     * @param previous the series sent last, null if none was
+     * @return the time series to send, null when it would not change anything
+     */
+    public @Nullable TimeSeries getUpdateFrom(@Nullable OpenMeteoPublishedTimeSeries previous) {
+        if (previous == null || !previous.canBeUpdatedTo(this)) {
+            TimeSeries timeSeries = new TimeSeries(TimeSeries.Policy.REPLACE);
+            addTo(timeSeries, null);
+            return timeSeries;
+        }
+
+        TimeSeries timeSeries = new TimeSeries(TimeSeries.Policy.ADD);
+        addTo(timeSeries, previous);
+        return (timeSeries.size() == 0) ? null : timeSeries;
+    }
+
+    /**
+     * Tells whether adding points to this series gives the given one, which is not the case when the time axis
+     * has shifted or when points have become undefined
+     */
+    private boolean canBeUpdatedTo(OpenMeteoPublishedTimeSeries next) {
+        if (time != next.time || interval != next.interval || states.length != next.states.length) {
+            return false;
+        }
+        for (int valueIndex = 0; valueIndex < states.length; valueIndex++) {
+            if (states[valueIndex] != null && next.states[valueIndex] == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the defined points to the given time series, only those that differ from the previous series if
+     * one is given
+     */
+    private void addTo(TimeSeries timeSeries, @Nullable OpenMeteoPublishedTimeSeries previous) {
+        for (int valueIndex = 0; valueIndex < states.length; valueIndex++) {
+            State state = states[valueIndex];
+            if (state != null && (previous == null || !state.equals(previous.states[valueIndex]))) {
+                timeSeries.add(Instant.ofEpochSecond(time + valueIndex * interval), state);
+            }
+        }
+    }
+}
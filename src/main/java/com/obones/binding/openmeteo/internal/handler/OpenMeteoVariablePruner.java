@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.handler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.openmeteo.sdk.VariableWithValues;
+import com.openmeteo.sdk.VariablesWithTime;
+import com.openmeteo.sdk.WeatherApiResponse;
+
+/**
+ * The {@link OpenMeteoVariablePruner} finds the variables of a thing that keep coming back without any value, so
+ * that they are left out of its requests.
+ * <P>
+ * A variable whose values were all NaN in the given number of consecutive responses is pruned. It is asked for
+ * again once its pruning delay has elapsed, the delay doubling each time the variable is found empty again, up to a
+ * maximum. A response with a single valid value for a variable makes it a regular variable again.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoVariablePruner {
+    private static final Duration INITIAL_PRUNING_DELAY = Duration.ofHours(6);
+    private static final Duration MAX_PRUNING_DELAY = Duration.ofDays(7);
+
+    private static class VariableState {
+        private int emptyCount;
+        private @Nullable Duration pruningDelay;
+        private @Nullable Instant prunedUntil;
+    }
+
+    private final int threshold;
+    private final Map<Integer, VariableState> states = new HashMap<>();
+
+    /**
+     * @param threshold the number of consecutive empty responses after which a variable is pruned
+     */
+    public OpenMeteoVariablePruner(int threshold) {
+        this.threshold = Math.max(threshold, 1);
+    }
+
+    /**
+     * Counts the variables of the given response that have no value
+     *
+     * @param response the response to look at, it is only read
+     * @param now the current time
+     * @return true if variables were pruned
+     */
+    public synchronized boolean observe(WeatherApiResponse response, Instant now) {
+        if (response.getByteBuffer() == null) {
+            // nothing was received, which says nothing about the variables
+            return false;
+        }
+
+        Map<Integer, Boolean> hasValues = new TreeMap<>();
+        VariableWithValues values = new VariableWithValues();
+        for (VariablesWithTime block : new @Nullable VariablesWithTime[] { response.current(), response.minutely15(),
+                response.hourly(), response.daily() }) {
+            if (block != null) {
+                for (int position = 0; position < block.variablesLength(); position++) {
+                    block.variables(values, position);
+                    hasValues.merge(values.variable(), hasValues(values), Boolean::logicalOr);
+                }
+            }
+        }
+
+        boolean pruned = false;
+        for (Map.Entry<Integer, Boolean> entry : hasValues.entrySet()) {
+            VariableState state = states.computeIfAbsent(entry.getKey(), variable -> new VariableState());
+            if (entry.getValue()) {
+                state.emptyCount = 0;
+                state.pruningDelay = null;
+                state.prunedUntil = null;
+                continue;
+            }
+
+            if (state.prunedUntil != null) {
+                // received with a request prepared before it was pruned
+                continue;
+            }
+
+            state.emptyCount++;
+            Duration pruningDelay = state.pruningDelay;
+            if (pruningDelay != null) {
+                // still empty when checked again
+                pruningDelay = pruningDelay.multipliedBy(2);
+                if (pruningDelay.compareTo(MAX_PRUNING_DELAY) > 0) {
+                    pruningDelay = MAX_PRUNING_DELAY;
+                }
+            } else if (state.emptyCount >= threshold) {
+                pruningDelay = INITIAL_PRUNING_DELAY;
+            } else {
+                continue;
+            }
+            state.pruningDelay = pruningDelay;
+            state.prunedUntil = now.plus(pruningDelay);
+            pruned = true;
+        }
+        return pruned;
+    }
+
+    /**
+     * Asks again for the pruned variables whose delay has elapsed
+     *
+     * @param now the current time
+     * @return true if variables are not pruned anymore
+     */
+    public synchronized boolean expire(Instant now) {
+        boolean expired = false;
+        for (VariableState state : states.values()) {
+            Instant prunedUntil = state.prunedUntil;
+            if (prunedUntil != null && !prunedUntil.isAfter(now)) {
+                state.prunedUntil = null;
+                expired = true;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * @return the variables found in the responses so far, pruned or not, in ascending order
+     */
+    public synchronized Set<Integer> getObservedVariables() {
+        return new TreeSet<>(states.keySet());
+    }
+
+    /**
+     * @return the variables that are currently pruned, in ascending order
+     */
+    public synchronized Set<Integer> getPrunedVariables() {
+        Set<Integer> result = new TreeSet<>();
+        states.forEach((variable, state) -> {
+            if (state.prunedUntil != null) {
+                result.add(variable);
+            }
+        });
+        return result;
+    }
+
+    private static boolean hasValues(VariableWithValues values) {
+        if (values.valuesInt64Length() > 0) {
+            return true;
+        }
+
+        int length = values.valuesLength();
+        if (length == 0) {
+            return !Float.isNaN(values.value());
+        }
+        for (int valueIndex = 0; valueIndex < length; valueIndex++) {
+            if (!Float.isNaN(values.values(valueIndex))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.refresh;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link OpenMeteoBoundedExecutor} runs the work of a stage of the refreshes of a bridge, away from the thread
+ * pool openHAB shares between all the bindings.
+ * <P>
+ * At most the given number of tasks run at once, the others waiting in a bounded queue. Once the queue is full,
+ * a task runs in the thread that submitted it, which slows the submitter down instead of dropping the task. Once
+ * the executor is shut down, the tasks are rejected with a {@link RejectedExecutionException}.
+ * <P>
+ * The tasks run either on a pool of platform threads, or on a new virtual thread each when the runtime offers
+ * them, from Java 21 onwards. The pool is used when virtual threads are not available.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoBoundedExecutor implements Executor {
+    private @NonNullByDefault({}) static final Logger logger = LoggerFactory.getLogger(OpenMeteoBoundedExecutor.class);
+
+    private static final long KEEP_ALIVE_IN_SECONDS = 60;
+
+    private final ExecutorService executor;
+
+    /*
+     * Only with virtual threads, which the executor does not bound: the tasks submitted and not completed yet, and
+     * the tasks running
+     */
+    private final @Nullable Semaphore submitted;
+    private final @Nullable Semaphore running;
+
+    /**
+     * @param name the name of the threads of the pool
+     * @param parallelism the maximum number of tasks running at once
+     * @param queueSize the maximum number of tasks waiting to run
+     * @param virtualThreads true to run each task on its own virtual thread, if the runtime offers them
+     */
+    public OpenMeteoBoundedExecutor(String name, int parallelism, int queueSize, boolean virtualThreads) {
+        parallelism = Math.max(parallelism, 1);
+        queueSize = Math.max(queueSize, 1);
+
+        ExecutorService virtualThreadExecutor = virtualThreads ? createVirtualThreadExecutor() : null;
+        if (virtualThreadExecutor != null) {
+            executor = virtualThreadExecutor;
+            submitted = new Semaphore(parallelism + queueSize);
+            running = new Semaphore(parallelism);
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, KEEP_ALIVE_IN_SECONDS,
+                    TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), new NamedThreadFactory(name),
+                    OpenMeteoBoundedExecutor::rejectedExecution);
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+            submitted = null;
+            running = null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Semaphore localSubmitted = submitted;
+        Semaphore localRunning = running;
+        if (localSubmitted == null || localRunning == null) {
+            executor.execute(command);
+            return;
+        }
+
+        if (!localSubmitted.tryAcquire()) {
+            // same as the pool with a full queue
+            command.run();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    // blocking a virtual thread does not hold a platform thread
+                    localRunning.acquireUninterruptibly();
+                    try {
+                        command.run();
+                    } finally {
+                        localRunning.release();
+                    }
+                } finally {
+                    localSubmitted.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shut down
+            localSubmitted.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the running tasks, the tasks submitted afterwards are rejected
+     *
+     * @return the tasks that were waiting to run, they never will
+     */
+    public List<Runnable> shutdown() {
+        return executor.shutdownNow();
+    }
+
+    /**
+     * Runs the task in the thread that submitted it when the queue is full, unlike
+     * {@link ThreadPoolExecutor.CallerRunsPolicy} it does not silently drop the task once the pool is shut down
+     */
+    private static void rejectedExecution(Runnable command, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("The executor is shut down");
+        }
+        command.run();
+    }
+
+    private static @Nullable ExecutorService createVirtualThreadExecutor() {
+        try {
+            // looked up at runtime as the binding is built for runtimes without virtual threads
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            logger.info("Virtual threads are not available on this runtime, using a thread pool instead.");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.refresh;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link OpenMeteoModelRunSchedule} tells when the runs of the weather models are expected to be available, so
+ * that things are only refreshed once new data can be returned.
+ * <P>
+ * The schedule is a comma separated list of <code>model:cycle:delay</code> entries, the cycle being the number of
+ * minutes between two runs, starting at midnight UTC, and the delay the number of minutes after which a run becomes
+ * available. The <code>default</code> model applies to the things that do not ask for specific models.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoModelRunSchedule {
+    private @NonNullByDefault({}) static final Logger logger = LoggerFactory.getLogger(OpenMeteoModelRunSchedule.class);
+
+    public static final String DEFAULT_MODEL = "default";
+
+    /*
+     * Leaves time for the run to be published by the API
+     */
+    private static final long MARGIN_IN_SECONDS = 60;
+
+    private static class ModelRun {
+        private final long cycle;
+        private final long delay;
+
+        private ModelRun(long cycle, long delay) {
+            this.cycle = cycle;
+            this.delay = delay;
+        }
+
+        /**
+         * @return the number of seconds until the next run is available
+         */
+        private long getDelayUntilNextRun(long now) {
+            long nextRun = (Math.floorDiv(now - delay, cycle) + 1) * cycle + delay;
+            return nextRun - now;
+        }
+    }
+
+    private final Map<String, ModelRun> modelRuns = new HashMap<>();
+
+    /**
+     * @param schedule the schedule, entries that cannot be parsed are ignored
+     */
+    public OpenMeteoModelRunSchedule(String schedule) {
+        for (String entry : schedule.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+
+            String[] fields = entry.trim().split(":");
+            try {
+                if (fields.length != 3) {
+                    throw new NumberFormatException("expected model:cycle:delay");
+                }
+                long cycle = Long.parseLong(fields[1].trim());
+                long delay = Long.parseLong(fields[2].trim());
+                if (cycle <= 0 || delay < 0) {
+                    throw new NumberFormatException("cycle must be positive and delay not negative");
+                }
+                modelRuns.put(fields[0].trim(), new ModelRun(cycle * 60, delay * 60));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring model run schedule entry '{}': {}", entry, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return true if the schedule has no entry
+     */
+    public boolean isEmpty() {
+        return modelRuns.isEmpty();
+    }
+
+    /**
+     * Returns the delay until the next run of one of the given models is available
+     *
+     * @param models the comma separated list of models, null or blank for the {@link #DEFAULT_MODEL}
+     * @param now the current time
+     * @return the delay, null if one of the models is not in the schedule
+     */
+    public @Nullable Duration getDelayUntilNextRun(@Nullable String models, Instant now) {
+        String[] names = (models == null || models.isBlank()) ? new String[] { DEFAULT_MODEL } : models.split(",");
+
+        long delay = Long.MAX_VALUE;
+        for (String name : names) {
+            ModelRun modelRun = modelRuns.get(name.trim());
+            if (modelRun == null) {
+                return null;
+            }
+            delay = Math.min(delay, modelRun.getDelayUntilNextRun(now.getEpochSecond()));
+        }
+        return Duration.ofSeconds(delay + MARGIN_IN_SECONDS);
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.refresh;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link OpenMeteoPipelineStage} is one of the stages a refresh goes through, fetching, decoding then
+ * publishing, each of them running on its own threads.
+ * <P>
+ * A stage holds at most a given number of tasks, running or waiting. Submitting a task to a full stage blocks
+ * until one of its tasks completes, which holds back the stage before it. A slot can also be reserved ahead of
+ * the task, each reservation then being used by exactly one call to {@link #executeReserved} or given back with
+ * {@link #release}. Threads that must not wait reserve with {@link #tryReserve} instead, or hand their task to
+ * {@link #executeWhenFree}, which keeps it in a backlog until a slot is free. The backlog is not bounded, it
+ * is meant for tasks whose number is already bounded elsewhere, such as the responses of the requests in
+ * flight.
+ * <P>
+ * Once the stage is shut down, the threads waiting for a slot are woken up and every submission or reservation
+ * is rejected with a {@link RejectedExecutionException}. The slot of a task that is rejected or dropped is given
+ * back.
+ * <P>
+ * The stage reports the number of tasks admitted and not started yet, and the average time from the submission
+ * of a task to its completion.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoPipelineStage implements Executor {
+    /*
+     * Weight of the latest task in the average latency
+     */
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final String name;
+    private final int capacity;
+    private final OpenMeteoBoundedExecutor executor;
+    private final Semaphore slots;
+    private final Queue<Runnable> backlog = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private volatile boolean closed = false;
+    private double latencyNanos = Double.NaN;
+
+    /**
+     * @param name the name of the stage, also used for its threads
+     * @param parallelism the maximum number of tasks running at once
+     * @param queueSize the maximum number of tasks waiting to run
+     * @param virtualThreads true to run each task on its own virtual thread, if the runtime offers them
+     */
+    public OpenMeteoPipelineStage(String name, int parallelism, int queueSize, boolean virtualThreads) {
+        this.name = name;
+        capacity = Math.max(parallelism, 1) + Math.max(queueSize, 1);
+        executor = new OpenMeteoBoundedExecutor("openmeteo-" + name, parallelism, queueSize, virtualThreads);
+        slots = new Semaphore(capacity);
+    }
+
+    /**
+     * Runs the given task, once there is room for it in this stage
+     *
+     * @throws RejectedExecutionException if the stage is shut down, or the thread interrupted while waiting
+     */
+    @Override
+    public void execute(Runnable command) {
+        reserve(1);
+        executeReserved(command);
+    }
+
+    /**
+     * Waits until the given number of slots is free, then holds them for tasks given later on
+     *
+     * @param count the number of slots, at most the {@link #getCapacity() capacity} of the stage
+     * @throws RejectedExecutionException if the stage is shut down, or the thread interrupted while waiting
+     */
+    public void reserve(int count) {
+        checkOpen();
+        try {
+            slots.acquire(count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for the " + name + " stage", e);
+        }
+        reserved(count);
+    }
+
+    /**
+     * Holds the given number of slots for tasks given later on, if they are free right now
+     *
+     * @param count the number of slots, at most the {@link #getCapacity() capacity} of the stage
+     * @return true if the slots are held, false if the stage is full
+     * @throws RejectedExecutionException if the stage is shut down
+     */
+    public boolean tryReserve(int count) {
+        checkOpen();
+        if (!slots.tryAcquire(count)) {
+            return false;
+        }
+        reserved(count);
+        return true;
+    }
+
+    /**
+     * Gives back slots that were reserved and will not be used
+     */
+    public void release(int count) {
+        queueDepth.addAndGet(-count);
+        slots.release(count);
+        runBacklog();
+    }
+
+    /**
+     * Runs the given task in a slot that was reserved beforehand, without waiting
+     *
+     * @throws RejectedExecutionException if the stage is shut down, the slot is then given back
+     */
+    public void executeReserved(Runnable command) {
+        long submitTime = System.nanoTime();
+        try {
+            checkOpen();
+            executor.execute(() -> {
+                queueDepth.decrementAndGet();
+                try {
+                    // a virtual thread may only start its task once the stage is shut down
+                    if (!closed) {
+                        command.run();
+                    }
+                } finally {
+                    slots.release();
+                    updateLatency(System.nanoTime() - submitTime);
+                    runBacklog();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(1);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the given task once there is room for it in this stage, without waiting: when the stage is full, the
+     * task is kept in the backlog and runs in the first slot given back. It is dropped if the stage is shut down
+     * meanwhile.
+     *
+     * @throws RejectedExecutionException if the stage is shut down
+     */
+    public void executeWhenFree(Runnable command) {
+        checkOpen();
+        queueDepth.incrementAndGet();
+        backlog.add(command);
+        runBacklog();
+    }
+
+    /**
+     * Hands the tasks of the backlog to the slots that are free. Called after adding a task and after giving a
+     * slot back, so that a task is never left in the backlog while a slot is free.
+     */
+    private void runBacklog() {
+        while (!backlog.isEmpty() && slots.tryAcquire()) {
+            Runnable command = backlog.poll();
+            if (command == null) {
+                // taken by another thread meanwhile
+                slots.release();
+                continue;
+            }
+            if (closed) {
+                queueDepth.decrementAndGet();
+                slots.release();
+                continue;
+            }
+            try {
+                executeReserved(command);
+            } catch (RejectedExecutionException e) {
+                // shut down meanwhile, the task is dropped like the other waiting ones and its slot given back
+            }
+        }
+    }
+
+    /**
+     * @return the name of the stage
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the maximum number of tasks the stage holds, running or waiting
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of tasks submitted, reserved or in the backlog and not started yet
+     */
+    public int getQueueDepth() {
+        return Math.max(queueDepth.get(), 0);
+    }
+
+    /**
+     * @return the moving average of the time from the submission of a task to its completion, zero until a task
+     *         completed
+     */
+    public synchronized Duration getLatency() {
+        return Double.isNaN(latencyNanos) ? Duration.ZERO : Duration.ofNanos((long) latencyNanos);
+    }
+
+    /**
+     * Stops the running tasks and drops the waiting ones, the tasks and reservations asked for afterwards are
+     * rejected
+     */
+    public void shutdown() {
+        closed = true;
+        int dropped = 0;
+        while (backlog.poll() != null) {
+            dropped++;
+        }
+        queueDepth.addAndGet(-dropped);
+        release(executor.shutdown().size());
+        // wakes the threads waiting for slots up, whatever the slots still held, they then find the stage closed
+        slots.release(capacity);
+    }
+
+    private void reserved(int count) {
+        if (closed) {
+            // shut down while waiting
+            slots.release(count);
+            throw createShutdownException();
+        }
+        queueDepth.addAndGet(count);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw createShutdownException();
+        }
+    }
+
+    private RejectedExecutionException createShutdownException() {
+        return new RejectedExecutionException("The " + name + " stage is shut down");
+    }
+
+    private synchronized void updateLatency(long nanos) {
+        latencyNanos = Double.isNaN(latencyNanos) ? nanos
+                : latencyNanos + LATENCY_SMOOTHING * (nanos - latencyNanos);
+    }
+}
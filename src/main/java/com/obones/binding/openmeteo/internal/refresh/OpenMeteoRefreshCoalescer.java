@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.refresh;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.thing.ThingUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link OpenMeteoRefreshCoalescer} collects the requests to refresh things and runs them together once their
+ * delay has elapsed.
+ * <P>
+ * A thing asked for several times before its refresh runs is refreshed only once, all the things pending at that
+ * moment being given to the refresh function in a single call. A request with a shorter delay than the one already
+ * scheduled brings the refresh forward, it never gets postponed.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoRefreshCoalescer {
+    private @NonNullByDefault({}) static final Logger logger = LoggerFactory.getLogger(OpenMeteoRefreshCoalescer.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<Set<ThingUID>> refresh;
+
+    private final Set<ThingUID> pendingThings = new LinkedHashSet<>();
+    private @Nullable ScheduledFuture<?> pendingJob;
+    private long pendingJobDueTime;
+
+    private final AtomicLong triggerCount = new AtomicLong();
+    private final AtomicLong mergedTriggerCount = new AtomicLong();
+    private final AtomicLong refreshCount = new AtomicLong();
+
+    /**
+     * @param scheduler the executor running the refreshes
+     * @param refresh refreshes the given things
+     */
+    public OpenMeteoRefreshCoalescer(ScheduledExecutorService scheduler, Consumer<Set<ThingUID>> refresh) {
+        this.scheduler = scheduler;
+        this.refresh = refresh;
+    }
+
+    /**
+     * Asks for the given things to be refreshed after the given delay at the latest
+     *
+     * @param thingUIDs the things to refresh
+     * @param delay the delay before the refresh
+     * @param unit the unit of the delay
+     */
+    public void request(Collection<ThingUID> thingUIDs, long delay, TimeUnit unit) {
+        long dueTime = System.nanoTime() + unit.toNanos(delay);
+
+        synchronized (pendingThings) {
+            for (ThingUID thingUID : thingUIDs) {
+                triggerCount.incrementAndGet();
+                if (!pendingThings.add(thingUID)) {
+                    mergedTriggerCount.incrementAndGet();
+                }
+            }
+
+            ScheduledFuture<?> localPendingJob = pendingJob;
+            if (localPendingJob != null && dueTime - pendingJobDueTime >= 0) {
+                logger.trace("Merged refresh request for {} into the one already scheduled.", thingUIDs);
+                return;
+            }
+            if (localPendingJob != null) {
+                localPendingJob.cancel(false);
+            }
+            pendingJobDueTime = dueTime;
+            pendingJob = scheduler.schedule(this::run, Math.max(dueTime - System.nanoTime(), 0),
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Forgets the pending requests
+     */
+    public void cancel() {
+        synchronized (pendingThings) {
+            ScheduledFuture<?> localPendingJob = pendingJob;
+            if (localPendingJob != null) {
+                localPendingJob.cancel(false);
+                pendingJob = null;
+            }
+            pendingThings.clear();
+        }
+    }
+
+    /**
+     * @return the number of things that were asked to be refreshed, one request for several things counting for
+     *         each of them
+     */
+    public long getTriggerCount() {
+        return triggerCount.get();
+    }
+
+    /**
+     * @return the number of times a thing was asked to be refreshed while its refresh was already pending
+     */
+    public long getMergedTriggerCount() {
+        return mergedTriggerCount.get();
+    }
+
+    /**
+     * @return the number of thing refreshes that were run
+     */
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    private void run() {
+        Set<ThingUID> things;
+        synchronized (pendingThings) {
+            pendingJob = null;
+            things = new LinkedHashSet<>(pendingThings);
+            pendingThings.clear();
+        }
+
+        if (!things.isEmpty()) {
+            refreshCount.addAndGet(things.size());
+            logger.debug("Refreshing {} things, {} of {} requests merged so far.", things.size(),
+                    mergedTriggerCount.get(), triggerCount.get());
+            refresh.accept(things);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.refresh;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.thing.ThingUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link OpenMeteoRefreshScheduler} refreshes each thing at its own interval, the things being kept in a
+ * priority queue ordered by the time of their next refresh.
+ * <P>
+ * A single job is scheduled, for the thing due first. When it runs, all the things due by then are given to the
+ * refresh function in a single call, so that they can share their requests. Each interval is lengthened by a
+ * random jitter so that things added at the same moment drift apart, it is never shortened so that a thing
+ * aligned on the wall clock is not refreshed too early. A thing whose refresh failed is retried sooner, the
+ * delay doubling with each consecutive failure up to its interval.
+ * <P>
+ * Things can be added and removed at any time, including while a refresh runs.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoRefreshScheduler {
+    private @NonNullByDefault({}) static final Logger logger = LoggerFactory.getLogger(OpenMeteoRefreshScheduler.class);
+
+    private static final Duration INITIAL_BACKOFF = Duration.ofMinutes(1);
+
+    /*
+     * Things due that close to each other are refreshed together
+     */
+    private static final long DUE_TOLERANCE_IN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static class Entry implements Comparable<Entry> {
+        private final ThingUID thingUID;
+        private final long dueTime;
+
+        private Entry(ThingUID thingUID, long dueTime) {
+            this.thingUID = thingUID;
+            this.dueTime = dueTime;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(dueTime - other.dueTime, 0);
+        }
+    }
+
+    private static class ThingState {
+        private long dueTime;
+        private int failureCount;
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final Function<ThingUID, Duration> intervalProvider;
+    private final double jitter;
+    private final Consumer<Set<ThingUID>> refresh;
+
+    // entries of a thing that was rescheduled or removed stay in the queue, they are skipped when polled
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final Map<ThingUID, ThingState> states = new HashMap<>();
+    private @Nullable ScheduledFuture<?> job;
+    private long jobDueTime;
+
+    /**
+     * @param scheduler the executor running the refreshes
+     * @param intervalProvider gives the delay until the next refresh of a thing, read each time it is rescheduled
+     * @param jitter the fraction by which an interval is at most randomly lengthened, between 0 and 1
+     * @param refresh refreshes the given things
+     */
+    public OpenMeteoRefreshScheduler(ScheduledExecutorService scheduler, Function<ThingUID, Duration> intervalProvider,
+            double jitter, Consumer<Set<ThingUID>> refresh) {
+        this.scheduler = scheduler;
+        this.intervalProvider = intervalProvider;
+        this.jitter = Math.min(Math.max(jitter, 0), 1);
+        this.refresh = refresh;
+    }
+
+    /**
+     * Adds the given thing, its first refresh happening one interval later. A thing already added is rescheduled.
+     */
+    public synchronized void add(ThingUID thingUID) {
+        ThingState state = states.computeIfAbsent(thingUID, uid -> new ThingState());
+        state.failureCount = 0;
+        schedule(thingUID, state, System.nanoTime() + getJitteredInterval(thingUID));
+    }
+
+    /**
+     * Removes the given thing, it is not refreshed anymore
+     */
+    public synchronized void remove(ThingUID thingUID) {
+        states.remove(thingUID);
+    }
+
+    /**
+     * Tells that the given things were refreshed outside of the schedule, their next refresh happening one interval
+     * later
+     */
+    public synchronized void refreshed(Collection<ThingUID> thingUIDs) {
+        long now = System.nanoTime();
+        for (ThingUID thingUID : thingUIDs) {
+            ThingState state = states.get(thingUID);
+            if (state != null) {
+                schedule(thingUID, state, now + getJitteredInterval(thingUID));
+            }
+        }
+    }
+
+    /**
+     * Tells that the refresh of the given thing succeeded
+     *
+     * @param thingUID the UID of the thing
+     * @param reschedule true to read the interval of the thing again, it depends on the data just received
+     */
+    public synchronized void succeeded(ThingUID thingUID, boolean reschedule) {
+        ThingState state = states.get(thingUID);
+        if (state != null) {
+            state.failureCount = 0;
+            if (reschedule) {
+                schedule(thingUID, state, System.nanoTime() + getJitteredInterval(thingUID));
+            }
+        }
+    }
+
+    /**
+     * Tells that the refresh of the given thing failed, it is retried after a delay growing with each consecutive
+     * failure
+     */
+    public synchronized void failed(ThingUID thingUID) {
+        ThingState state = states.get(thingUID);
+        if (state == null) {
+            return;
+        }
+
+        state.failureCount++;
+        long interval = Math.max(intervalProvider.apply(thingUID).toNanos(), INITIAL_BACKOFF.toNanos());
+        long backoff = INITIAL_BACKOFF.toNanos() << Math.min(state.failureCount - 1, 20);
+        backoff = applyJitter(Math.min(backoff, interval));
+        logger.debug("Refresh of thing '{}' failed {} times in a row, retrying in {} s.", thingUID,
+                state.failureCount, TimeUnit.NANOSECONDS.toSeconds(backoff));
+        schedule(thingUID, state, System.nanoTime() + backoff);
+    }
+
+    /**
+     * Forgets all the things and stops the scheduled refresh
+     */
+    public synchronized void cancel() {
+        ScheduledFuture<?> localJob = job;
+        if (localJob != null) {
+            localJob.cancel(false);
+            job = null;
+        }
+        queue.clear();
+        states.clear();
+    }
+
+    private void schedule(ThingUID thingUID, ThingState state, long dueTime) {
+        state.dueTime = dueTime;
+        queue.add(new Entry(thingUID, dueTime));
+        scheduleJob();
+    }
+
+    private void scheduleJob() {
+        Entry head = pollStale();
+        if (head == null) {
+            return;
+        }
+
+        ScheduledFuture<?> localJob = job;
+        if (localJob != null) {
+            if (head.dueTime - jobDueTime >= 0) {
+                return;
+            }
+            localJob.cancel(false);
+        }
+        jobDueTime = head.dueTime;
+        job = scheduler.schedule(this::run, Math.max(head.dueTime - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Removes the entries left by things that were rescheduled or removed
+     *
+     * @return the entry due first, null if there is none
+     */
+    private @Nullable Entry pollStale() {
+        Entry head;
+        while ((head = queue.peek()) != null) {
+            ThingState state = states.get(head.thingUID);
+            if (state != null && state.dueTime == head.dueTime) {
+                return head;
+            }
+            queue.poll();
+        }
+        return null;
+    }
+
+    private void run() {
+        Set<ThingUID> things = new LinkedHashSet<>();
+        synchronized (this) {
+            job = null;
+            long now = System.nanoTime();
+            Entry head;
+            while ((head = pollStale()) != null && head.dueTime - now <= DUE_TOLERANCE_IN_NANOS) {
+                queue.poll();
+                things.add(head.thingUID);
+            }
+            // the next refresh is planned before this one runs, a failure reschedules it sooner
+            refreshed(things);
+            scheduleJob();
+        }
+
+        if (!things.isEmpty()) {
+            logger.debug("Refreshing {} things due.", things.size());
+            refresh.accept(things);
+        }
+    }
+
+    private long getJitteredInterval(ThingUID thingUID) {
+        return applyJitter(intervalProvider.apply(thingUID).toNanos());
+    }
+
+    private long applyJitter(long delay) {
+        if (jitter == 0) {
+            return delay;
+        }
+        return (long) (delay * (1 + jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+}
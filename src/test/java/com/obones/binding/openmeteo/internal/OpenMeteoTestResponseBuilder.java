@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import com.google.flatbuffers.FlatBufferBuilder;
+import com.openmeteo.sdk.VariableWithValues;
+import com.openmeteo.sdk.VariablesWithTime;
+import com.openmeteo.sdk.WeatherApiResponse;
+
+/**
+ * The {@link OpenMeteoTestResponseBuilder} builds the messages the OpenMeteo API returns, for the tests.
+ * <P>
+ * The variables are added first, then the blocks holding them, then the message is finished. Each builder
+ * builds a single message.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoTestResponseBuilder {
+    private final FlatBufferBuilder builder = new FlatBufferBuilder();
+
+    /**
+     * Adds a variable, to be given to {@link #block(int...)}
+     *
+     * @return the offset of the variable
+     */
+    public int variable(int variable, int aggregation, int altitude, float... values) {
+        int valuesOffset = VariableWithValues.createValuesVector(builder, values);
+        VariableWithValues.startVariableWithValues(builder);
+        VariableWithValues.addVariable(builder, variable);
+        VariableWithValues.addAggregation(builder, aggregation);
+        VariableWithValues.addAltitude(builder, (short) altitude);
+        VariableWithValues.addValues(builder, valuesOffset);
+        return VariableWithValues.endVariableWithValues(builder);
+    }
+
+    /**
+     * Adds a block holding the given variables, to be given to {@link #finish(long, int, int, float)}
+     *
+     * @return the offset of the block
+     */
+    public int block(int... variables) {
+        int variablesOffset = VariablesWithTime.createVariablesVector(builder, variables);
+        VariablesWithTime.startVariablesWithTime(builder);
+        VariablesWithTime.addTime(builder, 0);
+        VariablesWithTime.addInterval(builder, 3600);
+        VariablesWithTime.addVariables(builder, variablesOffset);
+        return VariablesWithTime.endVariablesWithTime(builder);
+    }
+
+    /**
+     * Finishes the message
+     *
+     * @param locationId the index of the location in the request
+     * @param hourly the offset of the hourly block, 0 for none
+     * @return the message preceded by its size, as found in the body of a response
+     */
+    public ByteBuffer finish(long locationId, int hourly) {
+        return finish(locationId, hourly, 0);
+    }
+
+    /**
+     * Finishes the message
+     *
+     * @param locationId the index of the location in the request
+     * @param hourly the offset of the hourly block, 0 for none
+     * @param generationTime the time the server took to generate the message, in milliseconds
+     * @return the message preceded by its size, as found in the body of a response
+     */
+    public ByteBuffer finish(long locationId, int hourly, float generationTime) {
+        return finish(locationId, hourly, 0, generationTime);
+    }
+
+    /**
+     * Finishes the message
+     *
+     * @param locationId the index of the location in the request
+     * @param hourly the offset of the hourly block, 0 for none
+     * @param daily the offset of the daily block, 0 for none
+     * @param generationTime the time the server took to generate the message, in milliseconds
+     * @return the message preceded by its size, as found in the body of a response
+     */
+    public ByteBuffer finish(long locationId, int hourly, int daily, float generationTime) {
+        WeatherApiResponse.startWeatherApiResponse(builder);
+        WeatherApiResponse.addLocationId(builder, locationId);
+        WeatherApiResponse.addGenerationTimeMilliseconds(builder, generationTime);
+        if (hourly != 0) {
+            WeatherApiResponse.addHourly(builder, hourly);
+        }
+        if (daily != 0) {
+            WeatherApiResponse.addDaily(builder, daily);
+        }
+        WeatherApiResponse.finishSizePrefixedWeatherApiResponseBuffer(builder,
+                WeatherApiResponse.endWeatherApiResponse(builder));
+        return ByteBuffer.wrap(builder.sizedByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads the given message
+     *
+     * @param message the message preceded by its size, as returned by {@link #finish(long, int)}
+     */
+    public static WeatherApiResponse read(ByteBuffer message) {
+        ByteBuffer data = message.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        data.position(data.position() + 4);
+        return WeatherApiResponse.getRootAsWeatherApiResponse(data);
+    }
+
+    /**
+     * @return a body made of the given messages, one after the other
+     */
+    public static ByteBuffer concat(ByteBuffer... messages) {
+        int length = 0;
+        for (ByteBuffer message : messages) {
+            length += message.remaining();
+        }
+        ByteBuffer body = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        for (ByteBuffer message : messages) {
+            body.put(message.duplicate());
+        }
+        return body.flip();
+    }
+}
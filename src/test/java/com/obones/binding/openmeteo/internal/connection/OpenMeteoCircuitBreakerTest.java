@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link OpenMeteoCircuitBreaker}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoCircuitBreakerTest {
+    private static final String HOST = "api.open-meteo.com";
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        OpenMeteoCircuitBreaker breaker = new OpenMeteoCircuitBreaker(HOST, 2, Duration.ofHours(1));
+
+        assertTrue(breaker.allowRequest());
+        breaker.failed(null);
+        assertTrue(breaker.allowRequest());
+        breaker.failed(null);
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void successResetsFailureCount() {
+        OpenMeteoCircuitBreaker breaker = new OpenMeteoCircuitBreaker(HOST, 2, Duration.ofHours(1));
+
+        breaker.failed(null);
+        breaker.succeeded();
+        breaker.failed(null);
+
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void opensWhenHostAsksForDelay() {
+        OpenMeteoCircuitBreaker breaker = new OpenMeteoCircuitBreaker(HOST, 0, Duration.ofHours(1));
+
+        for (int failure = 0; failure < 10; failure++) {
+            breaker.failed(null);
+        }
+        assertTrue(breaker.allowRequest());
+
+        breaker.failed(Duration.ofMinutes(5));
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void letsSingleTrialRequestThroughOnceOpenTimeElapsed() {
+        OpenMeteoCircuitBreaker breaker = new OpenMeteoCircuitBreaker(HOST, 1, Duration.ZERO);
+
+        breaker.failed(null);
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+
+        breaker.succeeded();
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void failedTrialOpensAgain() {
+        OpenMeteoCircuitBreaker breaker = new OpenMeteoCircuitBreaker(HOST, 3, Duration.ofHours(1));
+
+        breaker.failed(Duration.ZERO);
+        assertTrue(breaker.allowRequest());
+
+        // below the threshold, but the trial request failed
+        breaker.failed(null);
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void abandonedTrialLetsAnotherOneThrough() {
+        OpenMeteoCircuitBreaker breaker = new OpenMeteoCircuitBreaker(HOST, 1, Duration.ZERO);
+
+        breaker.failed(null);
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+
+        breaker.abandoned();
+        assertTrue(breaker.allowRequest());
+    }
+}
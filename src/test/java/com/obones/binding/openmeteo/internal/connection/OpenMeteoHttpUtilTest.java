@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.thing.ThingUID;
+
+/**
+ * Tests for {@link OpenMeteoHttpUtil}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoHttpUtilTest {
+    @Test
+    public void consumerNameIsAcceptedByHttpClientFactory() {
+        for (String bridgeId : new String[] { "api", "myOpenMeteoBridge", "a_very_long_bridge_identifier_0123" }) {
+            String name = OpenMeteoHttpUtil.getConsumerName(new ThingUID("openmeteo:bridge:" + bridgeId));
+
+            assertTrue(name.length() <= 20, name);
+            assertTrue(name.matches("[a-zA-Z0-9_-]+"), name);
+        }
+    }
+
+    @Test
+    public void consumerNameTellsBridgesApart() {
+        String name = OpenMeteoHttpUtil.getConsumerName(new ThingUID("openmeteo:bridge:myOpenMeteoBridge"));
+
+        assertEquals(name, OpenMeteoHttpUtil.getConsumerName(new ThingUID("openmeteo:bridge:myOpenMeteoBridge")));
+        assertNotEquals(name, OpenMeteoHttpUtil.getConsumerName(new ThingUID("openmeteo:bridge:otherBridge")));
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link OpenMeteoResponseCache}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoResponseCacheTest {
+    private static final String KEY = "https://api.open-meteo.com/v1/forecast?latitude=1&longitude=2";
+
+    private final OpenMeteoBufferPool pool = new OpenMeteoBufferPool(false);
+    private final AtomicInteger downloadCount = new AtomicInteger();
+    private CompletableFuture<@Nullable OpenMeteoResponseBuffer> download = new CompletableFuture<>();
+    private final Supplier<CompletableFuture<@Nullable OpenMeteoResponseBuffer>> downloader = () -> {
+        downloadCount.incrementAndGet();
+        download = new CompletableFuture<>();
+        return download;
+    };
+
+    @Test
+    public void sharesDownloadInProgress() {
+        OpenMeteoResponseCache cache = new OpenMeteoResponseCache(60);
+
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> first = cache.get(KEY, downloader);
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> second = cache.get(KEY, downloader);
+        assertEquals(1, downloadCount.get());
+        assertFalse(first.isDone());
+
+        OpenMeteoResponseBuffer data = new OpenMeteoResponseBuffer(pool, pool.acquire(1));
+        download.complete(data);
+
+        assertSame(data, first.getNow(null));
+        assertSame(data, second.getNow(null));
+    }
+
+    @Test
+    public void reusesBodyUntilExpired() {
+        OpenMeteoResponseCache cache = new OpenMeteoResponseCache(60);
+        ByteBuffer buffer = pool.acquire(1);
+        OpenMeteoResponseBuffer data = new OpenMeteoResponseBuffer(pool, buffer);
+
+        cache.get(KEY, downloader);
+        download.complete(data);
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> second = cache.get(KEY, downloader);
+
+        assertEquals(1, downloadCount.get());
+        assertSame(data, second.getNow(null));
+
+        // the cache keeps its own reference once the callers released theirs
+        data.release();
+        data.release();
+        assertNotSame(buffer, pool.acquire(1));
+
+        cache.clear();
+        assertSame(buffer, pool.acquire(1));
+    }
+
+    @Test
+    public void onlySharesDownloadsWithoutTimeToLive() {
+        OpenMeteoResponseCache cache = new OpenMeteoResponseCache(0);
+        ByteBuffer buffer = pool.acquire(1);
+        OpenMeteoResponseBuffer data = new OpenMeteoResponseBuffer(pool, buffer);
+
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> first = cache.get(KEY, downloader);
+        download.complete(data);
+        assertSame(data, first.getNow(null));
+
+        // the reference of the caller is the only one left
+        data.release();
+        assertSame(buffer, pool.acquire(1));
+
+        cache.get(KEY, downloader);
+        assertEquals(2, downloadCount.get());
+    }
+
+    @Test
+    public void abortsDownloadOnceAllCallersCancelled() {
+        OpenMeteoResponseCache cache = new OpenMeteoResponseCache(60);
+
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> first = cache.get(KEY, downloader);
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> second = cache.get(KEY, downloader);
+
+        first.cancel(true);
+        assertFalse(download.isCancelled());
+
+        second.cancel(true);
+        assertTrue(download.isCancelled());
+
+        cache.get(KEY, downloader);
+        assertEquals(2, downloadCount.get());
+    }
+
+    @Test
+    public void releasesReferenceOfCallerThatCancelled() {
+        OpenMeteoResponseCache cache = new OpenMeteoResponseCache(0);
+        ByteBuffer buffer = pool.acquire(1);
+        OpenMeteoResponseBuffer data = new OpenMeteoResponseBuffer(pool, buffer);
+
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> first = cache.get(KEY, downloader);
+        cache.get(KEY, downloader).cancel(true);
+        download.complete(data);
+
+        assertSame(data, first.getNow(null));
+        data.release();
+        assertSame(buffer, pool.acquire(1));
+    }
+
+    @Test
+    public void doesNotCacheFailures() {
+        OpenMeteoResponseCache cache = new OpenMeteoResponseCache(60);
+
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> first = cache.get(KEY, downloader);
+        CompletableFuture<@Nullable OpenMeteoResponseBuffer> second = cache.get(KEY, downloader);
+        download.completeExceptionally(new IOException("Connection reset"));
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+
+        cache.get(KEY, downloader);
+        assertEquals(2, downloadCount.get());
+    }
+}
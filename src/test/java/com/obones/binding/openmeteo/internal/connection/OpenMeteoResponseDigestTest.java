@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+import com.obones.binding.openmeteo.internal.OpenMeteoTestResponseBuilder;
+import com.openmeteo.sdk.Aggregation;
+import com.openmeteo.sdk.Variable;
+import com.openmeteo.sdk.WeatherApiResponse;
+
+/**
+ * Tests for {@link OpenMeteoResponseDigest}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoResponseDigestTest {
+    @Test
+    public void sameForecastGivesSameDigest() {
+        long digest = OpenMeteoResponseDigest.compute(response(2, 0, 10, 11));
+
+        assertEquals(digest, OpenMeteoResponseDigest.compute(response(2, 0, 10, 11)));
+        assertNotEquals(OpenMeteoResponseDigest.NONE, digest);
+    }
+
+    @Test
+    public void ignoresGenerationTime() {
+        assertEquals(OpenMeteoResponseDigest.compute(response(2, 0.5f, 10, 11)),
+                OpenMeteoResponseDigest.compute(response(2, 1.5f, 10, 11)));
+    }
+
+    @Test
+    public void ignoresPositionInBody() {
+        OpenMeteoTestResponseBuilder first = new OpenMeteoTestResponseBuilder();
+        ByteBuffer other = first.finish(0, first.block(first.variable(Variable.wind_speed, Aggregation.none, 10, 3)));
+        OpenMeteoTestResponseBuilder second = new OpenMeteoTestResponseBuilder();
+        ByteBuffer message = second.finish(0,
+                second.block(second.variable(Variable.temperature, Aggregation.none, 2, 10, 11)));
+        ByteBuffer body = OpenMeteoTestResponseBuilder.concat(other, message);
+        body.position(other.remaining());
+
+        assertEquals(OpenMeteoResponseDigest.compute(response(2, 0, 10, 11)),
+                OpenMeteoResponseDigest.compute(OpenMeteoTestResponseBuilder.read(body)));
+    }
+
+    @Test
+    public void changedValueGivesOtherDigest() {
+        assertNotEquals(OpenMeteoResponseDigest.compute(response(2, 0, 10, 11)),
+                OpenMeteoResponseDigest.compute(response(2, 0, 10, 12)));
+        assertNotEquals(OpenMeteoResponseDigest.compute(response(2, 0, 10, 11)),
+                OpenMeteoResponseDigest.compute(response(2, 0, 10, 11, 12)));
+    }
+
+    @Test
+    public void changedAltitudeGivesOtherDigest() {
+        assertNotEquals(OpenMeteoResponseDigest.compute(response(2, 0, 10, 11)),
+                OpenMeteoResponseDigest.compute(response(80, 0, 10, 11)));
+    }
+
+    @Test
+    public void missingBlockGivesOtherDigest() {
+        OpenMeteoTestResponseBuilder builder = new OpenMeteoTestResponseBuilder();
+        long withoutBlock = OpenMeteoResponseDigest.compute(OpenMeteoTestResponseBuilder.read(builder.finish(0, 0)));
+
+        assertNotEquals(OpenMeteoResponseDigest.NONE, withoutBlock);
+        assertNotEquals(withoutBlock, OpenMeteoResponseDigest.compute(response(2, 0, 10, 11)));
+    }
+
+    @Test
+    public void emptyResponseHasNoDigest() {
+        assertEquals(OpenMeteoResponseDigest.NONE, OpenMeteoResponseDigest.compute(new WeatherApiResponse()));
+    }
+
+    /**
+     * @return a response holding the given hourly temperatures
+     */
+    private static WeatherApiResponse response(int altitude, float generationTime, float... temperatures) {
+        OpenMeteoTestResponseBuilder builder = new OpenMeteoTestResponseBuilder();
+        int hourly = builder.block(builder.variable(Variable.temperature, Aggregation.none, altitude, temperatures));
+        return OpenMeteoTestResponseBuilder.read(builder.finish(0, hourly, generationTime));
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import com.obones.binding.openmeteo.internal.OpenMeteoTestResponseBuilder;
+import com.openmeteo.sdk.Aggregation;
+import com.openmeteo.sdk.Variable;
+import com.openmeteo.sdk.VariablesWithTime;
+import com.openmeteo.sdk.WeatherApiResponse;
+
+/**
+ * Tests for {@link OpenMeteoResponseParser}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoResponseParserTest {
+    @Test
+    public void parsesAllMessages() {
+        ByteBuffer body = OpenMeteoTestResponseBuilder.concat(message(0, 10), message(1, 11));
+        int position = body.position();
+        int limit = body.limit();
+
+        List<WeatherApiResponse> responses = OpenMeteoResponseParser.parse(body);
+
+        assertEquals(2, responses.size());
+        assertEquals(10f, getTemperature(responses.get(0)));
+        assertEquals(11f, getTemperature(responses.get(1)));
+        assertEquals(position, body.position());
+        assertEquals(limit, body.limit());
+    }
+
+    @Test
+    public void assignsMessagesToLocations() {
+        // the second model of location 1 comes after the first one
+        ByteBuffer body = OpenMeteoTestResponseBuilder.concat(message(1, 11), message(0, 10), message(1, 12));
+
+        List<@Nullable WeatherApiResponse> responses = OpenMeteoResponseParser.parse(body, 3);
+
+        assertEquals(3, responses.size());
+        assertEquals(10f, getTemperature(responses.get(0)));
+        assertEquals(11f, getTemperature(responses.get(1)));
+        assertNull(responses.get(2));
+    }
+
+    @Test
+    public void ignoresMessagesOfLocationsNotRequested() {
+        ByteBuffer body = OpenMeteoTestResponseBuilder.concat(message(0, 10), message(5, 15));
+
+        List<@Nullable WeatherApiResponse> responses = OpenMeteoResponseParser.parse(body, 1);
+
+        assertEquals(1, responses.size());
+        assertEquals(10f, getTemperature(responses.get(0)));
+    }
+
+    @Test
+    public void ignoresTruncatedMessage() {
+        ByteBuffer body = OpenMeteoTestResponseBuilder.concat(message(0, 10), message(1, 11));
+        body.limit(body.limit() - 3);
+
+        List<@Nullable WeatherApiResponse> responses = OpenMeteoResponseParser.parse(body, 2);
+
+        assertEquals(2, responses.size());
+        assertEquals(10f, getTemperature(responses.get(0)));
+        assertNull(responses.get(1));
+    }
+
+    @Test
+    public void ignoresTruncatedSizePrefix() {
+        ByteBuffer message = message(0, 10);
+        ByteBuffer body = OpenMeteoTestResponseBuilder.concat(message, ByteBuffer.allocate(2));
+
+        assertEquals(1, OpenMeteoResponseParser.parse(body).size());
+    }
+
+    @Test
+    public void ignoresInvalidLength() {
+        ByteBuffer body = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        body.putInt(0, -1);
+
+        assertTrue(OpenMeteoResponseParser.parse(body).isEmpty());
+    }
+
+    @Test
+    public void returnsMissingLocationsForEmptyBody() {
+        List<@Nullable WeatherApiResponse> responses = OpenMeteoResponseParser.parse(ByteBuffer.allocate(0), 2);
+
+        assertEquals(2, responses.size());
+        assertNull(responses.get(0));
+        assertNull(responses.get(1));
+    }
+
+    private static ByteBuffer message(long locationId, float temperature) {
+        OpenMeteoTestResponseBuilder builder = new OpenMeteoTestResponseBuilder();
+        int hourly = builder.block(builder.variable(Variable.temperature, Aggregation.none, 2, temperature));
+        return builder.finish(locationId, hourly);
+    }
+
+    private static float getTemperature(@Nullable WeatherApiResponse response) {
+        assertNotNull(response);
+        VariablesWithTime hourly = response.hourly();
+        assertNotNull(hourly);
+        return hourly.variables(0).values(0);
+    }
+}
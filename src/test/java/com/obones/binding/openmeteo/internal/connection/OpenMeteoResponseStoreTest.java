@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.obones.binding.openmeteo.internal.OpenMeteoTestResponseBuilder;
+import com.obones.binding.openmeteo.internal.connection.OpenMeteoResponseStore.StoredResponse;
+import com.openmeteo.sdk.Aggregation;
+import com.openmeteo.sdk.Variable;
+import com.openmeteo.sdk.VariablesWithTime;
+import com.openmeteo.sdk.WeatherApiResponse;
+
+/**
+ * Tests for {@link OpenMeteoResponseStore}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoResponseStoreTest {
+    private static final String NAME = "openmeteo:forecast:api:home";
+
+    private final Path folder;
+    private final OpenMeteoResponseStore store;
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    public OpenMeteoResponseStoreTest() throws IOException {
+        folder = Files.createTempDirectory("openmeteo");
+        store = new OpenMeteoResponseStore(folder, Duration.ofDays(1));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void loadsSavedResponse() {
+        store.save(NAME, response(42, 12.5f), now);
+
+        StoredResponse stored = store.load(NAME);
+
+        assertNotNull(stored);
+        assertEquals(now, stored.getFetchTime());
+        assertEquals(42, stored.getResponse().locationId());
+        assertEquals(12.5f, getTemperature(stored.getResponse()));
+    }
+
+    @Test
+    public void replacesPreviousResponse() {
+        store.save(NAME, response(1, 10), now.minus(Duration.ofHours(1)));
+        store.save(NAME, response(2, 20), now);
+
+        StoredResponse stored = store.load(NAME);
+
+        assertNotNull(stored);
+        assertEquals(now, stored.getFetchTime());
+        assertEquals(20f, getTemperature(stored.getResponse()));
+        assertEquals(List.of(folder.resolve("openmeteo_forecast_api_home.bin")), listFiles());
+    }
+
+    @Test
+    public void updatesOnlyFetchTime() {
+        store.save(NAME, response(1, 10), now.minus(Duration.ofHours(1)));
+
+        store.setFetchTime(NAME, now);
+
+        StoredResponse stored = store.load(NAME);
+        assertNotNull(stored);
+        assertEquals(now, stored.getFetchTime());
+        assertEquals(10f, getTemperature(stored.getResponse()));
+    }
+
+    @Test
+    public void ignoresDamagedFile() throws IOException {
+        store.save(NAME, response(1, 10), now);
+        Path file = listFiles().get(0);
+        byte[] content = Files.readAllBytes(file);
+        content[content.length - 1] ^= 0x55;
+        Files.write(file, content);
+
+        assertNull(store.load(NAME));
+    }
+
+    @Test
+    public void ignoresTruncatedFile() throws IOException {
+        store.save(NAME, response(1, 10), now);
+        Path file = listFiles().get(0);
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 1));
+
+        assertNull(store.load(NAME));
+    }
+
+    @Test
+    public void ignoresTooOldResponse() {
+        store.save(NAME, response(1, 10), now.minus(Duration.ofDays(2)));
+
+        assertNull(store.load(NAME));
+    }
+
+    @Test
+    public void deletesResponse() {
+        store.save(NAME, response(1, 10), now);
+
+        store.delete(NAME);
+
+        assertNull(store.load(NAME));
+        assertEquals(List.of(), listFiles());
+    }
+
+    @Test
+    public void returnsNothingWhenNoneSaved() {
+        assertNull(store.load(NAME));
+
+        // neither fails
+        store.setFetchTime(NAME, now);
+        store.delete(NAME);
+        assertNull(store.load(NAME));
+    }
+
+    private List<Path> listFiles() {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static WeatherApiResponse response(long locationId, float temperature) {
+        OpenMeteoTestResponseBuilder builder = new OpenMeteoTestResponseBuilder();
+        int hourly = builder.block(builder.variable(Variable.temperature, Aggregation.none, 2, temperature));
+        return OpenMeteoTestResponseBuilder.read(builder.finish(locationId, hourly));
+    }
+
+    private static float getTemperature(WeatherApiResponse response) {
+        VariablesWithTime hourly = response.hourly();
+        assertNotNull(hourly);
+        return hourly.variables(0).values(0);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import com.obones.binding.openmeteo.internal.OpenMeteoTestResponseBuilder;
+import com.openmeteo.sdk.Aggregation;
+import com.openmeteo.sdk.Variable;
+import com.openmeteo.sdk.VariableWithValues;
+import com.openmeteo.sdk.VariablesWithTime;
+
+/**
+ * Tests for {@link OpenMeteoVariableIndex}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoVariableIndexTest {
+    @Test
+    public void findsFirstVariableWhateverItsAltitude() {
+        OpenMeteoTestResponseBuilder builder = new OpenMeteoTestResponseBuilder();
+        VariablesWithTime block = block(builder, builder.variable(Variable.temperature, Aggregation.none, 2, 1),
+                builder.variable(Variable.temperature, Aggregation.none, 80, 2));
+
+        OpenMeteoVariableIndex index = new OpenMeteoVariableIndex(block);
+
+        assertEquals(1f, getValue(index.find(Variable.temperature, Aggregation.none)));
+    }
+
+    @Test
+    public void findsVariableAtAltitude() {
+        OpenMeteoTestResponseBuilder builder = new OpenMeteoTestResponseBuilder();
+        VariablesWithTime block = block(builder, builder.variable(Variable.temperature, Aggregation.none, 2, 1),
+                builder.variable(Variable.temperature, Aggregation.none, 80, 2));
+
+        OpenMeteoVariableIndex index = new OpenMeteoVariableIndex(block);
+
+        assertEquals(1f, getValue(index.find(Variable.temperature, Aggregation.none, 2)));
+        assertEquals(2f, getValue(index.find(Variable.temperature, Aggregation.none, 80)));
+        assertNull(index.find(Variable.temperature, Aggregation.none, 120));
+    }
+
+    @Test
+    public void tellsAggregationsApart() {
+        OpenMeteoTestResponseBuilder builder = new OpenMeteoTestResponseBuilder();
+        VariablesWithTime block = block(builder, builder.variable(Variable.temperature, Aggregation.minimum, 2, 1),
+                builder.variable(Variable.temperature, Aggregation.maximum, 2, 2));
+
+        OpenMeteoVariableIndex index = new OpenMeteoVariableIndex(block);
+
+        assertEquals(1f, getValue(index.find(Variable.temperature, Aggregation.minimum)));
+        assertEquals(2f, getValue(index.find(Variable.temperature, Aggregation.maximum)));
+        assertNull(index.find(Variable.temperature, Aggregation.none));
+    }
+
+    @Test
+    public void findsEveryVariableOfLargeBlock() {
+        OpenMeteoTestResponseBuilder builder = new OpenMeteoTestResponseBuilder();
+        int count = 100;
+        int[] variables = new int[count];
+        for (int variable = 0; variable < count; variable++) {
+            variables[variable] = builder.variable(variable, Aggregation.none, 0, variable);
+        }
+
+        OpenMeteoVariableIndex index = new OpenMeteoVariableIndex(block(builder, variables));
+
+        for (int variable = 0; variable < count; variable++) {
+            assertEquals((float) variable, getValue(index.find(variable, Aggregation.none)));
+            assertEquals((float) variable, getValue(index.find(variable, Aggregation.none, 0)));
+        }
+        assertNull(index.find(count, Aggregation.none));
+    }
+
+    @Test
+    public void findsNothingInMissingBlock() {
+        OpenMeteoVariableIndex index = new OpenMeteoVariableIndex(null);
+
+        assertNull(index.getVariables());
+        assertNull(index.find(Variable.temperature, Aggregation.none));
+    }
+
+    private static VariablesWithTime block(OpenMeteoTestResponseBuilder builder, int... variables) {
+        VariablesWithTime block = OpenMeteoTestResponseBuilder.read(builder.finish(0, builder.block(variables)))
+                .hourly();
+        assertNotNull(block);
+        return block;
+    }
+
+    private static float getValue(@Nullable VariableWithValues values) {
+        assertNotNull(values);
+        return values.values(0);
+    }
+}
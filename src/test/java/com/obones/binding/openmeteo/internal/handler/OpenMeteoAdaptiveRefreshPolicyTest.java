@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+import com.obones.binding.openmeteo.internal.OpenMeteoTestResponseBuilder;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.Block;
+import com.openmeteo.sdk.Aggregation;
+import com.openmeteo.sdk.Variable;
+
+/**
+ * Tests for {@link OpenMeteoAdaptiveRefreshPolicy}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoAdaptiveRefreshPolicyTest {
+    private static final Duration MIN_INTERVAL = Duration.ofMinutes(5);
+    private static final Duration MAX_INTERVAL = Duration.ofMinutes(65);
+
+    // the hourly block of the test responses starts at the epoch, the horizon covers its first two values
+    private static final Instant NOW = Instant.ofEpochSecond(0);
+
+    private final OpenMeteoAdaptiveRefreshPolicy policy = new OpenMeteoAdaptiveRefreshPolicy(MIN_INTERVAL,
+            MAX_INTERVAL, Duration.ofHours(1));
+
+    @Test
+    public void waitsLongestWhenNothingHappens() {
+        assertEquals(MAX_INTERVAL,
+                policy.getRefreshInterval(snapshot(Variable.precipitation_probability, 10, 20), NOW));
+        assertEquals(MAX_INTERVAL, policy.getRefreshInterval(snapshot(Variable.weather_code, 0, 3), NOW));
+    }
+
+    @Test
+    public void waitsShortestWhenRainIsLikely() {
+        assertEquals(MIN_INTERVAL,
+                policy.getRefreshInterval(snapshot(Variable.precipitation_probability, 10, 90), NOW));
+    }
+
+    @Test
+    public void placesDelayBetweenBounds() {
+        assertEquals(Duration.ofMinutes(35),
+                policy.getRefreshInterval(snapshot(Variable.precipitation_probability, 50, 0), NOW));
+        assertEquals(Duration.ofMinutes(35), policy.getRefreshInterval(snapshot(Variable.wind_gusts, 15), NOW));
+        assertEquals(Duration.ofMinutes(35), policy.getRefreshInterval(snapshot(Variable.weather_code, 61), NOW));
+    }
+
+    @Test
+    public void waitsShortestOnThunderstorm() {
+        assertEquals(MIN_INTERVAL, policy.getRefreshInterval(snapshot(Variable.weather_code, 0, 95), NOW));
+        assertEquals(MIN_INTERVAL, policy.getRefreshInterval(snapshot(Variable.cape, 2500), NOW));
+    }
+
+    @Test
+    public void ignoresValuesBeyondHorizon() {
+        assertEquals(MAX_INTERVAL,
+                policy.getRefreshInterval(snapshot(Variable.precipitation_probability, 0, 0, 100), NOW));
+    }
+
+    @Test
+    public void ignoresValuesOfPastPeriods() {
+        assertEquals(MAX_INTERVAL, policy.getRefreshInterval(snapshot(Variable.precipitation_probability, 100, 0, 0),
+                NOW.plus(Duration.ofHours(1))));
+    }
+
+    @Test
+    public void returnsNothingWithoutValuesLookedAt() {
+        assertNull(policy.getRefreshInterval(snapshot(Variable.temperature, 30), NOW));
+        assertNull(policy.getRefreshInterval(snapshot(Variable.precipitation_probability, Float.NaN), NOW));
+    }
+
+    @Test
+    public void raisesMaximumIntervalToMinimum() {
+        OpenMeteoAdaptiveRefreshPolicy policy = new OpenMeteoAdaptiveRefreshPolicy(MIN_INTERVAL, Duration.ofMinutes(1),
+                Duration.ofHours(1));
+
+        assertEquals(MIN_INTERVAL, policy.getRefreshInterval(snapshot(Variable.precipitation_probability, 0), NOW));
+    }
+
+    @Test
+    public void asksForValuesLookedAt() {
+        OpenMeteoForecastSnapshot.Builder builder = new OpenMeteoForecastSnapshot.Builder();
+
+        OpenMeteoAdaptiveRefreshPolicy.addSnapshotColumns(builder);
+
+        OpenMeteoForecastSnapshot snapshot = builder.build(OpenMeteoTestResponseBuilder.read(
+                new OpenMeteoTestResponseBuilder().finish(0, 0)), 1, NOW);
+        for (Block block : new Block[] { Block.CURRENT, Block.MINUTELY_15, Block.HOURLY }) {
+            for (int variable : new int[] { Variable.precipitation_probability, Variable.cape, Variable.wind_gusts,
+                    Variable.weather_code }) {
+                assertTrue(snapshot.isRequested(block, variable, Aggregation.none), block + " " + variable);
+            }
+        }
+    }
+
+    /**
+     * @return a snapshot holding the given hourly values of a single variable, as requested by the policy
+     */
+    private static OpenMeteoForecastSnapshot snapshot(int variable, float... values) {
+        OpenMeteoTestResponseBuilder builder = new OpenMeteoTestResponseBuilder();
+        int hourly = builder.block(builder.variable(variable, Aggregation.none, 0, values));
+
+        OpenMeteoForecastSnapshot.Builder snapshotBuilder = new OpenMeteoForecastSnapshot.Builder();
+        OpenMeteoAdaptiveRefreshPolicy.addSnapshotColumns(snapshotBuilder);
+        snapshotBuilder.add(Block.HOURLY, Variable.temperature, Aggregation.none);
+        return snapshotBuilder.build(OpenMeteoTestResponseBuilder.read(builder.finish(0, hourly)), 1, NOW);
+    }
+}
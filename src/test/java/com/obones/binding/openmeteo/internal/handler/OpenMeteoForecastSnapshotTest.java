@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+import com.obones.binding.openmeteo.internal.OpenMeteoTestResponseBuilder;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoChannelDecoder.Block;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoForecastSnapshot.BlockData;
+import com.obones.binding.openmeteo.internal.handler.OpenMeteoForecastSnapshot.Column;
+import com.openmeteo.sdk.Aggregation;
+import com.openmeteo.sdk.Variable;
+import com.openmeteo.sdk.WeatherApiResponse;
+
+/**
+ * Tests for {@link OpenMeteoForecastSnapshot}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoForecastSnapshotTest {
+    private static final Instant NOW = Instant.parse("2024-03-01T00:00:00Z");
+
+    @Test
+    public void copiesRequestedVariablesOnly() {
+        OpenMeteoForecastSnapshot snapshot = new OpenMeteoForecastSnapshot.Builder()
+                .add(Block.HOURLY, Variable.temperature, Aggregation.none).build(response(10, 11, Float.NaN), 1, NOW);
+
+        BlockData hourly = snapshot.getBlock(Block.HOURLY);
+        assertNotNull(hourly);
+        assertEquals(3600, hourly.getInterval());
+        Column temperature = hourly.find(Variable.temperature, Aggregation.none);
+        assertNotNull(temperature);
+        assertEquals(2, temperature.getLength());
+        assertEquals(Float.valueOf(11), temperature.getFloatValue(1));
+        assertNull(temperature.getFloatValue(2));
+        assertNull(hourly.find(Variable.wind_speed, Aggregation.none));
+        assertTrue(snapshot.isRequested(Block.HOURLY, Variable.temperature, Aggregation.none));
+        assertFalse(snapshot.isRequested(Block.HOURLY, Variable.wind_speed, Aggregation.none));
+        assertEquals(1, snapshot.getVersion());
+        assertEquals(NOW, snapshot.getFetchTime());
+    }
+
+    @Test
+    public void leavesMissingBlockMissingWithoutPrevious() {
+        OpenMeteoForecastSnapshot snapshot = new OpenMeteoForecastSnapshot.Builder()
+                .add(Block.DAILY, Variable.temperature, Aggregation.maximum).build(response(10, 11, Float.NaN), 1, NOW);
+
+        assertNull(snapshot.getBlock(Block.DAILY));
+        assertNotNull(snapshot.getBlock(Block.HOURLY));
+    }
+
+    @Test
+    public void takesMissingBlockFromPrevious() {
+        OpenMeteoForecastSnapshot previous = new OpenMeteoForecastSnapshot.Builder()
+                .add(Block.HOURLY, Variable.temperature, Aggregation.none)
+                .add(Block.DAILY, Variable.temperature, Aggregation.maximum).build(response(10, 11, 15), 1, NOW);
+
+        // only the hourly block is due, the daily one is not asked for anymore
+        OpenMeteoForecastSnapshot snapshot = new OpenMeteoForecastSnapshot.Builder()
+                .add(Block.HOURLY, Variable.temperature, Aggregation.none)
+                .build(response(12, 13, Float.NaN), 2, NOW, previous);
+
+        BlockData hourly = snapshot.getBlock(Block.HOURLY);
+        assertNotNull(hourly);
+        Column temperature = hourly.find(Variable.temperature, Aggregation.none);
+        assertNotNull(temperature);
+        assertEquals(Float.valueOf(12), temperature.getFloatValue(0));
+
+        assertSame(previous.getBlock(Block.DAILY), snapshot.getBlock(Block.DAILY));
+        assertTrue(snapshot.isRequested(Block.DAILY, Variable.temperature, Aggregation.maximum));
+        assertEquals(2, snapshot.getVersion());
+    }
+
+    @Test
+    public void replacesBlockPresentInResponse() {
+        OpenMeteoForecastSnapshot previous = new OpenMeteoForecastSnapshot.Builder()
+                .add(Block.HOURLY, Variable.temperature, Aggregation.none)
+                .add(Block.HOURLY, Variable.wind_speed, Aggregation.none).build(response(10, 11, Float.NaN), 1, NOW);
+
+        OpenMeteoForecastSnapshot snapshot = new OpenMeteoForecastSnapshot.Builder()
+                .add(Block.HOURLY, Variable.temperature, Aggregation.none)
+                .build(response(12, 13, Float.NaN), 2, NOW, previous);
+
+        BlockData hourly = snapshot.getBlock(Block.HOURLY);
+        assertNotNull(hourly);
+        assertNull(hourly.find(Variable.wind_speed, Aggregation.none));
+        assertFalse(snapshot.isRequested(Block.HOURLY, Variable.wind_speed, Aggregation.none));
+    }
+
+    @Test
+    public void emptyResponseKeepsAllPreviousBlocks() {
+        OpenMeteoForecastSnapshot previous = new OpenMeteoForecastSnapshot.Builder()
+                .add(Block.HOURLY, Variable.temperature, Aggregation.none)
+                .add(Block.DAILY, Variable.temperature, Aggregation.maximum).build(response(10, 11, 15), 1, NOW);
+
+        OpenMeteoForecastSnapshot snapshot = new OpenMeteoForecastSnapshot.Builder()
+                .add(Block.HOURLY, Variable.temperature, Aggregation.none)
+                .build(new WeatherApiResponse(), 2, NOW, previous);
+
+        for (Block block : Block.values()) {
+            assertSame(previous.getBlock(block), snapshot.getBlock(block));
+        }
+    }
+
+    @Test
+    public void listsRequestedVariables() {
+        OpenMeteoForecastSnapshot.Builder builder = new OpenMeteoForecastSnapshot.Builder()
+                .add(Block.HOURLY, Variable.temperature, Aggregation.none)
+                .add(Block.DAILY, Variable.temperature, Aggregation.maximum)
+                .add(Block.CURRENT, Variable.wind_speed, Aggregation.none);
+
+        assertEquals(Set.of((int) Variable.temperature, (int) Variable.wind_speed), builder.getVariables());
+    }
+
+    /**
+     * @return a response holding two hourly temperatures and a wind speed, with a daily maximum temperature
+     *         unless it is NaN
+     */
+    private static WeatherApiResponse response(float first, float second, float dailyMaximum) {
+        OpenMeteoTestResponseBuilder builder = new OpenMeteoTestResponseBuilder();
+        int hourly = builder.block(builder.variable(Variable.temperature, Aggregation.none, 2, first, second),
+                builder.variable(Variable.wind_speed, Aggregation.none, 10, 3, 4));
+        int daily = Float.isNaN(dailyMaximum) ? 0
+                : builder.block(builder.variable(Variable.temperature, Aggregation.maximum, 2, dailyMaximum));
+        return OpenMeteoTestResponseBuilder.read(builder.finish(0, hourly, daily, 0));
+    }
+}
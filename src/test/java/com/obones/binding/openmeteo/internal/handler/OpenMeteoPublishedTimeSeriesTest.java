@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.types.State;
+import org.openhab.core.types.TimeSeries;
+
+/**
+ * Tests for {@link OpenMeteoPublishedTimeSeries}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoPublishedTimeSeriesTest {
+    private static final long TIME = 1709251200;
+    private static final long INTERVAL = 3600;
+
+    @Test
+    public void firstSeriesReplacesAllPoints() {
+        TimeSeries timeSeries = series(TIME, 1.0, null, 3.0).getUpdateFrom(null);
+
+        assertNotNull(timeSeries);
+        assertEquals(TimeSeries.Policy.REPLACE, timeSeries.getPolicy());
+        assertEquals(List.of(point(0, 1.0), point(2, 3.0)), getPoints(timeSeries));
+    }
+
+    @Test
+    public void changedPointsAreAdded() {
+        TimeSeries timeSeries = series(TIME, 1.0, 2.5, 3.0, 4.0).getUpdateFrom(series(TIME, 1.0, 2.0, 3.0, null));
+
+        assertNotNull(timeSeries);
+        assertEquals(TimeSeries.Policy.ADD, timeSeries.getPolicy());
+        assertEquals(List.of(point(1, 2.5), point(3, 4.0)), getPoints(timeSeries));
+    }
+
+    @Test
+    public void unchangedSeriesSendsNothing() {
+        assertNull(series(TIME, 1.0, null, 3.0).getUpdateFrom(series(TIME, 1.0, null, 3.0)));
+    }
+
+    @Test
+    public void undefinedPointReplacesSeries() {
+        TimeSeries timeSeries = series(TIME, 1.0, null, 3.0).getUpdateFrom(series(TIME, 1.0, 2.0, 3.0));
+
+        assertNotNull(timeSeries);
+        assertEquals(TimeSeries.Policy.REPLACE, timeSeries.getPolicy());
+        assertEquals(List.of(point(0, 1.0), point(2, 3.0)), getPoints(timeSeries));
+    }
+
+    @Test
+    public void shiftedTimeAxisReplacesSeries() {
+        TimeSeries timeSeries = series(TIME + INTERVAL, 1.0, 2.0).getUpdateFrom(series(TIME, 1.0, 2.0));
+
+        assertNotNull(timeSeries);
+        assertEquals(TimeSeries.Policy.REPLACE, timeSeries.getPolicy());
+        assertEquals(2, timeSeries.size());
+    }
+
+    @Test
+    public void otherLengthReplacesSeries() {
+        TimeSeries timeSeries = series(TIME, 1.0, 2.0, 3.0).getUpdateFrom(series(TIME, 1.0, 2.0));
+
+        assertNotNull(timeSeries);
+        assertEquals(TimeSeries.Policy.REPLACE, timeSeries.getPolicy());
+        assertEquals(3, timeSeries.size());
+    }
+
+    private static OpenMeteoPublishedTimeSeries series(long time, @Nullable Double... values) {
+        @Nullable
+        State[] states = new @Nullable State[values.length];
+        for (int valueIndex = 0; valueIndex < values.length; valueIndex++) {
+            Double value = values[valueIndex];
+            states[valueIndex] = (value == null) ? null : new DecimalType(value);
+        }
+        return new OpenMeteoPublishedTimeSeries(time, INTERVAL, states);
+    }
+
+    private static TimeSeries.Entry point(int valueIndex, double value) {
+        return new TimeSeries.Entry(Instant.ofEpochSecond(TIME + valueIndex * INTERVAL), new DecimalType(value));
+    }
+
+    private static List<TimeSeries.Entry> getPoints(TimeSeries timeSeries) {
+        return timeSeries.getStates().collect(Collectors.toList());
+    }
+}
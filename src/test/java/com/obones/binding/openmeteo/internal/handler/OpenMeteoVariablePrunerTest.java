@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+import com.obones.binding.openmeteo.internal.OpenMeteoTestResponseBuilder;
+import com.openmeteo.sdk.Aggregation;
+import com.openmeteo.sdk.Variable;
+import com.openmeteo.sdk.WeatherApiResponse;
+
+/**
+ * Tests for {@link OpenMeteoVariablePruner}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoVariablePrunerTest {
+    private static final Instant NOW = Instant.parse("2024-03-01T00:00:00Z");
+    private static final Set<Integer> TEMPERATURE = Set.of((int) Variable.temperature);
+
+    private final OpenMeteoVariablePruner pruner = new OpenMeteoVariablePruner(2);
+
+    @Test
+    public void prunesVariableEmptyInConsecutiveResponses() {
+        assertFalse(pruner.observe(response(Float.NaN), NOW));
+        assertTrue(pruner.getPrunedVariables().isEmpty());
+
+        assertTrue(pruner.observe(response(Float.NaN), NOW));
+        assertEquals(TEMPERATURE, pruner.getPrunedVariables());
+        assertEquals(Set.of((int) Variable.temperature, (int) Variable.wind_speed), pruner.getObservedVariables());
+    }
+
+    @Test
+    public void valueResetsEmptyCount() {
+        pruner.observe(response(Float.NaN), NOW);
+        pruner.observe(response(12), NOW);
+
+        assertFalse(pruner.observe(response(Float.NaN), NOW));
+        assertTrue(pruner.getPrunedVariables().isEmpty());
+    }
+
+    @Test
+    public void ignoresResponsesRequestedBeforePruning() {
+        pruner.observe(response(Float.NaN), NOW);
+        pruner.observe(response(Float.NaN), NOW);
+
+        assertFalse(pruner.observe(response(Float.NaN), NOW));
+        assertEquals(TEMPERATURE, pruner.getPrunedVariables());
+    }
+
+    @Test
+    public void asksAgainOncePruningDelayElapsed() {
+        pruner.observe(response(Float.NaN), NOW);
+        pruner.observe(response(Float.NaN), NOW);
+
+        assertFalse(pruner.expire(NOW.plus(Duration.ofHours(5))));
+        assertTrue(pruner.expire(NOW.plus(Duration.ofHours(6))));
+        assertTrue(pruner.getPrunedVariables().isEmpty());
+    }
+
+    @Test
+    public void doublesPruningDelayWhenStillEmpty() {
+        pruner.observe(response(Float.NaN), NOW);
+        pruner.observe(response(Float.NaN), NOW);
+        Instant checked = NOW.plus(Duration.ofHours(6));
+        pruner.expire(checked);
+
+        // pruned again right away, for twice as long
+        assertTrue(pruner.observe(response(Float.NaN), checked));
+        assertFalse(pruner.expire(checked.plus(Duration.ofHours(11))));
+        assertTrue(pruner.expire(checked.plus(Duration.ofHours(12))));
+    }
+
+    @Test
+    public void valueEndsPruning() {
+        pruner.observe(response(Float.NaN), NOW);
+        pruner.observe(response(Float.NaN), NOW);
+
+        pruner.observe(response(12), NOW);
+
+        assertTrue(pruner.getPrunedVariables().isEmpty());
+    }
+
+    @Test
+    public void ignoresEmptyResponse() {
+        assertFalse(pruner.observe(new WeatherApiResponse(), NOW));
+        assertFalse(pruner.observe(new WeatherApiResponse(), NOW));
+        assertTrue(pruner.getObservedVariables().isEmpty());
+    }
+
+    /**
+     * @return a response holding the given temperature and a wind speed
+     */
+    private static WeatherApiResponse response(float temperature) {
+        OpenMeteoTestResponseBuilder builder = new OpenMeteoTestResponseBuilder();
+        int hourly = builder.block(
+                builder.variable(Variable.temperature, Aggregation.none, 2, temperature, Float.NaN),
+                builder.variable(Variable.wind_speed, Aggregation.none, 10, 3, 4));
+        return OpenMeteoTestResponseBuilder.read(builder.finish(0, hourly));
+    }
+}
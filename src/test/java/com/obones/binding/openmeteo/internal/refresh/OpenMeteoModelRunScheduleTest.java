@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.refresh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link OpenMeteoModelRunSchedule}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoModelRunScheduleTest {
+    private static final Duration MARGIN = Duration.ofMinutes(1);
+    private static final Instant MIDNIGHT = Instant.parse("2024-03-01T00:00:00Z");
+
+    @Test
+    public void waitsForNextRunToBeAvailable() {
+        // a run every 6 hours, available 4 hours later
+        OpenMeteoModelRunSchedule schedule = new OpenMeteoModelRunSchedule("gfs_seamless:360:240");
+
+        assertEquals(Duration.ofHours(4).plus(MARGIN), schedule.getDelayUntilNextRun("gfs_seamless", MIDNIGHT));
+        assertEquals(Duration.ofHours(1).plus(MARGIN),
+                schedule.getDelayUntilNextRun("gfs_seamless", MIDNIGHT.plus(Duration.ofHours(3))));
+        // the run just became available, the next one is a cycle later
+        assertEquals(Duration.ofHours(6).plus(MARGIN),
+                schedule.getDelayUntilNextRun("gfs_seamless", MIDNIGHT.plus(Duration.ofHours(4))));
+    }
+
+    @Test
+    public void usesDefaultModelWhenNoneIsGiven() {
+        OpenMeteoModelRunSchedule schedule = new OpenMeteoModelRunSchedule("default:60:30");
+
+        Duration expected = Duration.ofMinutes(30).plus(MARGIN);
+        assertEquals(expected, schedule.getDelayUntilNextRun(null, MIDNIGHT));
+        assertEquals(expected, schedule.getDelayUntilNextRun("", MIDNIGHT));
+        assertEquals(expected, schedule.getDelayUntilNextRun(" ", MIDNIGHT));
+    }
+
+    @Test
+    public void waitsForEarliestOfSeveralModels() {
+        OpenMeteoModelRunSchedule schedule = new OpenMeteoModelRunSchedule(
+                "gfs_seamless:360:240, icon_seamless:180:120");
+
+        assertEquals(Duration.ofHours(2).plus(MARGIN),
+                schedule.getDelayUntilNextRun("gfs_seamless, icon_seamless", MIDNIGHT));
+    }
+
+    @Test
+    public void returnsNothingForModelNotInSchedule() {
+        OpenMeteoModelRunSchedule schedule = new OpenMeteoModelRunSchedule("gfs_seamless:360:240");
+
+        assertNull(schedule.getDelayUntilNextRun("icon_seamless", MIDNIGHT));
+        assertNull(schedule.getDelayUntilNextRun("gfs_seamless,icon_seamless", MIDNIGHT));
+        assertNull(schedule.getDelayUntilNextRun(null, MIDNIGHT));
+    }
+
+    @Test
+    public void ignoresInvalidEntries() {
+        OpenMeteoModelRunSchedule schedule = new OpenMeteoModelRunSchedule(
+                "gfs_seamless:360, icon_seamless:abc:60, ecmwf_ifs025:0:60, ukmo_seamless:60:-1, , default:60:0");
+
+        assertFalse(schedule.isEmpty());
+        assertNull(schedule.getDelayUntilNextRun("gfs_seamless", MIDNIGHT));
+        assertNull(schedule.getDelayUntilNextRun("icon_seamless", MIDNIGHT));
+        assertNull(schedule.getDelayUntilNextRun("ecmwf_ifs025", MIDNIGHT));
+        assertNull(schedule.getDelayUntilNextRun("ukmo_seamless", MIDNIGHT));
+        assertEquals(Duration.ofHours(1).plus(MARGIN), schedule.getDelayUntilNextRun(null, MIDNIGHT));
+    }
+
+    @Test
+    public void isEmptyWithoutEntries() {
+        assertTrue(new OpenMeteoModelRunSchedule("").isEmpty());
+        assertTrue(new OpenMeteoModelRunSchedule("invalid").isEmpty());
+    }
+}
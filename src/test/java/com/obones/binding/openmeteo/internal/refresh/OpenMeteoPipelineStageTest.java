@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.refresh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link OpenMeteoPipelineStage}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoPipelineStageTest {
+    private static final long TIMEOUT_IN_SECONDS = 5;
+
+    // one task running and one waiting
+    private final OpenMeteoPipelineStage stage = new OpenMeteoPipelineStage("test", 1, 1, false);
+
+    @AfterEach
+    public void tearDown() {
+        stage.shutdown();
+    }
+
+    @Test
+    public void reservesUpToCapacity() {
+        assertEquals(2, stage.getCapacity());
+        assertTrue(stage.tryReserve(2));
+        assertEquals(2, stage.getQueueDepth());
+
+        assertFalse(stage.tryReserve(1));
+
+        stage.release(1);
+        assertEquals(1, stage.getQueueDepth());
+        assertTrue(stage.tryReserve(1));
+    }
+
+    @Test
+    public void givesSlotBackOnceTaskCompletes() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(stage.tryReserve(1));
+
+        stage.executeReserved(done::countDown);
+
+        assertTrue(done.await(TIMEOUT_IN_SECONDS, TimeUnit.SECONDS));
+        awaitFreeSlots(2);
+        assertEquals(0, stage.getQueueDepth());
+        assertFalse(stage.getLatency().isNegative());
+    }
+
+    @Test
+    public void reserveWaitsForFreeSlot() throws InterruptedException {
+        assertTrue(stage.tryReserve(2));
+        CountDownLatch reserved = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            stage.reserve(1);
+            reserved.countDown();
+        });
+        thread.start();
+
+        assertFalse(reserved.await(100, TimeUnit.MILLISECONDS));
+        stage.release(1);
+
+        assertTrue(reserved.await(TIMEOUT_IN_SECONDS, TimeUnit.SECONDS));
+        thread.join();
+        assertEquals(2, stage.getQueueDepth());
+    }
+
+    @Test
+    public void shutdownWakesWaitingReservationUp() throws InterruptedException {
+        assertTrue(stage.tryReserve(2));
+        AtomicReference<@Nullable RuntimeException> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                stage.reserve(1);
+            } catch (RuntimeException e) {
+                failure.set(e);
+            }
+        });
+        thread.start();
+        Thread.sleep(100);
+
+        stage.shutdown();
+
+        thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_IN_SECONDS));
+        assertFalse(thread.isAlive());
+        assertTrue(failure.get() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void rejectsEverythingOnceShutDown() {
+        stage.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> stage.execute(() -> {
+        }));
+        assertThrows(RejectedExecutionException.class, () -> stage.reserve(1));
+        assertThrows(RejectedExecutionException.class, () -> stage.tryReserve(1));
+        assertThrows(RejectedExecutionException.class, () -> stage.executeWhenFree(() -> {
+        }));
+    }
+
+    @Test
+    public void givesReservedSlotBackWhenRejected() {
+        assertTrue(stage.tryReserve(1));
+        stage.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> stage.executeReserved(() -> {
+        }));
+        assertEquals(0, stage.getQueueDepth());
+    }
+
+    @Test
+    public void keepsTaskInBacklogUntilSlotIsFree() throws InterruptedException {
+        assertTrue(stage.tryReserve(2));
+        CountDownLatch done = new CountDownLatch(1);
+
+        // does not wait although the stage is full
+        stage.executeWhenFree(done::countDown);
+
+        assertEquals(3, stage.getQueueDepth());
+        assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+
+        stage.release(1);
+
+        assertTrue(done.await(TIMEOUT_IN_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void runsBacklogWhenTaskCompletes() throws InterruptedException {
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        stage.execute(() -> awaitUninterruptibly(gate));
+        assertTrue(stage.tryReserve(1));
+        stage.executeWhenFree(done::countDown);
+        assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+
+        gate.countDown();
+
+        assertTrue(done.await(TIMEOUT_IN_SECONDS, TimeUnit.SECONDS));
+        stage.release(1);
+    }
+
+    @Test
+    public void shutdownDropsBacklog() throws InterruptedException {
+        assertTrue(stage.tryReserve(2));
+        CountDownLatch done = new CountDownLatch(1);
+        stage.executeWhenFree(done::countDown);
+
+        stage.shutdown();
+        stage.release(2);
+
+        assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(0, stage.getQueueDepth());
+    }
+
+    @Test
+    public void measuresLatency() throws InterruptedException {
+        assertEquals(Duration.ZERO, stage.getLatency());
+        CountDownLatch done = new CountDownLatch(1);
+
+        stage.execute(() -> {
+            sleepUninterruptibly(20);
+            done.countDown();
+        });
+
+        assertTrue(done.await(TIMEOUT_IN_SECONDS, TimeUnit.SECONDS));
+        awaitFreeSlots(2);
+        assertTrue(stage.getLatency().toMillis() >= 20, stage.getLatency().toString());
+    }
+
+    /**
+     * Waits until the given number of slots can be reserved, then gives them back
+     */
+    private void awaitFreeSlots(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_IN_SECONDS);
+        while (!stage.tryReserve(count)) {
+            assertTrue(System.nanoTime() < deadline, "slots not given back");
+            Thread.sleep(10);
+        }
+        stage.release(count);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
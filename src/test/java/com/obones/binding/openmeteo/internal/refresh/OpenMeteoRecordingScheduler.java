@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.refresh;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link OpenMeteoRecordingScheduler} records the job scheduled last instead of running it, the tests running
+ * it when they want to.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoRecordingScheduler extends ScheduledThreadPoolExecutor {
+    /*
+     * Time a test may take between scheduling a job and checking its delay
+     */
+    private static final long TOLERANCE_IN_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private @Nullable Runnable job;
+    private long delayNanos;
+    private int scheduleCount;
+
+    public OpenMeteoRecordingScheduler() {
+        super(1);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        job = command;
+        delayNanos = unit.toNanos(delay);
+        scheduleCount++;
+        return super.schedule(() -> {
+        }, 1, TimeUnit.DAYS);
+    }
+
+    /**
+     * Runs the job scheduled last, even if it was cancelled since
+     */
+    public void runJob() {
+        Runnable localJob = job;
+        assertNotNull(localJob);
+        job = null;
+        localJob.run();
+    }
+
+    /**
+     * @return the number of jobs scheduled so far
+     */
+    public int getScheduleCount() {
+        return scheduleCount;
+    }
+
+    /**
+     * Checks that the job scheduled last is due after the given delay
+     */
+    public void assertDelay(Duration expected) {
+        assertTrue(delayNanos <= expected.toNanos(), "delay " + delayNanos + " ns above " + expected);
+        assertTrue(delayNanos > expected.toNanos() - TOLERANCE_IN_NANOS,
+                "delay " + delayNanos + " ns below " + expected);
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.refresh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.thing.ThingUID;
+
+/**
+ * Tests for {@link OpenMeteoRefreshCoalescer}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoRefreshCoalescerTest {
+    private static final ThingUID THING_A = new ThingUID("openmeteo:forecast:api:a");
+    private static final ThingUID THING_B = new ThingUID("openmeteo:forecast:api:b");
+
+    private final OpenMeteoRecordingScheduler scheduler = new OpenMeteoRecordingScheduler();
+    private final List<Set<ThingUID>> refreshes = new ArrayList<>();
+    private final OpenMeteoRefreshCoalescer coalescer = new OpenMeteoRefreshCoalescer(scheduler, refreshes::add);
+
+    @AfterEach
+    public void tearDown() {
+        coalescer.cancel();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void mergesRequestsIntoSingleRefresh() {
+        coalescer.request(List.of(THING_A), 10, TimeUnit.SECONDS);
+        coalescer.request(List.of(THING_A, THING_B), 10, TimeUnit.SECONDS);
+
+        assertEquals(1, scheduler.getScheduleCount());
+        scheduler.runJob();
+
+        assertEquals(List.of(Set.of(THING_A, THING_B)), refreshes);
+        assertEquals(3, coalescer.getTriggerCount());
+        assertEquals(1, coalescer.getMergedTriggerCount());
+        assertEquals(2, coalescer.getRefreshCount());
+    }
+
+    @Test
+    public void shorterDelayBringsRefreshForward() {
+        coalescer.request(List.of(THING_A), 10, TimeUnit.SECONDS);
+        coalescer.request(List.of(THING_B), 1, TimeUnit.SECONDS);
+
+        assertEquals(2, scheduler.getScheduleCount());
+        scheduler.assertDelay(Duration.ofSeconds(1));
+        scheduler.runJob();
+
+        assertEquals(List.of(Set.of(THING_A, THING_B)), refreshes);
+    }
+
+    @Test
+    public void longerDelayDoesNotPostponeRefresh() {
+        coalescer.request(List.of(THING_A), 1, TimeUnit.SECONDS);
+        coalescer.request(List.of(THING_B), 10, TimeUnit.SECONDS);
+
+        assertEquals(1, scheduler.getScheduleCount());
+        scheduler.assertDelay(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void requestAfterRefreshSchedulesAnotherOne() {
+        coalescer.request(List.of(THING_A), 1, TimeUnit.SECONDS);
+        scheduler.runJob();
+        coalescer.request(List.of(THING_A), 1, TimeUnit.SECONDS);
+        scheduler.runJob();
+
+        assertEquals(List.of(Set.of(THING_A), Set.of(THING_A)), refreshes);
+        assertEquals(0, coalescer.getMergedTriggerCount());
+    }
+
+    @Test
+    public void cancelForgetsPendingRequests() {
+        coalescer.request(List.of(THING_A), 1, TimeUnit.SECONDS);
+        coalescer.cancel();
+
+        // even if the job had already started
+        scheduler.runJob();
+
+        assertTrue(refreshes.isEmpty());
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.openmeteo.internal.refresh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.thing.ThingUID;
+
+/**
+ * Tests for {@link OpenMeteoRefreshScheduler}
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class OpenMeteoRefreshSchedulerTest {
+    private static final ThingUID THING_A = new ThingUID("openmeteo:forecast:api:a");
+    private static final ThingUID THING_B = new ThingUID("openmeteo:forecast:api:b");
+
+    private final OpenMeteoRecordingScheduler scheduler = new OpenMeteoRecordingScheduler();
+    private final List<Set<ThingUID>> refreshes = new ArrayList<>();
+    private Duration interval = Duration.ZERO;
+    private final OpenMeteoRefreshScheduler refreshScheduler = new OpenMeteoRefreshScheduler(scheduler,
+            thingUID -> interval, 0, refreshes::add);
+
+    @AfterEach
+    public void tearDown() {
+        refreshScheduler.cancel();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void refreshesThingsDueTogether() {
+        refreshScheduler.add(THING_A);
+        refreshScheduler.add(THING_B);
+        interval = Duration.ofHours(1);
+
+        scheduler.runJob();
+
+        assertEquals(List.of(Set.of(THING_A, THING_B)), refreshes);
+        scheduler.assertDelay(Duration.ofHours(1));
+    }
+
+    @Test
+    public void skipsStaleEntries() {
+        refreshScheduler.add(THING_A);
+        refreshScheduler.add(THING_B);
+        // leaves the first entry of each thing behind in the queue
+        refreshScheduler.add(THING_A);
+        refreshScheduler.remove(THING_B);
+        interval = Duration.ofHours(1);
+
+        scheduler.runJob();
+
+        assertEquals(List.of(Set.of(THING_A)), refreshes);
+        scheduler.assertDelay(Duration.ofHours(1));
+    }
+
+    @Test
+    public void refreshedThingIsNotRefreshedAgainBeforeItsInterval() {
+        interval = Duration.ofHours(1);
+        refreshScheduler.add(THING_A);
+        refreshScheduler.add(THING_B);
+        interval = Duration.ZERO;
+        refreshScheduler.refreshed(List.of(THING_A));
+
+        scheduler.runJob();
+
+        assertEquals(List.of(Set.of(THING_A)), refreshes);
+    }
+
+    @Test
+    public void backsOffAfterConsecutiveFailures() {
+        interval = Duration.ofHours(1);
+        refreshScheduler.add(THING_A);
+
+        refreshScheduler.failed(THING_A);
+        scheduler.assertDelay(Duration.ofMinutes(1));
+
+        // the job planned for the first retry finds nothing due and plans the second one
+        refreshScheduler.failed(THING_A);
+        scheduler.runJob();
+        assertTrue(refreshes.isEmpty());
+        scheduler.assertDelay(Duration.ofMinutes(2));
+
+        refreshScheduler.succeeded(THING_A, false);
+        refreshScheduler.failed(THING_A);
+        scheduler.assertDelay(Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void capsBackoffToInterval() {
+        interval = Duration.ofSeconds(90);
+        refreshScheduler.add(THING_A);
+
+        refreshScheduler.failed(THING_A);
+        scheduler.assertDelay(Duration.ofMinutes(1));
+
+        refreshScheduler.failed(THING_A);
+        scheduler.runJob();
+        scheduler.assertDelay(Duration.ofSeconds(90));
+    }
+
+    @Test
+    public void ignoresFailureOfRemovedThing() {
+        interval = Duration.ofHours(1);
+        refreshScheduler.add(THING_A);
+        refreshScheduler.remove(THING_A);
+
+        refreshScheduler.failed(THING_A);
+
+        scheduler.assertDelay(Duration.ofHours(1));
+    }
+}